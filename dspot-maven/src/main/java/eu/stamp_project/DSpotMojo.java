@@ -145,6 +145,90 @@ public class DSpotMojo extends AbstractMojo {
     @Parameter(defaultValue = "false", property = "with-comment")
     private Boolean withComment;
 
+    /**
+     *	Enable the compilation of amplified test classes in memory, instead of printing them on the disk before compiling them.
+     */
+    @Parameter(defaultValue = "false", property = "in-memory-compilation")
+    private Boolean inMemoryCompilation;
+
+    /**
+     *	[optional] specify the number of long-lived JVMs used to run the tests. With 0, a new JVM is forked for each run.
+     */
+    @Parameter(defaultValue = "0", property = "test-runner-pool-size")
+    private Integer testRunnerPoolSize;
+
+    /**
+     *	[optional] specify the number of test methods whose iterations are amplified at the same time. With more than 1, the input amplification of a test method overlaps the execution of the tests of another one, and the amplification is no longer reproducible with the same seed.
+     */
+    @Parameter(defaultValue = "1", property = "pipeline-capacity")
+    private Integer pipelineCapacity;
+
+    /**
+     *	[optional] if enabled, DSpot resumes an interrupted run: the test classes already amplified in the output directory are skipped, and the amplification of a test class restarts at its last saved iteration. The output directory is not cleaned.
+     */
+    @Parameter(defaultValue = "false", property = "resume")
+    private Boolean resume;
+
+    /**
+     *	[optional] if enabled, the assertion amplification runs the instrumented tests once, to know which ones pass and to observe their values at the same time. Each test method is repeated in the same JVM to detect non-deterministic values.
+     */
+    @Parameter(defaultValue = "false", property = "combine-observation-runs")
+    private Boolean combineObservationRuns;
+
+    /**
+     *	[optional] specify the maximum depth of the getters invoked from an observed object, during the assertion amplification.
+     */
+    @Parameter(defaultValue = "3", property = "max-observation-depth")
+    private Integer maxObservationDepth;
+
+    /**
+     *	[optional] specify the maximum number of getters invoked on an observed object, per type, during the assertion amplification. With a negative value, there is no limit.
+     */
+    @Parameter(defaultValue = "-1", property = "max-observed-getters-per-type")
+    private Integer maxObservedGettersPerType;
+
+    /**
+     *	[optional] specify the maximum number of observations of a test method, during the assertion amplification. The observation stops once it is reached. With a negative value, there is no limit.
+     */
+    @Parameter(defaultValue = "-1", property = "max-observations-per-test")
+    private Integer maxObservationsPerTest;
+
+    /**
+     *	[optional] specify a regex on the qualified names of the types whose getters are invoked during the assertion amplification. By default, all the types are observed.
+     */
+    @Parameter(defaultValue = "", property = "observed-types")
+    private String observedTypes;
+
+    /**
+     *	[optional] specify a regex on the qualified names of the types whose getters are not invoked during the assertion amplification.
+     */
+    @Parameter(defaultValue = "", property = "excluded-observed-types")
+    private String excludedObservedTypes;
+
+    /**
+     *	[optional] if enabled, the assertion amplification runs the instrumented tests inside the JVM of DSpot, in an isolated class loader, and reads the observations directly from memory. The tests must not depend on the working directory nor call System.exit().
+     */
+    @Parameter(defaultValue = "false", property = "in-process-assertion-run")
+    private Boolean inProcessAssertionRun;
+
+    /**
+     *	[optional] specify the hard timeout in millisecond of a run inside the JVM of DSpot, after which the run and its class loader are abandoned. With a negative value, the timeout of the runs in another JVM is used.
+     */
+    @Parameter(defaultValue = "-1", property = "in-process-time-out")
+    private Integer inProcessTimeOut;
+
+    /**
+     *	[optional] specify a directory in which the Spoon model of the program is cached between two runs of DSpot. The cached model is used as long as the content of the source files and the classpath do not change. By default, the model is not cached.
+     */
+    @Parameter(defaultValue = "", property = "spoon-model-cache")
+    private String spoonModelCache;
+
+    /**
+     *	[optional] if enabled, the PitMutantScoreSelector runs PIT through its API inside the JVM of DSpot, instead of invoking Maven or Gradle, and runs the amplified tests only against the classes that have live mutants.
+     */
+    @Parameter(defaultValue = "false", property = "in-process-pit")
+    private Boolean inProcessPit;
+
     /**
      *	Disable the minimization of amplified tests.
      */
@@ -206,6 +290,20 @@ public class DSpotMojo extends AbstractMojo {
                             .setVerbose(this.verbose)
                             .setUseWorkingDirectory(this.workingDirectory)
                             .setWithComment(this.withComment)
+                            .setCompileInMemory(this.inMemoryCompilation)
+                            .setTestRunnerPoolSize(this.testRunnerPoolSize)
+                            .setPipelineCapacity(this.pipelineCapacity)
+                            .setResume(this.resume)
+                            .setCombineObservationRuns(this.combineObservationRuns)
+                            .setMaxObservationDepth(this.maxObservationDepth)
+                            .setMaxObservedGettersPerType(this.maxObservedGettersPerType)
+                            .setMaxObservationsPerTest(this.maxObservationsPerTest)
+                            .setObservedTypes(this.observedTypes)
+                            .setExcludedObservedTypes(this.excludedObservedTypes)
+                            .setInProcessAssertionRun(this.inProcessAssertionRun)
+                            .setInProcessTimeOutInMs(this.inProcessTimeOut)
+                            .setPathToSpoonModelCache(this.spoonModelCache == null ? "" : this.spoonModelCache)
+                            .setInProcessPit(this.inProcessPit)
                             .setDescartesMode(this.descartes)
                             .setOutputDirectory(this.outputPath)
             );
@@ -1,12 +1,15 @@
 package eu.stamp_project;
 
+import com.martiansoftware.jsap.JSAPResult;
 import eu.stamp_project.diff.SelectorOnDiff;
 import eu.stamp_project.dspot.DSpot;
+import eu.stamp_project.dspot.ParallelDSpot;
 import eu.stamp_project.dspot.amplifier.TestDataMutator;
 import eu.stamp_project.dspot.selector.JacocoCoverageSelector;
 import eu.stamp_project.options.JSAPOptions;
 import eu.stamp_project.program.InputConfiguration;
 import eu.stamp_project.utils.AmplificationHelper;
+import eu.stamp_project.utils.compilation.TestRunnerWorkerPool;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,19 +31,29 @@ public class Main {
 	private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
 
 	public static void main(String[] args) throws Exception {
-		try {
-			FileUtils.forceDelete(new File("target/dspot/"));
-		} catch (Exception ignored) {
+		// an interrupted run is resumed from its output, that is by default in target/dspot/
+		if (!shouldResume(args)) {
+			try {
+				FileUtils.forceDelete(new File("target/dspot/"));
+			} catch (Exception ignored) {
 
+			}
 		}
 		final InputConfiguration configuration = JSAPOptions.parse(args);
 		if (configuration == null) {
 			Main.runExample();
+		} else if (configuration.getNbParallelClasses() > 1) {
+			ParallelDSpot.run(configuration, args);
 		} else {
 			run(configuration);
 		}
 	}
 
+	private static boolean shouldResume(String[] args) {
+		final JSAPResult jsapResult = JSAPOptions.options.parse(args);
+		return jsapResult.success() && jsapResult.getBoolean("resume");
+	}
+
 	public static void run(InputConfiguration configuration) throws Exception {
 		DSpot dspot = new DSpot(
 				configuration,
@@ -71,6 +84,7 @@ public class Main {
 						.collect(Collectors.toList());
 			}
 		}
+		TestRunnerWorkerPool.shutdown();
 		LOGGER.info("Amplification {}.", amplifiedTestClasses.isEmpty() ? "failed" : "succeed");
 		final long elapsedTime = System.currentTimeMillis() - startTime;
 		LOGGER.info("Elapsed time {} ms", elapsedTime);
@@ -79,7 +93,7 @@ public class Main {
 	public static void createOutputDirectories(InputConfiguration inputConfiguration) {
 		final File outputDirectory = new File(inputConfiguration.getOutputDirectory());
 		try {
-			if (inputConfiguration.shouldClean() && outputDirectory.exists()) {
+			if (inputConfiguration.shouldClean() && !inputConfiguration.shouldResume() && outputDirectory.exists()) {
 				FileUtils.forceDelete(outputDirectory);
 			}
 			if (!outputDirectory.exists()) {
@@ -0,0 +1,78 @@
+package eu.stamp_project.automaticbuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A lock on the project under amplification, shared by all the processes of DSpot that amplify this project,
+ * see {@link eu.stamp_project.dspot.ParallelDSpot}.
+ * The automatic builder writes inside the project, e.g. the reports of PIT or the pom.xml with Descartes:
+ * it must run PIT and the results must be read by one process at a time.
+ * The amplified test classes are compiled in the test classes of the project, that PIT runs:
+ * they must not be compiled while another process runs PIT, see {@link eu.stamp_project.utils.compilation.DSpotCompiler#lockBinaryOutputDirectory()}.
+ */
+public class AutomaticBuilderLock implements AutoCloseable {
+
+    private static final String LOCK_FILE = "target/dspot/automatic-builder.lock";
+
+    // a FileLock is held on behalf of the whole JVM, the threads of the same JVM must be excluded separately
+    private static final ReentrantLock LOCK_OF_THE_JVM = new ReentrantLock();
+
+    private final FileChannel channel;
+
+    private final FileLock fileLock;
+
+    private AutomaticBuilderLock(FileChannel channel, FileLock fileLock) {
+        this.channel = channel;
+        this.fileLock = fileLock;
+    }
+
+    /**
+     * Blocks until no other process or thread holds the lock of the given project.
+     * The lock must be released using {@link #close()}, e.g. using a try-with-resources.
+     *
+     * @param pathToRootOfProject the path to the root of the project under amplification
+     * @return the acquired lock
+     */
+    public static AutomaticBuilderLock lock(String pathToRootOfProject) {
+        LOCK_OF_THE_JVM.lock();
+        if (LOCK_OF_THE_JVM.getHoldCount() > 1) {
+            return new AutomaticBuilderLock(null, null);
+        }
+        final File lockFile = new File(pathToRootOfProject + "/" + LOCK_FILE);
+        FileChannel channel = null;
+        try {
+            lockFile.getParentFile().mkdirs();
+            channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            return new AutomaticBuilderLock(channel, channel.lock());
+        } catch (IOException e) {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException ignored) {
+                // the lock could not be acquired anyway
+            }
+            LOCK_OF_THE_JVM.unlock();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (this.fileLock != null) {
+                this.fileLock.release();
+                this.channel.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            LOCK_OF_THE_JVM.unlock();
+        }
+    }
+}
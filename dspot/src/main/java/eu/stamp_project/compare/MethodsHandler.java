@@ -1,17 +1,55 @@
 package eu.stamp_project.compare;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.BaseStream;
 
 
 public class MethodsHandler {
 
-    private Map<Class<?>, List<Method>> cache;
+    /**
+     * The category of the type returned by a getter, that tells how its values are observed.
+     */
+    public enum ReturnTypeCategory {
+        PRIMITIVE, // primitive types, their wrappers and String: the values are observed as they are
+        COLLECTION,
+        MAP,
+        COMPLEX
+    }
+
+    /**
+     * An observable getter, with its method handle, resolved once.
+     */
+    public static class Getter {
+
+        public final Method method;
+
+        /**
+         * The method handle of type (Object)Object, or null if the method is not accessible.
+         */
+        public final MethodHandle methodHandle;
+
+        public final ReturnTypeCategory returnTypeCategory;
+
+        Getter(Method method, MethodHandle methodHandle, ReturnTypeCategory returnTypeCategory) {
+            this.method = method;
+            this.methodHandle = methodHandle;
+            this.returnTypeCategory = returnTypeCategory;
+        }
+    }
+
+    // shared by all the tests of the JVM
+    private static final Map<Class<?>, List<Getter>> cache = new ConcurrentHashMap<>();
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
 
     private static final List<String> forbiddenMethods;
 
@@ -38,33 +76,46 @@ public class MethodsHandler {
         forbiddenMethods.add("clear");
     }
 
-    public MethodsHandler() {
-        this.cache = new HashMap<>();
+    public List<Getter> getAllGetters(Class<?> clazz) {
+        return cache.computeIfAbsent(clazz, MethodsHandler::findGetters);
     }
 
-    public List<Method> getAllMethods(Class<?> clazz) {
-        if (!cache.containsKey(clazz)) {
-            findMethods(clazz);
-        }
-        return cache.get(clazz);
-    }
-
-    private void findMethods(Class<?> clazz) {
-        List<Method> methodsList = new ArrayList<Method>();
+    private static List<Getter> findGetters(Class<?> clazz) {
+        List<Getter> getters = new ArrayList<>();
         for (Method m : clazz.getMethods()) {
             if (isValidMethod(m)) {
-                methodsList.add(m);
+                getters.add(new Getter(m, unreflect(m), categoryOf(m.getReturnType())));
             }
         }
-        cache.put(clazz, methodsList);
+        return getters;
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            return LOOKUP.unreflect(method).asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static ReturnTypeCategory categoryOf(Class<?> returnType) {
+        if (Utils.isPrimitive(returnType)) {
+            return ReturnTypeCategory.PRIMITIVE;
+        } else if (Collection.class.isAssignableFrom(returnType)) {
+            return ReturnTypeCategory.COLLECTION;
+        } else if (Map.class.isAssignableFrom(returnType)) {
+            return ReturnTypeCategory.MAP;
+        } else {
+            return ReturnTypeCategory.COMPLEX;
+        }
     }
 
-    private boolean isDefaulttoStringOrHashCode(Method method) {
+    private static boolean isDefaulttoStringOrHashCode(Method method) {
         return (method.getDeclaringClass().equals(Object.class) || method.getDeclaringClass().equals(Enum.class))
                 && (method.getName().equals("hashCode") || method.getName().equals("toString"));
     }
 
-    private boolean isValidMethod(Method method) {
+    private static boolean isValidMethod(Method method) {
         if (!Modifier.isPublic(method.getModifiers()) // the method is not public
                 || Modifier.isStatic(method.getModifiers()) // the method is static
                 || isVoid(method.getReturnType()) // the method is return void type, i.e. it returns nothing
@@ -87,7 +138,7 @@ public class MethodsHandler {
                 method.getName().startsWith("hashCode");
     }
 
-    private boolean returnStream(Method method) {
+    private static boolean returnStream(Method method) {
         try {
             return BaseStream.class.isAssignableFrom(method.getReturnType());
         } catch (Exception e) {
@@ -5,22 +5,22 @@ import eu.stamp_project.testrunner.EntryPoint;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-import java.util.ArrayList;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * User: Simon
@@ -33,11 +33,29 @@ public class ObjectLog {
 
     private Map<String, Observation> observations;
     private MethodsHandler methodsHandler;
-    private int maxDeep = 3;
+    private ObservationBudget budget;
+    private ObservationPaths paths;
+    private ObservationChannel channel;
+    private int numberOfOpenedChannels = 0;
+    // if true, the observations are not written in the channel, see #resetInMemory()
+    private boolean inMemory = false;
+
+    // the name of the test method of each id, see #testOf(String)
+    private Map<String, String> testOfId;
+
+    // the number of observations of each test method during the current run
+    private Map<String, Integer> numberOfObservationsOfTestInRun;
+    // the number of observations truncated by the budget, per id, during the current run
+    private Map<String, Integer> numberOfTruncatedObservationsInRun;
 
     private ObjectLog() {
         this.observations = new LinkedHashMap<>();
         this.methodsHandler = new MethodsHandler();
+        this.budget = ObservationBudget.DEFAULT;
+        this.paths = new ObservationPaths();
+        this.testOfId = new HashMap<>();
+        this.numberOfObservationsOfTestInRun = new HashMap<>();
+        this.numberOfTruncatedObservationsInRun = new HashMap<>();
     }
 
     private static ObjectLog getSingleton() {
@@ -47,136 +65,403 @@ public class ObjectLog {
         return singleton;
     }
 
+    // the in-process run of the current thread, inherited by the threads that the tests start, see #startInProcessRun()
+    private static final InheritableThreadLocal<InProcessRun> runOfThread = new InheritableThreadLocal<>();
+
+    /**
+     * A run of tests inside the JVM of DSpot. The threads of the run record their observations in the ObjectLog of the run,
+     * <i>i.e.</i> the current one when the run started, rather than the current one when they observe.
+     * A run that is abandoned, <i>e.g.</i> after a time out, cannot record any observation anymore,
+     * even if its threads are still running during the next runs.
+     */
+    public static final class InProcessRun {
+
+        private final ObjectLog objectLog;
+
+        private volatile boolean abandoned = false;
+
+        InProcessRun(ObjectLog objectLog) {
+            this.objectLog = objectLog;
+        }
+
+        /**
+         * Binds the current thread, and the threads it will start, to this run.
+         */
+        public void join() {
+            runOfThread.set(this);
+        }
+
+        /**
+         * Discards the next observations of the threads of this run.
+         */
+        public void abandon() {
+            this.abandoned = true;
+        }
+    }
+
+    /**
+     * @return a new run of tests inside the JVM of DSpot, that records its observations in the current ObjectLog.
+     * The thread that runs the tests must join it, see {@link InProcessRun#join()}.
+     */
+    public static InProcessRun startInProcessRun() {
+        return new InProcessRun(getSingleton());
+    }
+
+    // the ObjectLog in which the current thread records its observations, or null if its run has been abandoned
+    private static ObjectLog getObjectLogOfCurrentThread() {
+        final InProcessRun run = runOfThread.get();
+        if (run == null) {
+            return getSingleton();
+        }
+        return run.abandoned ? null : run.objectLog;
+    }
+
+    // the run may be abandoned while the thread is observing an object, e.g. blocked in a getter
+    private static boolean isRunOfCurrentThreadAbandoned() {
+        final InProcessRun run = runOfThread.get();
+        return run != null && run.abandoned;
+    }
+
     public static void reset() {
+        if (singleton != null) {
+            singleton.closeChannel();
+        }
         singleton = new ObjectLog();
     }
 
+    /**
+     * Same as {@link #reset()}, but the next observations are only kept in memory, and not written in the channel.
+     * It is used when the tests are run inside the JVM of DSpot, that reads the observations directly with {@link #getObservations()}.
+     */
+    public static void resetInMemory() {
+        reset();
+        singleton.inMemory = true;
+    }
+
+    /**
+     * Starts a new run of a test method, observed within the given budget, see {@link ObservationBudget}.
+     */
+    public static void startRun(ObservationBudget budget) {
+        final ObjectLog objectLog = getObjectLogOfCurrentThread();
+        if (objectLog == null) {
+            return;
+        }
+        objectLog.budget = budget;
+        objectLog.numberOfObservationsOfTestInRun.clear();
+        objectLog.numberOfTruncatedObservationsInRun.clear();
+    }
+
+    /**
+     * Observes the given object, and the values returned by its getters.
+     *
+     * @throws ObservationException if the observation fails, e.g. if the given object is null
+     */
     public static void log(Object objectToObserve, String objectObservedAsString, String id) {
-        getSingleton()._log(
-                objectToObserve,
-                objectToObserve,
-                objectToObserve.getClass(),
-                objectObservedAsString,
-                id,
-                0,
-                new ArrayList<>()
-        );
-    }
-
-    private void _log(Object startingObject,
-                      Object objectToObserve,
+        final ObjectLog objectLog = getObjectLogOfCurrentThread();
+        if (objectLog == null) {
+            return;
+        }
+        try {
+            objectLog._log(
+                    objectToObserve,
+                    objectToObserve.getClass(),
+                    objectLog.paths.getRoot(objectObservedAsString, objectToObserve.getClass()),
+                    id,
+                    0
+            );
+        } catch (RuntimeException e) {
+            throw new ObservationException(id, e);
+        }
+    }
+
+    private void _log(Object objectToObserve,
                       Class<?> currentObservedClass,
-                      String observedObjectAsString,
+                      ObservationPaths.Path path,
                       String id,
-                      int deep,
-                      List<Method> methodsToReachCurrentObject) {
-        if (deep <= maxDeep) {
-            if (isSerializable(objectToObserve) &&
-                    (objectToObserve == null ||
-                            Utils.isPrimitive(objectToObserve) ||
-                            Utils.isPrimitiveArray(objectToObserve) ||
-                            Utils.isPrimitiveCollectionOrMap(objectToObserve))) {
-                addObservation(id, observedObjectAsString, objectToObserve);
+                      int deep) {
+        if (deep <= budget.getMaxDepth()) {
+            if (isBudgetOfTestExhausted(id)) {
+                truncate(id, 1);
+            } else if ((objectToObserve == null ||
+                    Utils.isPrimitive(objectToObserve) ||
+                    Utils.isPrimitiveArray(objectToObserve) ||
+                    Utils.isPrimitiveCollectionOrMap(objectToObserve)) &&
+                    isSerializable(objectToObserve)) {
+                putObservation(id, path, objectToObserve);
             } else if (Utils.isCollection(objectToObserve)) {
-                addObservation(id, observedObjectAsString + ".isEmpty()", ((Collection) objectToObserve).isEmpty());
+                addObservation(id, paths.getIsEmpty(path), ((Collection) objectToObserve).isEmpty());
             } else if (Utils.isMap(objectToObserve)) {
-                addObservation(id, observedObjectAsString + ".isEmpty()", ((Map) objectToObserve).isEmpty());
-            } else if (!objectToObserve.getClass().getName().toLowerCase().contains("mock")) {
+                addObservation(id, paths.getIsEmpty(path), ((Map) objectToObserve).isEmpty());
+            } else if (!objectToObserve.getClass().getName().toLowerCase().contains("mock") &&
+                    budget.isWalkable(objectToObserve.getClass())) {
                 observeNotNullObject(
-                        startingObject,
+                        objectToObserve,
                         currentObservedClass,
-                        observedObjectAsString,
+                        path,
                         id,
-                        deep,
-                        methodsToReachCurrentObject
+                        deep
                 );
             }
         }
     }
 
+    private static final int ALWAYS_SERIALIZABLE = 0;
+    private static final int NEVER_SERIALIZABLE = 1;
+    private static final int SERIALIZABLE_DEPENDING_ON_VALUE = 2;
+
+    // the serializability that can be decided from the class of a candidate, without serializing it
+    private static final Map<Class<?>, Integer> serializabilityOfClass = new ConcurrentHashMap<>();
+
+    private static final int MAX_SIZE_OF_PROBE_BUFFER = 1 << 20;
+
+    private static ByteArrayOutputStream probeBuffer;
+
+    private static ObjectOutputStream probeStream;
+
     public static boolean isSerializable(Object candidate) {
+        if (candidate == null) {
+            return true;
+        }
+        switch (serializabilityOfClass.computeIfAbsent(candidate.getClass(), ObjectLog::computeSerializabilityOfClass)) {
+            case ALWAYS_SERIALIZABLE:
+                return true;
+            case NEVER_SERIALIZABLE:
+                return false;
+            default:
+                return probe(candidate);
+        }
+    }
+
+    private static int computeSerializabilityOfClass(Class<?> candidateClass) {
+        if (Utils.isPrimitive(candidateClass) ||
+                Enum.class.isAssignableFrom(candidateClass) ||
+                (candidateClass.isArray() && candidateClass.getComponentType().isPrimitive())) {
+            return ALWAYS_SERIALIZABLE;
+        } else if (!Serializable.class.isAssignableFrom(candidateClass)) {
+            return NEVER_SERIALIZABLE;
+        } else {
+            return SERIALIZABLE_DEPENDING_ON_VALUE;
+        }
+    }
+
+    // serializes the candidate, e.g. a collection or an object that may refer to values that are not serializable.
+    // The stream is reused, and the written bytes are dropped.
+    private static synchronized boolean probe(Object candidate) {
         try {
-            new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(candidate);
+            if (probeStream == null) {
+                probeBuffer = new ByteArrayOutputStream();
+                probeStream = new ObjectOutputStream(probeBuffer);
+            }
+            probeStream.writeObject(candidate);
+            probeStream.reset();
             return true;
         } catch (IOException e) {
+            // the stream cannot be reused after a failure
+            probeStream = null;
             return false;
+        } catch (RuntimeException e) {
+            probeStream = null;
+            throw e;
+        } finally {
+            if (probeStream != null) {
+                if (probeBuffer.size() > MAX_SIZE_OF_PROBE_BUFFER) {
+                    probeStream = null;
+                } else {
+                    probeBuffer.reset();
+                }
+            }
         }
     }
 
-    private void addObservation(String id, String observedObjectAsString, Object actualValue) {
+    private void addObservation(String id, ObservationPaths.Path path, Object actualValue) {
         if (isSerializable(actualValue)) {
-            if (!observations.containsKey(id)) {
-                observations.put(id, new Observation());
-            }
-            observations.get(id).add(observedObjectAsString, actualValue);
+            putObservation(id, path, actualValue);
         }
     }
 
-    private Object chainInvocationOfMethods(List<Method> methodsToInvoke, Object startingObject) throws FailToObserveException {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        FutureTask task = null;
-        Object currentObject = null;
+    private void putObservation(String id, ObservationPaths.Path path, Object actualValue) {
+        if (isRunOfCurrentThreadAbandoned()) {
+            return;
+        }
+        if (isBudgetOfTestExhausted(id)) {
+            truncate(id, 1);
+            return;
+        }
+        numberOfObservationsOfTestInRun.merge(getTest(id), 1, Integer::sum);
+        getObservation(id).add(path.getExpression(), actualValue);
+        if (this.inMemory) {
+            return;
+        }
         try {
+            final ObservationChannel channel = getChannel();
+            channel.write(id, defineInChannel(channel, path), actualValue);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Observation getObservation(String id) {
+        if (!observations.containsKey(id)) {
+            observations.put(id, new Observation());
+        }
+        return observations.get(id);
+    }
+
+    // defines the path, and its parents, in the current segment of the channel if they are not yet
+    private int defineInChannel(ObservationChannel channel, ObservationPaths.Path path) throws IOException {
+        if (path.segment != this.numberOfOpenedChannels) {
+            final int parent = path.parent == null ? -1 : defineInChannel(channel, path.parent);
+            path.indexInSegment = channel.definePath(path.kind, parent, path.visibleClass, path.name);
+            path.segment = this.numberOfOpenedChannels;
+        }
+        return path.indexInSegment;
+    }
+
+    private String getTest(String id) {
+        String test = this.testOfId.get(id);
+        if (test == null) {
+            test = testOf(id);
+            this.testOfId.put(id, test);
+        }
+        return test;
+    }
+
+    /**
+     * @param id the id of an observation point, i.e. the name of the test method, the index of the observed statement, and possibly a suffix
+     * @return the name of the test method of the observation point
+     */
+    public static String testOf(String id) {
+        final int indexOfSeparator = id.indexOf("__");
+        return indexOfSeparator == -1 ? id : id.substring(0, indexOfSeparator);
+    }
+
+    private boolean isBudgetOfTestExhausted(String id) {
+        return numberOfObservationsOfTestInRun.getOrDefault(getTest(id), 0) >= budget.getMaxObservationsPerTest();
+    }
+
+    // the truncated observations are counted per run, and the most truncated run is reported
+    private void truncate(String id, int numberOfTruncatedObservations) {
+        if (numberOfTruncatedObservations > 0) {
+            getObservation(id).reportNumberOfTruncatedObservations(
+                    this.numberOfTruncatedObservationsInRun.merge(id, numberOfTruncatedObservations, Integer::sum)
+            );
+        }
+    }
+
+    // the first opening after a reset overwrites the observations of a previous run
+    private ObservationChannel getChannel() throws IOException {
+        if (this.channel == null) {
+            this.channel = new ObservationChannel(new File(OBSERVATIONS_PATH_FILE_NAME), this.numberOfOpenedChannels > 0);
+            this.numberOfOpenedChannels++;
+        }
+        return this.channel;
+    }
+
+    private void closeChannel() {
+        if (this.channel != null) {
             try {
-                task = new FutureTask<>(() -> methodsToInvoke.get(0).invoke(startingObject));
-                executor.execute(task);
-                currentObject = task.get(1, TimeUnit.SECONDS);
-            } catch (Exception e) {
-                throw new FailToObserveException();
-            }
-            for (int i = 1; i < methodsToInvoke.size(); i++) {
-                Method method = methodsToInvoke.get(i);
-                try {
-                    final Object finalCurrentObject = currentObject;
-                    task = new FutureTask<>(() -> method.invoke(finalCurrentObject));
-                    executor.execute(task);
-                    currentObject = task.get(1, TimeUnit.SECONDS);
-                } catch (Exception e) {
-                    throw new FailToObserveException();
+                for (Map.Entry<String, Observation> entry : this.observations.entrySet()) {
+                    if (entry.getValue().getNumberOfTruncatedObservations() > 0) {
+                        this.channel.writeNumberOfTruncatedObservations(entry.getKey(),
+                                entry.getValue().getNumberOfTruncatedObservations());
+                    }
                 }
+                this.channel.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                this.channel = null;
             }
-        } finally {
-            if (task != null) {
-                task.cancel(true);
+        }
+    }
+
+    private static final long TIME_OUT_OF_INVOCATION_IN_MS = 1000L;
+
+    // a single thread runs all the invocations of the test JVM, and is replaced only if an invocation times out
+    private static ExecutorService invoker;
+
+    private static synchronized ExecutorService getInvoker() {
+        if (invoker == null) {
+            invoker = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "dspot-observation");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return invoker;
+    }
+
+    private static synchronized void discardInvoker(ExecutorService executor) {
+        executor.shutdownNow();
+        if (invoker == executor) {
+            invoker = null;
+        }
+    }
+
+    private static Object invoke(MethodsHandler.Getter getter, Object target) throws FailToObserveException {
+        final MethodHandle methodHandle = getter.methodHandle;
+        if (methodHandle == null) {
+            throw new FailToObserveException();
+        }
+        final FutureTask<Object> task = new FutureTask<>(() -> {
+            try {
+                return (Object) methodHandle.invokeExact(target);
+            } catch (Throwable throwable) {
+                throw new InvocationTargetException(throwable);
             }
-            executor.shutdown();
+        });
+        final ExecutorService executor = getInvoker();
+        executor.execute(task);
+        try {
+            return task.get(TIME_OUT_OF_INVOCATION_IN_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // the thread may be stuck in the invoked method
+            task.cancel(true);
+            discardInvoker(executor);
+            throw new FailToObserveException();
+        } catch (Exception e) {
+            throw new FailToObserveException();
         }
-        return currentObject;
     }
 
-    private void observeNotNullObject(Object startingObject,
+    // the methods are invoked on the object reached by the previous ones, rather than on the starting object again
+    private void observeNotNullObject(Object currentObject,
                                       Class<?> currentObservedClass,
-                                      String stringObject,
+                                      ObservationPaths.Path path,
                                       String id,
-                                      int deep,
-                                      List<Method> methodsToReachCurrentObject) {
+                                      int deep) {
         try {
-            for (Method method : methodsHandler.getAllMethods(currentObservedClass)) {
+            final List<MethodsHandler.Getter> getters = methodsHandler.getAllGetters(currentObservedClass);
+            if (deep + 1 > budget.getMaxDepth()) {
+                // the values returned by the getters would be too deep to be observed, they are not computed.
+                // They are truncated only by a depth lower than the default one, otherwise they are never observed
+                if (budget.isMaxDepthTruncating()) {
+                    truncate(id, getters.size());
+                }
+                return;
+            }
+            final int numberOfGettersToInvoke = Math.min(getters.size(), budget.getMaxGettersPerType());
+            truncate(id, getters.size() - numberOfGettersToInvoke);
+            for (int i = 0; i < numberOfGettersToInvoke; i++) {
+                if (isBudgetOfTestExhausted(id)) {
+                    truncate(id, numberOfGettersToInvoke - i);
+                    return;
+                }
+                final MethodsHandler.Getter getter = getters.get(i);
                 try {
-                    final ArrayList<Method> tmpListOfMethodsToReachCurrentObject = new ArrayList<>(methodsToReachCurrentObject);
-                    tmpListOfMethodsToReachCurrentObject.add(method);
-                    final Object result = chainInvocationOfMethods(tmpListOfMethodsToReachCurrentObject, startingObject);
-                    if (startingObject.getClass().isAnonymousClass()) {
-                        _log(startingObject,
-                                result,
-                                method.getReturnType(),
-                                "(" + stringObject + ")." + method.getName() + "()",
-                                id,
-                                deep + 1,
-                                tmpListOfMethodsToReachCurrentObject
-                        );
+                    final Object result = invoke(getter, currentObject);
+                    final ObservationPaths.Path pathOfResult = paths.getGetter(path, getter);
+                    if (getter.returnTypeCategory == MethodsHandler.ReturnTypeCategory.PRIMITIVE) {
+                        // the value is null or primitive, it is observed as it is
+                        addObservation(id, pathOfResult, result);
                     } else {
-                        String nameOfVisibleClass = getVisibleClass(currentObservedClass);
-                        _log(startingObject,
-                                result,
-                                method.getReturnType(),
-                                "(" + nameOfVisibleClass + stringObject + ")." + method.getName() + "()",
+                        _log(result,
+                                getter.method.getReturnType(),
+                                pathOfResult,
                                 id,
-                                deep + 1,
-                                tmpListOfMethodsToReachCurrentObject
+                                deep + 1
                         );
                     }
-                    tmpListOfMethodsToReachCurrentObject.remove(method);
                 } catch (FailToObserveException ignored) {
                     // ignored, we just do nothing...
                 }
@@ -186,39 +471,49 @@ public class ObjectLog {
         }
     }
 
-    private String getVisibleClass(Class<?> currentObservedClass) {
-        if (currentObservedClass == null || currentObservedClass == Object.class) {
-            return "";
-        } else if (Modifier.isPrivate(currentObservedClass.getModifiers()) ||
-                Modifier.isProtected(currentObservedClass.getModifiers())) {
-            return getVisibleClass(currentObservedClass.getSuperclass());
-        } else {
-            return "(" + currentObservedClass.getCanonicalName() + ")";
-        }
-    }
-
     public static Map<String, Observation> getObservations() {
-        if (getSingleton().observations.isEmpty()) {
+        if (!getSingleton().inMemory && getSingleton().observations.isEmpty()) {
             return load();
         } else {
             return getSingleton().observations;
         }
     }
 
-    private static final String OBSERVATIONS_PATH_FILE_NAME = "target/dspot/observations.ser";
+    /**
+     * @return the observations grouped by test method, see {@link #testOf(String)}, and then by id
+     */
+    public static Map<String, Map<String, Observation>> getObservationsByTest() {
+        final Map<String, Map<String, Observation>> observationsByTest = new LinkedHashMap<>();
+        for (Map.Entry<String, Observation> entry : getObservations().entrySet()) {
+            observationsByTest.computeIfAbsent(testOf(entry.getKey()), test -> new LinkedHashMap<>())
+                    .put(entry.getKey(), entry.getValue());
+        }
+        return observationsByTest;
+    }
+
+    private static final String OBSERVATIONS_PATH_FILE_NAME = "target/dspot/observations.bin";
 
+    /**
+     * Ends the channel of observations, that have been written as they were observed, see {@link ObservationChannel}.
+     */
     public static void save() {
-        getSingleton().observations.values().forEach(Observation::purify);
-        try (FileOutputStream fout = new FileOutputStream(OBSERVATIONS_PATH_FILE_NAME)) {
-            try (ObjectOutputStream oos = new ObjectOutputStream(fout)) {
-                oos.writeObject(getSingleton().observations);
+        try {
+            // opens the channel if nothing has been observed, to overwrite the observations of a previous run
+            getSingleton().getChannel();
+            getSingleton().closeChannel();
+            System.out.println(
+                    String.format("File saved to the following path: %s",
+                            new File(OBSERVATIONS_PATH_FILE_NAME).getAbsolutePath())
+            );
+            final int numberOfTruncatedObservations = getSingleton().observations.values()
+                    .stream()
+                    .mapToInt(Observation::getNumberOfTruncatedObservations)
+                    .sum();
+            if (numberOfTruncatedObservations > 0) {
                 System.out.println(
-                        String.format("File saved to the following path: %s",
-                                new File(OBSERVATIONS_PATH_FILE_NAME).getAbsolutePath())
+                        String.format("%d observations have been truncated by the budget of observations",
+                                numberOfTruncatedObservations)
                 );
-            } catch (Exception e) {
-                e.printStackTrace();
-                throw new RuntimeException(e);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -227,15 +522,11 @@ public class ObjectLog {
     }
 
     public static Map<String, Observation> load() {
-        try (FileInputStream fi = new FileInputStream(new File(
-                (EntryPoint.workingDirectory != null ? // in case we modified the working directory
-                        EntryPoint.workingDirectory.getAbsolutePath() + "/" : "") +
-                        OBSERVATIONS_PATH_FILE_NAME))) {
-            try (ObjectInputStream oi = new ObjectInputStream(fi)) {
-                return (Map) oi.readObject();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+        try {
+            return ObservationChannel.read(new File(
+                    (EntryPoint.workingDirectory != null ? // in case we modified the working directory
+                            EntryPoint.workingDirectory.getAbsolutePath() + "/" : "") +
+                            OBSERVATIONS_PATH_FILE_NAME));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -14,6 +14,8 @@ public class Observation implements Serializable {
 
     private Map<String, Object> observationValues;
 
+    private int numberOfTruncatedObservations;
+
     public Observation() {
         this.observationValues = new LinkedHashMap<>();
         this.notDeterministValues = new HashSet<>();
@@ -102,6 +104,17 @@ public class Observation implements Serializable {
         keysToBeRemoved.forEach(this.observationValues::remove);
     }
 
+    /**
+     * Keeps the largest number of observations truncated by the {@link ObservationBudget}, among the runs that report one.
+     */
+    public void reportNumberOfTruncatedObservations(int numberOfTruncatedObservations) {
+        this.numberOfTruncatedObservations = Math.max(this.numberOfTruncatedObservations, numberOfTruncatedObservations);
+    }
+
+    public int getNumberOfTruncatedObservations() {
+        return numberOfTruncatedObservations;
+    }
+
     public Set<String> getNotDeterministValues() {
         return notDeterministValues;
     }
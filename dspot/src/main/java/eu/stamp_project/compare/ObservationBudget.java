@@ -0,0 +1,105 @@
+package eu.stamp_project.compare;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Bounds the walk of {@link ObjectLog} through the observed objects: the maximum depth, the maximum number of getters
+ * invoked per type, the maximum number of observations of a test method during one run, and the types that are walked.
+ * <p>
+ * This budget is a JUnit rule, added to the instrumented test classes. Before each run of a test method,
+ * it sets itself as the budget of {@link ObjectLog} and resets the number of observations of the run.
+ * A negative maximum means no limit. An empty pattern of types means no filter.
+ */
+public class ObservationBudget implements TestRule {
+
+    /**
+     * The depth of the getters invoked by {@link ObjectLog} when no budget is specified.
+     * The values beyond this depth are never observed: they are not counted as truncated by a budget.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 3;
+
+    public static final ObservationBudget DEFAULT = new ObservationBudget(DEFAULT_MAX_DEPTH, -1, -1, "", "");
+
+    private final int maxDepth;
+
+    private final int maxGettersPerType;
+
+    private final int maxObservationsPerTest;
+
+    private final Pattern includedTypes;
+
+    private final Pattern excludedTypes;
+
+    private final Map<Class<?>, Boolean> isWalkable;
+
+    /**
+     * @param maxDepth               the maximum depth of the getters invoked from an observed object
+     * @param maxGettersPerType      the maximum number of getters invoked on an object, per type
+     * @param maxObservationsPerTest the maximum number of observations of a test method, during one run
+     * @param includedTypes          a regex on the qualified names of the types whose getters are invoked
+     * @param excludedTypes          a regex on the qualified names of the types whose getters are not invoked
+     */
+    public ObservationBudget(int maxDepth,
+                             int maxGettersPerType,
+                             int maxObservationsPerTest,
+                             String includedTypes,
+                             String excludedTypes) {
+        this.maxDepth = maxDepth;
+        this.maxGettersPerType = maxGettersPerType;
+        this.maxObservationsPerTest = maxObservationsPerTest;
+        this.includedTypes = includedTypes == null || includedTypes.isEmpty() ? null : Pattern.compile(includedTypes);
+        this.excludedTypes = excludedTypes == null || excludedTypes.isEmpty() ? null : Pattern.compile(excludedTypes);
+        this.isWalkable = new ConcurrentHashMap<>();
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return true if the maximum depth is lower than {@link #DEFAULT_MAX_DEPTH},
+     * <i>i.e.</i> if it prevents observations that would have been made without a budget
+     */
+    public boolean isMaxDepthTruncating() {
+        return maxDepth < DEFAULT_MAX_DEPTH;
+    }
+
+    public int getMaxGettersPerType() {
+        return maxGettersPerType < 0 ? Integer.MAX_VALUE : maxGettersPerType;
+    }
+
+    public int getMaxObservationsPerTest() {
+        return maxObservationsPerTest < 0 ? Integer.MAX_VALUE : maxObservationsPerTest;
+    }
+
+    /**
+     * @param type the type of an observed object
+     * @return true if the getters of the given type may be invoked, according to the included and excluded types
+     */
+    public boolean isWalkable(Class<?> type) {
+        return this.isWalkable.computeIfAbsent(type, this::computeIsWalkable);
+    }
+
+    private boolean computeIsWalkable(Class<?> type) {
+        final String name = type.getName();
+        return (this.includedTypes == null || this.includedTypes.matcher(name).matches()) &&
+                (this.excludedTypes == null || !this.excludedTypes.matcher(name).matches());
+    }
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                ObjectLog.startRun(ObservationBudget.this);
+                base.evaluate();
+            }
+        };
+    }
+}
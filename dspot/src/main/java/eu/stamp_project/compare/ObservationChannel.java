@@ -0,0 +1,418 @@
+package eu.stamp_project.compare;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binary channel of the observations, from the instrumented tests to DSpot.
+ * <p>
+ * {@link ObjectLog} writes a record for each observation as soon as it is produced,
+ * and DSpot reads the records one after the other, replaying them on {@link Observation}.
+ * <p>
+ * Each opening of the channel starts a segment, i.e. a header and a new table of the ids and of the paths of the observed values,
+ * that are written once and then referred by index. A path is defined from its parent, see {@link ObservationPaths},
+ * and its expression is built once when the channel is read.
+ * Values are written with a tag: null, primitives and their wrappers, strings, arrays, lists, sets and maps.
+ * Any other value is written with the Java serialization.
+ * The number of observations truncated by the {@link ObservationBudget} of an id is written in its own record.
+ * A truncated channel, e.g. because the test JVM has been killed, is read until its last complete record.
+ */
+public class ObservationChannel implements Closeable {
+
+    private static final int MAGIC_NUMBER = 0x4453504f;
+
+    private static final int VERSION = 2;
+
+    private static final byte SEGMENT = 0x7f;
+    private static final byte RECORD = 0x01;
+    private static final byte TRUNCATION = 0x02;
+    private static final byte PATH = 0x03;
+
+    private static final byte NULL = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte BYTE = 2;
+    private static final byte SHORT = 3;
+    private static final byte INT = 4;
+    private static final byte LONG = 5;
+    private static final byte FLOAT = 6;
+    private static final byte DOUBLE = 7;
+    private static final byte CHAR = 8;
+    private static final byte STRING = 9;
+    private static final byte PRIMITIVE_ARRAY = 10;
+    private static final byte WRAPPER_ARRAY = 11;
+    private static final byte LIST = 12;
+    private static final byte SET = 13;
+    private static final byte MAP = 14;
+    private static final byte SERIALIZED = 15;
+
+    private final DataOutputStream output;
+
+    private final Map<String, Integer> indexOfStrings;
+
+    private int numberOfPaths;
+
+    private final ByteArrayOutputStream buffer;
+
+    private final DataOutputStream bufferOutput;
+
+    /**
+     * @param file   the file of the channel
+     * @param append if true, a new segment is written after the existing ones, otherwise the file is overwritten
+     */
+    public ObservationChannel(File file, boolean append) throws IOException {
+        if (file.getParentFile() != null && !file.getParentFile().exists()) {
+            file.getParentFile().mkdirs();
+        }
+        this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, append)));
+        this.indexOfStrings = new HashMap<>();
+        this.buffer = new ByteArrayOutputStream();
+        this.bufferOutput = new DataOutputStream(this.buffer);
+        this.output.writeByte(SEGMENT);
+        this.output.writeInt(MAGIC_NUMBER);
+        this.output.writeInt(VERSION);
+    }
+
+    /**
+     * Defines a path in the current segment.
+     *
+     * @param kind         the kind of the path, see {@link ObservationPaths}
+     * @param parent       the index of the parent path in the current segment, ignored for a root
+     * @param visibleClass the visible class that prefixes the expression of a getter
+     * @param name         the root expression, or the name of the getter
+     * @return the index of the path in the current segment
+     */
+    public int definePath(byte kind, int parent, String visibleClass, String name) throws IOException {
+        this.output.writeByte(PATH);
+        this.output.writeByte(kind);
+        this.output.writeInt(parent);
+        this.writeIndexedString(visibleClass);
+        this.writeIndexedString(name);
+        return this.numberOfPaths++;
+    }
+
+    public void write(String id, int path, Object value) throws IOException {
+        // the value is encoded first, so that a failure does not leave a partial record
+        this.buffer.reset();
+        writeValue(this.bufferOutput, value);
+        this.output.writeByte(RECORD);
+        this.writeIndexedString(id);
+        this.output.writeInt(path);
+        this.buffer.writeTo(this.output);
+    }
+
+    public void writeNumberOfTruncatedObservations(String id, int numberOfTruncatedObservations) throws IOException {
+        this.output.writeByte(TRUNCATION);
+        this.writeIndexedString(id);
+        this.output.writeInt(numberOfTruncatedObservations);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.output.close();
+    }
+
+    private void writeIndexedString(String string) throws IOException {
+        final Integer index = this.indexOfStrings.get(string);
+        if (index != null) {
+            this.output.writeInt(index);
+        } else {
+            this.output.writeInt(this.indexOfStrings.size());
+            writeString(this.output, string);
+            this.indexOfStrings.put(string, this.indexOfStrings.size());
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static void writeValue(DataOutputStream output, Object value) throws IOException {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (tagOf(value.getClass()) != NULL) {
+            output.writeByte(tagOf(value.getClass()));
+            writePrimitive(output, value);
+        } else if (value.getClass().isArray() && tagOf(value.getClass().getComponentType()) != NULL) {
+            writeArray(output, value);
+        } else if (value instanceof List || value instanceof Set) {
+            output.writeByte(value instanceof Set ? SET : LIST);
+            output.writeInt(((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                writeValue(output, element);
+            }
+        } else if (value instanceof Map) {
+            output.writeByte(MAP);
+            output.writeInt(((Map<?, ?>) value).size());
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writeValue(output, entry.getKey());
+                writeValue(output, entry.getValue());
+            }
+        } else {
+            output.writeByte(SERIALIZED);
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+                objectOutput.writeObject(value);
+            }
+            output.writeInt(bytes.size());
+            bytes.writeTo(output);
+        }
+    }
+
+    private static void writeArray(DataOutputStream output, Object array) throws IOException {
+        final Class<?> componentType = array.getClass().getComponentType();
+        output.writeByte(componentType.isPrimitive() ? PRIMITIVE_ARRAY : WRAPPER_ARRAY);
+        output.writeByte(tagOf(componentType));
+        final int length = Array.getLength(array);
+        output.writeInt(length);
+        for (int i = 0; i < length; i++) {
+            final Object element = Array.get(array, i);
+            if (componentType.isPrimitive()) {
+                writePrimitive(output, element);
+            } else {
+                writeValue(output, element);
+            }
+        }
+    }
+
+    private static void writePrimitive(DataOutputStream output, Object value) throws IOException {
+        if (value instanceof Boolean) {
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof Byte) {
+            output.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            output.writeShort((Short) value);
+        } else if (value instanceof Integer) {
+            output.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            output.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            output.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            output.writeDouble((Double) value);
+        } else if (value instanceof Character) {
+            output.writeChar((Character) value);
+        } else {
+            writeString(output, (String) value);
+        }
+    }
+
+    private static byte tagOf(Class<?> type) {
+        if (type == Boolean.class || type == boolean.class) {
+            return BOOLEAN;
+        } else if (type == Byte.class || type == byte.class) {
+            return BYTE;
+        } else if (type == Short.class || type == short.class) {
+            return SHORT;
+        } else if (type == Integer.class || type == int.class) {
+            return INT;
+        } else if (type == Long.class || type == long.class) {
+            return LONG;
+        } else if (type == Float.class || type == float.class) {
+            return FLOAT;
+        } else if (type == Double.class || type == double.class) {
+            return DOUBLE;
+        } else if (type == Character.class || type == char.class) {
+            return CHAR;
+        } else if (type == String.class) {
+            return STRING;
+        } else {
+            return NULL;
+        }
+    }
+
+    /**
+     * Reads all the records of the given channel, in the order of their writing.
+     *
+     * @param file the file of the channel
+     * @return the observations, by id
+     */
+    public static Map<String, Observation> read(File file) throws IOException {
+        final Map<String, Observation> observations = new LinkedHashMap<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            final List<String> strings = new ArrayList<>();
+            final List<String> expressions = new ArrayList<>();
+            while (true) {
+                final int tag = input.read();
+                if (tag == -1) {
+                    break;
+                } else if (tag == SEGMENT) {
+                    if (input.readInt() != MAGIC_NUMBER || input.readInt() != VERSION) {
+                        throw new IOException(file.getAbsolutePath() + " is not a channel of observations of this version");
+                    }
+                    strings.clear();
+                    expressions.clear();
+                } else if (tag == PATH) {
+                    final byte kind = input.readByte();
+                    final int parent = input.readInt();
+                    final String visibleClass = readIndexedString(input, strings);
+                    final String name = readIndexedString(input, strings);
+                    if (kind == ObservationPaths.GETTER) {
+                        expressions.add(ObservationPaths.expressionOfGetter(visibleClass, expressions.get(parent), name));
+                    } else if (kind == ObservationPaths.IS_EMPTY) {
+                        expressions.add(ObservationPaths.expressionOfIsEmpty(expressions.get(parent)));
+                    } else {
+                        expressions.add(name);
+                    }
+                } else if (tag == RECORD) {
+                    final String id = readIndexedString(input, strings);
+                    final String observedObjectAsString = expressions.get(input.readInt());
+                    final Object value = readValue(input);
+                    if (!observations.containsKey(id)) {
+                        observations.put(id, new Observation());
+                    }
+                    observations.get(id).add(observedObjectAsString, value);
+                } else if (tag == TRUNCATION) {
+                    final String id = readIndexedString(input, strings);
+                    final int numberOfTruncatedObservations = input.readInt();
+                    if (!observations.containsKey(id)) {
+                        observations.put(id, new Observation());
+                    }
+                    observations.get(id).reportNumberOfTruncatedObservations(numberOfTruncatedObservations);
+                } else {
+                    throw new IOException("Unexpected tag " + tag + " in " + file.getAbsolutePath());
+                }
+            }
+        } catch (EOFException ignored) {
+            // the channel has been truncated, we keep the complete records
+        }
+        return observations;
+    }
+
+    private static String readIndexedString(DataInputStream input, List<String> strings) throws IOException {
+        final int index = input.readInt();
+        if (index == strings.size()) {
+            strings.add(readString(input));
+        }
+        return strings.get(index);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        final byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Object readValue(DataInputStream input) throws IOException {
+        final byte tag = input.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case PRIMITIVE_ARRAY:
+            case WRAPPER_ARRAY:
+                return readArray(input, tag == PRIMITIVE_ARRAY);
+            case LIST:
+            case SET: {
+                final int size = input.readInt();
+                final Collection<Object> collection = tag == SET ? new LinkedHashSet<>() : new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    collection.add(readValue(input));
+                }
+                return collection;
+            }
+            case MAP: {
+                final int size = input.readInt();
+                final Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(input), readValue(input));
+                }
+                return map;
+            }
+            case SERIALIZED: {
+                final byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return objectInput.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            }
+            default:
+                return readPrimitive(input, tag);
+        }
+    }
+
+    private static Object readArray(DataInputStream input, boolean isPrimitive) throws IOException {
+        final byte componentTag = input.readByte();
+        final Class<?> componentType = typeOf(componentTag, isPrimitive);
+        final int length = input.readInt();
+        final Object array = Array.newInstance(componentType, length);
+        for (int i = 0; i < length; i++) {
+            Array.set(array, i, isPrimitive ? readPrimitive(input, componentTag) : readValue(input));
+        }
+        return array;
+    }
+
+    private static Object readPrimitive(DataInputStream input, byte tag) throws IOException {
+        switch (tag) {
+            case BOOLEAN:
+                return input.readBoolean();
+            case BYTE:
+                return input.readByte();
+            case SHORT:
+                return input.readShort();
+            case INT:
+                return input.readInt();
+            case LONG:
+                return input.readLong();
+            case FLOAT:
+                return input.readFloat();
+            case DOUBLE:
+                return input.readDouble();
+            case CHAR:
+                return input.readChar();
+            case STRING:
+                return readString(input);
+            default:
+                throw new IOException("Unexpected tag of value " + tag);
+        }
+    }
+
+    private static Class<?> typeOf(byte tag, boolean isPrimitive) throws IOException {
+        switch (tag) {
+            case BOOLEAN:
+                return isPrimitive ? boolean.class : Boolean.class;
+            case BYTE:
+                return isPrimitive ? byte.class : Byte.class;
+            case SHORT:
+                return isPrimitive ? short.class : Short.class;
+            case INT:
+                return isPrimitive ? int.class : Integer.class;
+            case LONG:
+                return isPrimitive ? long.class : Long.class;
+            case FLOAT:
+                return isPrimitive ? float.class : Float.class;
+            case DOUBLE:
+                return isPrimitive ? double.class : Double.class;
+            case CHAR:
+                return isPrimitive ? char.class : Character.class;
+            case STRING:
+                return String.class;
+            default:
+                throw new IOException("Unexpected tag of array " + tag);
+        }
+    }
+}
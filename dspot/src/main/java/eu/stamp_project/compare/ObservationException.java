@@ -0,0 +1,13 @@
+package eu.stamp_project.compare;
+
+/**
+ * Thrown by {@link ObjectLog#log(Object, String, String)} when an observation fails, e.g. on a null value.
+ * The failure comes from the instrumentation of the test method, not from the test method itself:
+ * it is recognized by its type in the results of the run of the instrumented test methods.
+ */
+public class ObservationException extends RuntimeException {
+
+    public ObservationException(String id, Throwable cause) {
+        super("Could not observe " + id, cause);
+    }
+}
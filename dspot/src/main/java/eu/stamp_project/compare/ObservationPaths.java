@@ -0,0 +1,127 @@
+package eu.stamp_project.compare;
+
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interned paths of the observed values of a run of {@link ObjectLog}.
+ * <p>
+ * A path is either the root expression of an observation point, a getter invoked on the value of another path,
+ * or the emptiness of the collection or map of another path. Paths are created once, and referred by index in the channel,
+ * so that the expression of a path, e.g. {@code ((my.pkg.MyClass)myObject).getValue()}, is built once per run
+ * rather than for each observation.
+ */
+class ObservationPaths {
+
+    static final byte ROOT = 0;
+    static final byte GETTER = 1;
+    static final byte IS_EMPTY = 2;
+
+    static class Path {
+
+        final Path parent;
+
+        final byte kind;
+
+        // the root expression, or the name of the getter
+        final String name;
+
+        // the visible class that prefixes the expression of a getter
+        final String visibleClass;
+
+        // the visible class that prefixes the expressions of the getters invoked on the value of this path
+        final String visibleClassOfValue;
+
+        private String expression;
+
+        Map<MethodsHandler.Getter, Path> children;
+
+        Path isEmpty;
+
+        // the last segment of the channel in which this path has been defined, and its index in that segment
+        int segment = -1;
+
+        int indexInSegment;
+
+        Path(Path parent, byte kind, String name, String visibleClass, String visibleClassOfValue) {
+            this.parent = parent;
+            this.kind = kind;
+            this.name = name;
+            this.visibleClass = visibleClass;
+            this.visibleClassOfValue = visibleClassOfValue;
+        }
+
+        String getExpression() {
+            if (this.expression == null) {
+                switch (this.kind) {
+                    case GETTER:
+                        this.expression = expressionOfGetter(this.visibleClass, this.parent.getExpression(), this.name);
+                        break;
+                    case IS_EMPTY:
+                        this.expression = expressionOfIsEmpty(this.parent.getExpression());
+                        break;
+                    default:
+                        this.expression = this.name;
+                }
+            }
+            return this.expression;
+        }
+    }
+
+    // the roots, by expression and by class of the observed object
+    private final Map<String, Map<Class<?>, Path>> roots = new HashMap<>();
+
+    Path getRoot(String expression, Class<?> classOfObservedObject) {
+        final Map<Class<?>, Path> rootsOfExpression = this.roots.computeIfAbsent(expression, key -> new HashMap<>());
+        Path root = rootsOfExpression.get(classOfObservedObject);
+        if (root == null) {
+            // the expressions of an anonymous object are not prefixed, see Path#visibleClassOfValue
+            final String visibleClassOfValue = classOfObservedObject.isAnonymousClass() ? null : getVisibleClass(classOfObservedObject);
+            root = new Path(null, ROOT, expression, "", visibleClassOfValue);
+            rootsOfExpression.put(classOfObservedObject, root);
+        }
+        return root;
+    }
+
+    Path getGetter(Path parent, MethodsHandler.Getter getter) {
+        if (parent.children == null) {
+            parent.children = new HashMap<>();
+        }
+        Path child = parent.children.get(getter);
+        if (child == null) {
+            final String visibleClass = parent.visibleClassOfValue == null ? "" : parent.visibleClassOfValue;
+            child = new Path(parent, GETTER, getter.method.getName(), visibleClass,
+                    parent.visibleClassOfValue == null ? null : getVisibleClass(getter.method.getReturnType())
+            );
+            parent.children.put(getter, child);
+        }
+        return child;
+    }
+
+    Path getIsEmpty(Path parent) {
+        if (parent.isEmpty == null) {
+            parent.isEmpty = new Path(parent, IS_EMPTY, "isEmpty", "", null);
+        }
+        return parent.isEmpty;
+    }
+
+    static String expressionOfGetter(String visibleClass, String expressionOfParent, String nameOfGetter) {
+        return "(" + visibleClass + expressionOfParent + ")." + nameOfGetter + "()";
+    }
+
+    static String expressionOfIsEmpty(String expressionOfParent) {
+        return expressionOfParent + ".isEmpty()";
+    }
+
+    private static String getVisibleClass(Class<?> currentObservedClass) {
+        if (currentObservedClass == null || currentObservedClass == Object.class) {
+            return "";
+        } else if (Modifier.isPrivate(currentObservedClass.getModifiers()) ||
+                Modifier.isProtected(currentObservedClass.getModifiers())) {
+            return getVisibleClass(currentObservedClass.getSuperclass());
+        } else {
+            return "(" + currentObservedClass.getCanonicalName() + ")";
+        }
+    }
+}
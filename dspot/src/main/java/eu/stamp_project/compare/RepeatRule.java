@@ -0,0 +1,45 @@
+package eu.stamp_project.compare;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * Runs each test method, with its befores and afters, several times in the same JVM.
+ * Only the first run decides whether the test passes or fails, the other runs are used to observe
+ * non-deterministic values with {@link ObjectLog}.
+ * Each run starts with the given {@link ObservationBudget}, so that the budget of observations is the same for every run.
+ */
+public class RepeatRule implements TestRule {
+
+    private final int numberOfRuns;
+
+    private final ObservationBudget observationBudget;
+
+    public RepeatRule(int numberOfRuns) {
+        this(numberOfRuns, ObservationBudget.DEFAULT);
+    }
+
+    public RepeatRule(int numberOfRuns, ObservationBudget observationBudget) {
+        this.numberOfRuns = numberOfRuns;
+        this.observationBudget = observationBudget;
+    }
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        final Statement run = this.observationBudget.apply(base, description);
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                run.evaluate();
+                for (int i = 1; i < numberOfRuns; i++) {
+                    try {
+                        run.evaluate();
+                    } catch (Throwable ignored) {
+                        // the test is flaky, the observations of this run are kept to detect non-deterministic values
+                    }
+                }
+            }
+        };
+    }
+}
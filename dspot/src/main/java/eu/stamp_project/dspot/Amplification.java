@@ -14,8 +14,17 @@ import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtType;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 
 /**
@@ -37,6 +46,10 @@ public class Amplification {
 
     private DSpotCompiler compiler;
 
+    private Checkpoint checkpoint;
+
+    private TestMethodDeduplicator deduplicator;
+
     private int globalNumberOfSelectedAmplification;
 
     /**
@@ -47,18 +60,28 @@ public class Amplification {
     }
 
     public Amplification(InputConfiguration configuration, List<Amplifier> amplifiers, TestSelector testSelector, DSpotCompiler compiler) {
+        this(configuration, amplifiers, testSelector, compiler, null);
+    }
+
+    /**
+     * @param checkpoint the checkpoint in which the state of the amplification is saved after each iteration, or null.
+     *                   It is not used when the iterations are pipelined, see {@link InputConfiguration#getPipelineCapacity()}.
+     */
+    public Amplification(InputConfiguration configuration, List<Amplifier> amplifiers, TestSelector testSelector, DSpotCompiler compiler, Checkpoint checkpoint) {
         this.configuration = configuration;
         this.amplifiers = amplifiers;
         this.testSelector = testSelector;
         this.compiler = compiler;
+        this.checkpoint = checkpoint;
         this.assertGenerator = new AssertGenerator(this.configuration, this.compiler);
+        this.deduplicator = new TestMethodDeduplicator();
         this.globalNumberOfSelectedAmplification = 0;
     }
 
     /**
      * Amplification of every method of a test class.
      * <p>
-     * <p>See {@link #amplification(CtType, CtMethod, int)} for the details of amplification.
+     * <p>See {@link #amplification(CtType, List, Checkpoint.State, int)} for the details of amplification.
      *
      * @param classTest    Test class
      * @param maxIteration Number of amplification iterations
@@ -70,7 +93,7 @@ public class Amplification {
     /**
      * Amplification of multiple methods.
      * <p>
-     * <p>See {@link #amplification(CtType, CtMethod, int)} for the details of amplification.
+     * <p>See {@link #amplification(CtType, List, Checkpoint.State, int)} for the details of amplification.
      *
      * @param classTest    Test class
      * @param tests        Methods to amplify
@@ -81,9 +104,16 @@ public class Amplification {
         LOGGER.info("Assertion amplification of {} ({} test(s))", classTest.getQualifiedName(), tests.size());
         final List<CtMethod<?>> passingTests = TestCompiler.compileRunAndDiscardUncompilableAndFailingTestMethods(classTest, tests, this.compiler, this.configuration);
         final List<CtMethod<?>> selectedToBeAmplified = this.testSelector.selectToAmplify(passingTests);
-        final List<CtMethod<?>> assertionAmplifiedTestMethods = this.assertionsAmplification(classTest, selectedToBeAmplified);
-        final List<CtMethod<?>> amplifiedTestMethodsToKeep = this.testSelector.selectToKeep(assertionAmplifiedTestMethods);
-        this.globalNumberOfSelectedAmplification += amplifiedTestMethodsToKeep.size();
+        final Checkpoint.State restoredState = this.restoreCheckpoint(classTest, tests);
+        final List<CtMethod<?>> amplifiedTestMethodsToKeep;
+        if (restoredState == null) {
+            final List<CtMethod<?>> assertionAmplifiedTestMethods = this.assertionsAmplification(classTest, selectedToBeAmplified);
+            amplifiedTestMethodsToKeep = this.testSelector.selectToKeep(assertionAmplifiedTestMethods);
+            this.globalNumberOfSelectedAmplification += amplifiedTestMethodsToKeep.size();
+        } else {
+            amplifiedTestMethodsToKeep = this.testSelector.getAmplifiedTestCases();
+            this.globalNumberOfSelectedAmplification = restoredState.globalNumberOfSelectedAmplification;
+        }
         LOGGER.info("{} amplified test methods has been selected to be kept. (global: {})", amplifiedTestMethodsToKeep.size(), this.globalNumberOfSelectedAmplification);
         // in case there is no amplifier, we can leave
         if (this.amplifiers.isEmpty()) {
@@ -91,13 +121,53 @@ public class Amplification {
         }
         LOGGER.info("Applying Input-amplification and Assertion-amplification test by test.");
         this.resetAmplifiers(classTest);
-        for (int i = 0; i < tests.size(); i++) {
+        this.deduplicator.reset(tests);
+        if (restoredState != null) {
+            this.deduplicator.markAsSeen(amplifiedTestMethodsToKeep);
+            this.deduplicator.markAsSeen(restoredState.amplifiedTests);
+            this.deduplicator.markAsSeen(restoredState.currentTests);
+        }
+        if (this.configuration.getPipelineCapacity() > 1) {
+            this.pipelinedAmplification(classTest, tests, maxIteration);
+            return;
+        }
+        Checkpoint.State state = restoredState == null ? this.stateOfTest(tests, 0) : restoredState;
+        this.saveCheckpoint(classTest, tests, state);
+        for (int i = state.indexOfTest; i < tests.size(); i++) {
             CtMethod test = tests.get(i);
             LOGGER.info("Amplification of {}, ({}/{})", test.getSimpleName(), i + 1, tests.size());
             //compileAndRunTests(classTest, Collections.singletonList(tests.get(i)));
-            final List<CtMethod<?>> amplifiedTestMethods = amplification(classTest, test, maxIteration);
+            final List<CtMethod<?>> amplifiedTestMethods = amplification(classTest, tests, state, maxIteration);
             this.globalNumberOfSelectedAmplification += amplifiedTestMethods.size();
             LOGGER.info("{} amplified test methods has been selected to be kept. (global: {})", amplifiedTestMethodsToKeep.size(), this.globalNumberOfSelectedAmplification);
+            state = this.stateOfTest(tests, i + 1);
+            this.saveCheckpoint(classTest, tests, state);
+        }
+    }
+
+    // the state of the amplification of the test at the given index, before its first iteration
+    private Checkpoint.State stateOfTest(List<CtMethod<?>> tests, int indexOfTest) {
+        final List<CtMethod<?>> currentTestList = new ArrayList<>();
+        if (indexOfTest < tests.size()) {
+            currentTestList.add(tests.get(indexOfTest));
+        }
+        return new Checkpoint.State(indexOfTest, 0, currentTestList, new ArrayList<>(), this.globalNumberOfSelectedAmplification);
+    }
+
+    private boolean usesCheckpoint() {
+        return this.checkpoint != null && this.configuration.getPipelineCapacity() <= 1;
+    }
+
+    private Checkpoint.State restoreCheckpoint(CtType<?> classTest, List<CtMethod<?>> tests) {
+        if (!this.usesCheckpoint() || !this.configuration.shouldResume()) {
+            return null;
+        }
+        return this.checkpoint.restore(classTest, tests, this.testSelector);
+    }
+
+    private void saveCheckpoint(CtType<?> classTest, List<CtMethod<?>> tests, Checkpoint.State state) {
+        if (this.usesCheckpoint()) {
+            this.checkpoint.save(classTest, tests, state, this.testSelector);
         }
     }
 
@@ -108,19 +178,22 @@ public class Amplification {
      * I-Amplification are applied, resulting in new tests. From one iteration to another, DSpot reuses the
      * previously amplified tests, and further applies I-Amplification.
      *
+     * <p>
+     * <p>The amplification starts from the given state, e.g. restored from a checkpoint, and the state is saved after each iteration.
+     *
      * @param classTest    Test class
-     * @param test         Method to amplify
+     * @param tests        Methods to amplify
+     * @param state        the state of the amplification of the method to amplify
      * @param maxIteration Number of amplification iterations
      * @return Valid amplified tests
      */
-    private List<CtMethod<?>> amplification(CtType<?> classTest, CtMethod test, int maxIteration) {
+    private List<CtMethod<?>> amplification(CtType<?> classTest, List<CtMethod<?>> tests, Checkpoint.State state, int maxIteration) {
         // tmp list for current test methods to be amplified
         // this list must be a implementation that support remove / clear methods
-        List<CtMethod<?>> currentTestList = new ArrayList<>();
-        currentTestList.add(test);
+        List<CtMethod<?>> currentTestList = state.currentTests;
         // output
-        final List<CtMethod<?>> amplifiedTests = new ArrayList<>();
-        for (int i = 0; i < maxIteration; i++) {
+        final List<CtMethod<?>> amplifiedTests = state.amplifiedTests;
+        for (int i = state.iteration; i < maxIteration; i++) {
             LOGGER.info("iteration {} / {}", i, maxIteration);
             final List<CtMethod<?>> selectedToBeAmplified = testSelector.selectToAmplify(currentTestList);
             if (selectedToBeAmplified.isEmpty()) {
@@ -132,18 +205,153 @@ public class Amplification {
                     currentTestList.size()
             );
             final List<CtMethod<?>> inputAmplifiedTests = new NoBudgetizer().inputAmplify(selectedToBeAmplified, i);
-            final List<CtMethod<?>> testsWithAssertions = this.assertionsAmplification(classTest, inputAmplifiedTests);
-            // in case no test with assertions could be generated, we go for the next iteration.
-            if (testsWithAssertions.isEmpty()) {
-                currentTestList = inputAmplifiedTests;
+            currentTestList = this.assertionsAmplificationAndSelection(classTest, inputAmplifiedTests, amplifiedTests);
+            this.saveCheckpoint(classTest, tests, new Checkpoint.State(state.indexOfTest, i + 1,
+                    currentTestList, amplifiedTests, this.globalNumberOfSelectedAmplification));
+        }
+        return amplifiedTests;
+    }
+
+    /**
+     * Applies the assertion amplification on the given input amplified tests, then selects the amplified tests to be kept.
+     * The input amplified tests that are identical to a test seen before are discarded first, see {@link TestMethodDeduplicator}.
+     *
+     * @param classTest           Test class
+     * @param inputAmplifiedTests the tests generated by the input amplification
+     * @param amplifiedTests      the output, to which the selected amplified tests are added
+     * @return the tests to be amplified at the next iteration
+     */
+    private List<CtMethod<?>> assertionsAmplificationAndSelection(CtType<?> classTest,
+                                                                  List<CtMethod<?>> inputAmplifiedTests,
+                                                                  List<CtMethod<?>> amplifiedTests) {
+        final List<CtMethod<?>> uniqueInputAmplifiedTests = this.deduplicator.removeDuplicates(inputAmplifiedTests);
+        final List<CtMethod<?>> testsWithAssertions = this.assertionsAmplification(classTest, uniqueInputAmplifiedTests);
+        // in case no test with assertions could be generated, we go for the next iteration.
+        if (testsWithAssertions.isEmpty()) {
+            return uniqueInputAmplifiedTests;
+        }
+        final List<CtMethod<?>> amplifiedTestMethodsToKeep = this.testSelector.selectToKeep(testsWithAssertions);
+        amplifiedTests.addAll(amplifiedTestMethodsToKeep);
+        LOGGER.info("{} amplified test methods has been selected to be kept.", amplifiedTestMethodsToKeep.size());
+        return testsWithAssertions;
+    }
+
+    /**
+     * Amplification of multiple tests, as {@link #amplification(CtType, List, Checkpoint.State, int)} does for each of them, in a pipeline.
+     * <p>
+     * <p>An iteration of the amplification of an original test is a job. The input amplification of the jobs is done by a dedicated thread,
+     * while the current thread applies the assertion amplification, i.e. compiles and runs the tests, and the selection.
+     * Since the iterations of the same original test depend on each other, the pipeline is fed with the iterations of different original tests:
+     * there are at most {@link InputConfiguration#getPipelineCapacity()} jobs in the pipeline.
+     * <p>
+     * <p>The selector and the compiler are used only by the current thread.
+     * The input amplification works on clones of the tests to be amplified, in a clone of the test class, both made by the current thread:
+     * the two threads never access the same elements of the model.
+     * The amplified tests are then attached to the tests they come from, see {@link AmplificationHelper#getAmpTestParent(CtMethod)}.
+     *
+     * @param classTest    Test class
+     * @param tests        Methods to amplify
+     * @param maxIteration Number of amplification iterations
+     */
+    private void pipelinedAmplification(CtType<?> classTest, List<CtMethod<?>> tests, int maxIteration) {
+        final int capacity = this.configuration.getPipelineCapacity();
+        final ExecutorService inputAmplifier = Executors.newSingleThreadExecutor();
+        final Deque<AmplificationJob> jobs = new ArrayDeque<>(capacity);
+        int nextTest = 0;
+        try {
+            while (nextTest < tests.size() || !jobs.isEmpty()) {
+                // the pipeline is filled with the next original tests
+                while (jobs.size() < capacity && nextTest < tests.size()) {
+                    LOGGER.info("Amplification of {}, ({}/{})", tests.get(nextTest).getSimpleName(), nextTest + 1, tests.size());
+                    this.submitNextIteration(classTest, new AmplificationJob(tests.get(nextTest)), inputAmplifier, maxIteration, jobs);
+                    nextTest++;
+                }
+                final AmplificationJob job = jobs.poll();
+                if (job == null) {
+                    continue;
+                }
+                job.currentTestList = this.assertionsAmplificationAndSelection(classTest, job.awaitInputAmplifiedTests(), job.amplifiedTests);
+                job.iteration++;
+                this.submitNextIteration(classTest, job, inputAmplifier, maxIteration, jobs);
+            }
+        } finally {
+            inputAmplifier.shutdownNow();
+        }
+    }
+
+    private void submitNextIteration(CtType<?> classTest, AmplificationJob job, ExecutorService inputAmplifier, int maxIteration, Deque<AmplificationJob> jobs) {
+        for (; job.iteration < maxIteration; job.iteration++) {
+            LOGGER.info("iteration {} / {} of {}", job.iteration, maxIteration, job.test.getSimpleName());
+            final List<CtMethod<?>> selectedToBeAmplified = testSelector.selectToAmplify(job.currentTestList);
+            if (selectedToBeAmplified.isEmpty()) {
+                LOGGER.warn("No test could be selected to be amplified.");
                 continue;
             }
-            final List<CtMethod<?>> amplifiedTestMethodsToKeep = this.testSelector.selectToKeep(testsWithAssertions);
-            amplifiedTests.addAll(amplifiedTestMethodsToKeep);
-            LOGGER.info("{} amplified test methods has been selected to be kept.", amplifiedTestMethodsToKeep.size());
-            currentTestList = testsWithAssertions;
+            LOGGER.info("{} tests selected to be amplified over {} available tests",
+                    selectedToBeAmplified.size(),
+                    job.currentTestList.size()
+            );
+            final int iteration = job.iteration;
+            final List<CtMethod<?>> clonesToBeAmplified = job.cloneInto(classTest, selectedToBeAmplified);
+            job.inputAmplifiedTests = inputAmplifier.submit(() -> new NoBudgetizer().inputAmplify(clonesToBeAmplified, iteration));
+            jobs.add(job);
+            return;
+        }
+        this.globalNumberOfSelectedAmplification += job.amplifiedTests.size();
+        LOGGER.info("{} amplified test methods has been selected to be kept for {}. (global: {})",
+                job.amplifiedTests.size(), job.test.getSimpleName(), this.globalNumberOfSelectedAmplification);
+    }
+
+    private static class AmplificationJob {
+
+        private final CtMethod<?> test;
+
+        private final List<CtMethod<?>> amplifiedTests = new ArrayList<>();
+
+        private List<CtMethod<?>> currentTestList = new ArrayList<>();
+
+        private int iteration = 0;
+
+        private Future<List<CtMethod<?>>> inputAmplifiedTests;
+
+        // the tests to be amplified, by their clones given to the input amplification
+        private final Map<CtMethod<?>, CtMethod<?>> testsByClone = new IdentityHashMap<>();
+
+        private AmplificationJob(CtMethod<?> test) {
+            this.test = test;
+            this.currentTestList.add(test);
+        }
+
+        private List<CtMethod<?>> cloneInto(CtType<?> classTest, List<CtMethod<?>> testsToBeAmplified) {
+            final CtType<?> cloneOfClassTest = classTest.clone();
+            cloneOfClassTest.setParent(classTest.getParent());
+            this.testsByClone.clear();
+            return testsToBeAmplified.stream()
+                    .map(testToBeAmplified -> {
+                        final CtMethod<?> clone = testToBeAmplified.clone();
+                        cloneOfClassTest.addMethod(clone);
+                        this.testsByClone.put(clone, testToBeAmplified);
+                        return clone;
+                    }).collect(Collectors.toList());
+        }
+
+        private List<CtMethod<?>> awaitInputAmplifiedTests() {
+            try {
+                final List<CtMethod<?>> inputAmplifiedTests = this.inputAmplifiedTests.get();
+                inputAmplifiedTests.forEach(inputAmplifiedTest -> {
+                    final CtMethod<?> testToBeAmplified = this.testsByClone.get(AmplificationHelper.getAmpTestParent(inputAmplifiedTest));
+                    if (testToBeAmplified != null) {
+                        AmplificationHelper.ampTestToParent.put(inputAmplifiedTest, testToBeAmplified);
+                    }
+                });
+                return inputAmplifiedTests;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
         }
-        return amplifiedTests;
     }
 
     private List<CtMethod<?>> assertionsAmplification(CtType<?> classTest, List<CtMethod<?>> testMethods) {
@@ -0,0 +1,328 @@
+package eu.stamp_project.dspot;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import eu.stamp_project.dspot.selector.TestSelector;
+import eu.stamp_project.program.InputConfiguration;
+import eu.stamp_project.utils.AmplificationChecker;
+import eu.stamp_project.utils.AmplificationHelper;
+import eu.stamp_project.utils.Counter;
+import eu.stamp_project.utils.DSpotUtils;
+import eu.stamp_project.utils.json.CheckpointJSON;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spoon.SpoonModelBuilder;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtPackage;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.factory.Factory;
+import spoon.support.compiler.jdt.JDTBasedSpoonCompiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Saves the state of the amplification of a test class after each iteration, in order to resume an interrupted run,
+ * see {@link InputConfiguration#shouldResume()}.
+ *
+ * The checkpoint of a test class is made of two files, in the folder {@link #CHECKPOINT_DIRECTORY} of the output directory:
+ * a java file, that contains the amplified test methods that are still needed, i.e. the selected ones,
+ * the ones to be amplified at the next iteration and their parents;
+ * and a json file, see {@link CheckpointJSON}, that contains the progress of the amplification,
+ * the {@link Counter}, the state of the {@link TestSelector} and the random generator.
+ * The checkpoint is deleted once the test class has been amplified.
+ */
+public class Checkpoint {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Checkpoint.class);
+
+    public static final String CHECKPOINT_DIRECTORY = "checkpoint";
+
+    private final File directory;
+
+    private final boolean withComment;
+
+    public Checkpoint(InputConfiguration configuration) {
+        this.directory = new File(configuration.getOutputDirectory(), CHECKPOINT_DIRECTORY);
+        this.withComment = configuration.withComment();
+    }
+
+    /**
+     * The progress of the amplification of the test methods of a test class,
+     * see {@link Amplification#amplification(CtType, List, int)}.
+     */
+    public static class State {
+
+        /**
+         * the index of the test method under amplification
+         */
+        public final int indexOfTest;
+
+        /**
+         * the next iteration of the test method under amplification
+         */
+        public final int iteration;
+
+        /**
+         * the test methods to be amplified at the next iteration
+         */
+        public final List<CtMethod<?>> currentTests;
+
+        /**
+         * the amplified test methods that have been kept for the test method under amplification
+         */
+        public final List<CtMethod<?>> amplifiedTests;
+
+        public final int globalNumberOfSelectedAmplification;
+
+        public State(int indexOfTest, int iteration, List<CtMethod<?>> currentTests,
+                     List<CtMethod<?>> amplifiedTests, int globalNumberOfSelectedAmplification) {
+            this.indexOfTest = indexOfTest;
+            this.iteration = iteration;
+            this.currentTests = currentTests;
+            this.amplifiedTests = amplifiedTests;
+            this.globalNumberOfSelectedAmplification = globalNumberOfSelectedAmplification;
+        }
+    }
+
+    /**
+     * Saves the given state of the amplification of the given test class, replacing its previous checkpoint.
+     *
+     * @param testClass    the test class under amplification
+     * @param testMethods  the original test methods to be amplified
+     * @param state        the progress of the amplification
+     * @param testSelector the selector used to amplify the test class
+     */
+    public void save(CtType<?> testClass, List<CtMethod<?>> testMethods, State state, TestSelector testSelector) {
+        final List<String> namesOfTestMethods = getNames(testMethods);
+        final Map<String, CtMethod<?>> amplifiedTestsByName = new LinkedHashMap<>();
+        Stream.of(testSelector.getAmplifiedTestCases(), state.amplifiedTests, state.currentTests)
+                .flatMap(List::stream)
+                .filter(Objects::nonNull)
+                .forEach(amplifiedTest -> addWithParents(amplifiedTest, amplifiedTestsByName, namesOfTestMethods));
+        final Map<String, String> parents = new HashMap<>();
+        amplifiedTestsByName.forEach((name, amplifiedTest) -> {
+            final CtMethod<?> parent = AmplificationHelper.getAmpTestParent(amplifiedTest);
+            if (parent != null) {
+                parents.put(name, parent.getSimpleName());
+            }
+        });
+        final CheckpointJSON checkpointJSON = new CheckpointJSON(
+                testClass.getQualifiedName(),
+                namesOfTestMethods,
+                state.indexOfTest,
+                state.iteration,
+                getNames(state.currentTests),
+                getNames(state.amplifiedTests),
+                getNames(testSelector.getAmplifiedTestCases()),
+                testSelector.getStateOfSelection(),
+                parents,
+                Counter.getNumberOfAssertionAdded(),
+                Counter.getNumberOfInputAdded(),
+                AmplificationHelper.getCloneNumber(),
+                serialize(AmplificationHelper.getRandom()),
+                state.globalNumberOfSelectedAmplification
+        );
+        final CtType<?> clone = testClass.clone();
+        clone.setParent(testClass.getParent());
+        testClass.getMethods().stream()
+                .filter(AmplificationChecker::isTest)
+                .forEach(clone::removeMethod);
+        amplifiedTestsByName.values().forEach(amplifiedTest -> clone.addMethod(amplifiedTest.clone()));
+        DSpotUtils.printCtTypeToGivenDirectory(clone, this.directory, this.withComment);
+        // the json is written last, and at once: it always refers to the amplified test methods of a complete java file
+        final File jsonFile = this.getJsonFile(testClass);
+        final File tmpJsonFile = new File(jsonFile.getAbsolutePath() + ".tmp");
+        final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        try (FileWriter writer = new FileWriter(tmpJsonFile, false)) {
+            writer.write(gson.toJson(checkpointJSON));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        try {
+            Files.move(tmpJsonFile.toPath(), jsonFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void addWithParents(CtMethod<?> amplifiedTest, Map<String, CtMethod<?>> amplifiedTestsByName, List<String> namesOfTestMethods) {
+        CtMethod<?> current = amplifiedTest;
+        while (current != null &&
+                !namesOfTestMethods.contains(current.getSimpleName()) &&
+                !amplifiedTestsByName.containsKey(current.getSimpleName())) {
+            amplifiedTestsByName.put(current.getSimpleName(), current);
+            current = AmplificationHelper.getAmpTestParent(current);
+        }
+    }
+
+    /**
+     * Restores the amplification of the given test class from its checkpoint, if any:
+     * the {@link Counter}, the random generator, the parents of the amplified test methods and the selection are restored.
+     *
+     * @param testClass    the test class under amplification
+     * @param testMethods  the original test methods to be amplified
+     * @param testSelector the selector used to amplify the test class, on which {@link TestSelector#selectToAmplify(List)} has been called
+     * @return the progress of the amplification at the checkpoint, or null if there is no checkpoint for the given test methods
+     */
+    public State restore(CtType<?> testClass, List<CtMethod<?>> testMethods, TestSelector testSelector) {
+        final File jsonFile = this.getJsonFile(testClass);
+        if (!jsonFile.exists()) {
+            return null;
+        }
+        final CheckpointJSON checkpointJSON;
+        try (FileReader reader = new FileReader(jsonFile)) {
+            checkpointJSON = new Gson().fromJson(reader, CheckpointJSON.class);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (!getNames(testMethods).equals(checkpointJSON.testMethods)) {
+            LOGGER.warn("The checkpoint of {} has been saved for other test methods, it is ignored.", testClass.getQualifiedName());
+            return null;
+        }
+        final Map<String, CtMethod<?>> amplifiedTestsByName = this.buildAmplifiedTests(testClass);
+        final Map<String, CtMethod<?>> testMethodsByName = new HashMap<>(amplifiedTestsByName);
+        testMethods.forEach(testMethod -> testMethodsByName.put(testMethod.getSimpleName(), testMethod));
+        final boolean isComplete = Stream.of(checkpointJSON.currentTests, checkpointJSON.amplifiedTests, checkpointJSON.selectedTests)
+                .flatMap(List::stream)
+                .allMatch(testMethodsByName::containsKey);
+        if (!isComplete) {
+            LOGGER.warn("The checkpoint of {} misses amplified test methods, it is ignored.", testClass.getQualifiedName());
+            return null;
+        }
+        checkpointJSON.parents.forEach((name, nameOfParent) -> {
+            if (amplifiedTestsByName.containsKey(name) && testMethodsByName.containsKey(nameOfParent)) {
+                AmplificationHelper.ampTestToParent.put(amplifiedTestsByName.get(name), testMethodsByName.get(nameOfParent));
+            }
+        });
+        Counter.restore(checkpointJSON.numberOfAssertionAdded, checkpointJSON.numberOfInputAdded);
+        AmplificationHelper.setCloneNumber(checkpointJSON.cloneNumber);
+        AmplificationHelper.setRandom(deserialize(checkpointJSON.random));
+        final Function<List<String>, List<CtMethod<?>>> toTestMethods = names -> names.stream()
+                .map(testMethodsByName::get)
+                .collect(Collectors.toCollection(ArrayList::new));
+        testSelector.restoreSelection(toTestMethods.apply(checkpointJSON.selectedTests),
+                checkpointJSON.stateOfSelection, amplifiedTestsByName);
+        LOGGER.info("Resuming the amplification of {} at the iteration {} of the test method {}/{}",
+                testClass.getQualifiedName(), checkpointJSON.iteration, checkpointJSON.indexOfTest + 1, testMethods.size());
+        return new State(checkpointJSON.indexOfTest,
+                checkpointJSON.iteration,
+                toTestMethods.apply(checkpointJSON.currentTests),
+                toTestMethods.apply(checkpointJSON.amplifiedTests),
+                checkpointJSON.globalNumberOfSelectedAmplification
+        );
+    }
+
+    /*
+        The java file of the checkpoint declares the same class as the test class:
+        the test class is removed from the model while the java file is built, and put back afterwards.
+        The amplified test methods are then built with the factory of the test class, as the ones of an uninterrupted run.
+        Spoon refuses to build sources into a model that is already built: the model is marked as not built meanwhile.
+        Spoon also checks the consistency of the parents in the whole model after the build. The model of the program
+        may be inconsistent once amplified, e.g. a type reference shared by a parameter and an executable reference:
+        the checks are skipped meanwhile, the checkpoint class itself being freshly built.
+     */
+    // Spoon 7.1 has no non-deprecated way to skip the checks of the model
+    @SuppressWarnings("deprecation")
+    private Map<String, CtMethod<?>> buildAmplifiedTests(CtType<?> testClass) {
+        final Factory factory = testClass.getFactory();
+        final CtType<?> testClassInModel = factory.Type().get(testClass.getQualifiedName());
+        final CtPackage testPackage = testClassInModel == null ? null : testClassInModel.getPackage();
+        if (testClassInModel != null) {
+            testClassInModel.delete();
+        }
+        final boolean checksWereSkipped = factory.getEnvironment().checksAreSkipped();
+        try {
+            factory.getModel().setBuildModelIsFinished(false);
+            // true skips the checks
+            factory.getEnvironment().setSelfChecks(true);
+            final SpoonModelBuilder modelBuilder = new JDTBasedSpoonCompiler(factory);
+            modelBuilder.addInputSource(this.getJavaFile(testClass));
+            modelBuilder.build();
+            final CtType<?> checkpointClass = factory.Type().get(testClass.getQualifiedName());
+            final Map<String, CtMethod<?>> amplifiedTestsByName = new HashMap<>();
+            if (checkpointClass != null) {
+                checkpointClass.getMethods().forEach(amplifiedTest ->
+                        amplifiedTestsByName.put(amplifiedTest.getSimpleName(), amplifiedTest)
+                );
+            }
+            return amplifiedTestsByName;
+        } finally {
+            factory.getModel().setBuildModelIsFinished(true);
+            factory.getEnvironment().setSelfChecks(checksWereSkipped);
+            final CtType<?> checkpointClass = factory.Type().get(testClass.getQualifiedName());
+            if (checkpointClass != null && checkpointClass != testClassInModel) {
+                checkpointClass.delete();
+            }
+            if (testPackage != null) {
+                testPackage.addType(testClassInModel);
+            }
+        }
+    }
+
+    /**
+     * Deletes the checkpoint of the given test class, e.g. once it has been amplified.
+     *
+     * @param testClass the amplified test class
+     */
+    public void delete(CtType<?> testClass) {
+        FileUtils.deleteQuietly(this.getJsonFile(testClass));
+        FileUtils.deleteQuietly(this.getJavaFile(testClass));
+        if (this.directory.exists() && FileUtils.listFiles(this.directory, null, true).isEmpty()) {
+            FileUtils.deleteQuietly(this.directory);
+        }
+    }
+
+    private File getJsonFile(CtType<?> testClass) {
+        return new File(this.directory, testClass.getQualifiedName() + ".json");
+    }
+
+    private File getJavaFile(CtType<?> testClass) {
+        return new File(this.directory, testClass.getQualifiedName().replaceAll("\\.", "/") + ".java");
+    }
+
+    private static List<String> getNames(List<CtMethod<?>> testMethods) {
+        return testMethods.stream()
+                .filter(Objects::nonNull)
+                .map(CtMethod::getSimpleName)
+                .collect(Collectors.toList());
+    }
+
+    private static String serialize(Random random) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
+            outputStream.writeObject(random);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    private static Random deserialize(String random) {
+        try (ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(random)))) {
+            return (Random) inputStream.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.slf4j.LoggerFactory;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.declaration.ModifierKind;
+import spoon.reflect.factory.Factory;
 
 import java.io.File;
 import java.io.FileReader;
@@ -55,6 +56,8 @@ public class DSpot {
 
     private ProjectTimeJSON projectTimeJSON;
 
+    private Checkpoint checkpoint;
+
     public DSpot(InputConfiguration inputConfiguration) throws Exception {
         this(inputConfiguration, 3, Collections.emptyList(), new CloverCoverageSelector());
     }
@@ -87,6 +90,7 @@ public class DSpot {
         String dependencies = this.inputConfiguration.getDependencies();
         this.compiler = DSpotCompiler.createDSpotCompiler(this.inputConfiguration, dependencies);
         this.inputConfiguration.setFactory(compiler.getLauncher().getFactory());
+        this.inputConfiguration.setCompiler(this.compiler);
         this.amplifiers = new ArrayList<>(amplifiers);
         this.numberOfIterations = numberOfIterations;
         this.testSelector = testSelector;
@@ -101,15 +105,43 @@ public class DSpot {
         } else {
             this.projectTimeJSON = new ProjectTimeJSON(splittedPath[splittedPath.length - 1]);
         }
+        this.checkpoint = new Checkpoint(this.inputConfiguration);
     }
 
     public List<CtType> amplifyAllTests() {
-        return this.amplifyAllTests(this.inputConfiguration.getFactory().Class().getAll().stream()
+        return this.amplifyAllTests(getAllTestClasses(this.inputConfiguration.getFactory()));
+    }
+
+    /**
+     * @param factory the factory of the Spoon model of the project
+     * @return all the concrete test classes of the project
+     */
+    public static List<CtType> getAllTestClasses(Factory factory) {
+        return factory.Class().getAll().stream()
                 .filter(ctClass -> !ctClass.getModifiers().contains(ModifierKind.ABSTRACT))
                 .filter(ctClass ->
                         ctClass.getAllMethods().stream()
                                 .anyMatch(AmplificationChecker::isTest))
-                .collect(Collectors.toList()));
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param factory           the factory of the Spoon model of the project
+     * @param targetTestClasses a full qualified name of a test class, or a regex that matches full qualified names of test classes
+     * @return the test classes of the project that match the given name
+     */
+    public static List<CtType> getTestClassesMatching(Factory factory, String targetTestClasses) {
+        if (!targetTestClasses.contains("\\")) {
+            targetTestClasses = targetTestClasses.replaceAll("\\.", "\\\\\\.").replaceAll("\\*", ".*");
+        }
+        Pattern pattern = Pattern.compile(targetTestClasses);
+        return factory.Class().getAll().stream()
+                .filter(ctType -> pattern.matcher(ctType.getQualifiedName()).matches())
+                .filter(ctClass ->
+                        ctClass.getAllMethods()
+                                .stream()
+                                .anyMatch(AmplificationChecker::isTest))
+                .collect(Collectors.toList());
     }
 
     public List<CtType> amplifyAllTestsNames(List<String> fullQualifiedNameTestClasses) {
@@ -122,24 +154,17 @@ public class DSpot {
         final List<CtType> amplifiedTestClasses = testClasses.stream()
                 .filter(this.isExcluded)
                 .map(this::amplifyTest)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
         writeTimeJson();
         return amplifiedTestClasses;
     }
 
     public List<CtType> amplifyTest(String targetTestClasses) {
-        if (!targetTestClasses.contains("\\")) {
-            targetTestClasses = targetTestClasses.replaceAll("\\.", "\\\\\\.").replaceAll("\\*", ".*");
-        }
-        Pattern pattern = Pattern.compile(targetTestClasses);
-        return this.compiler.getFactory().Class().getAll().stream()
-                .filter(ctType -> pattern.matcher(ctType.getQualifiedName()).matches())
-                .filter(ctClass ->
-                        ctClass.getAllMethods()
-                                .stream()
-                                .anyMatch(AmplificationChecker::isTest))
+        return getTestClassesMatching(this.compiler.getFactory(), targetTestClasses).stream()
                 .filter(this.isExcluded)
                 .map(this::amplifyTest)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
@@ -168,11 +193,18 @@ public class DSpot {
         return amplifyTest(testClass, testMethods);
     }
 
+    /**
+     * @return the amplified test class, or null if it has already been amplified by the run that is resumed, see {@link InputConfiguration#shouldResume()}
+     */
     public CtType amplifyTest(CtType test, List<CtMethod<?>> methods) {
+        if (this.inputConfiguration.shouldResume() && this.projectTimeJSON.contains(test.getQualifiedName())) {
+            LOGGER.info("{} has already been amplified, skipping it.", test.getQualifiedName());
+            return null;
+        }
         try {
             test = AmplificationHelper.convertToJUnit4(test, this.inputConfiguration);
             Counter.reset();
-            Amplification testAmplification = new Amplification(this.inputConfiguration, this.amplifiers, this.testSelector, this.compiler);
+            Amplification testAmplification = new Amplification(this.inputConfiguration, this.amplifiers, this.testSelector, this.compiler, this.checkpoint);
             final List<CtMethod<?>> filteredTestCases = this.filterTestCases(methods);
             long time = System.currentTimeMillis();
             testAmplification.amplification(test, filteredTestCases, numberOfIterations);
@@ -197,6 +229,7 @@ public class DSpot {
                 //ignored
             }
             writeTimeJson();
+            this.checkpoint.delete(test);
             return amplification;
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -222,12 +255,20 @@ public class DSpot {
         return this.inputConfiguration;
     }
 
-    private final Predicate<CtType> isExcluded = ctType ->
-            this.inputConfiguration.getExcludedClasses().isEmpty() ||
-                    Arrays.stream(this.getInputConfiguration().getExcludedClasses().split(","))
-                            .map(Pattern::compile)
-                            .map(pattern -> pattern.matcher(ctType.getQualifiedName()))
-                            .noneMatch(Matcher::matches);
+    private final Predicate<CtType> isExcluded = ctType -> isNotExcluded(this.inputConfiguration, ctType);
+
+    /**
+     * @param configuration the configuration that specifies the excluded classes
+     * @param ctType        a test class
+     * @return true if the given test class is not excluded, i.e. it should be amplified
+     */
+    public static boolean isNotExcluded(InputConfiguration configuration, CtType ctType) {
+        return configuration.getExcludedClasses().isEmpty() ||
+                Arrays.stream(configuration.getExcludedClasses().split(","))
+                        .map(Pattern::compile)
+                        .map(pattern -> pattern.matcher(ctType.getQualifiedName()))
+                        .noneMatch(Matcher::matches);
+    }
 
     private void writeTimeJson() {
         Gson gson = new GsonBuilder().setPrettyPrinting().create();
@@ -0,0 +1,335 @@
+package eu.stamp_project.dspot;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAPResult;
+import com.martiansoftware.jsap.Parameter;
+import com.martiansoftware.jsap.Switch;
+import eu.stamp_project.Main;
+import eu.stamp_project.automaticbuilder.AutomaticBuilder;
+import eu.stamp_project.automaticbuilder.AutomaticBuilderLock;
+import eu.stamp_project.dspot.selector.PitMutantScoreSelector;
+import eu.stamp_project.mutant.pit.PitEngine;
+import eu.stamp_project.options.JSAPOptions;
+import eu.stamp_project.program.ConstantsProperties;
+import eu.stamp_project.program.InputConfiguration;
+import eu.stamp_project.utils.compilation.DSpotCompiler;
+import eu.stamp_project.utils.json.ProjectTimeJSON;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spoon.reflect.factory.Factory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Amplifies different test classes in parallel, using child processes of DSpot, called workers.
+ * Each worker amplifies its own share of the test classes, exactly as DSpot does, see {@link Main#run(InputConfiguration)}.
+ *
+ * A worker runs in its own working directory, under {@link #PATH_TO_WORKERS}:
+ * its temporary files, e.g. the sources of the amplified test classes or the observations,
+ * and its static state, e.g. the {@link eu.stamp_project.utils.Counter}, are not shared with the other workers.
+ * The project is compiled once by this process, the workers reuse its classpath.
+ * The workers share the test classes of the project: they compile the amplified test classes in it and run PIT one at a time,
+ * see {@link AutomaticBuilderLock}.
+ *
+ * At the end, the outputs of the workers are merged in the output directory, including their {@link ProjectTimeJSON}.
+ */
+public class ParallelDSpot {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelDSpot.class);
+
+    public static final String PATH_TO_WORKERS = "target/dspot/parallel/";
+
+    /**
+     * Main of the workers: the project has already been compiled by the process that started the worker.
+     *
+     * @param args the command line arguments of the worker, see {@link #buildArgumentsOfWorker(JSAPResult, Map)}
+     */
+    public static void main(String[] args) throws Exception {
+        Main.run(JSAPOptions.parse(args, false));
+    }
+
+    /**
+     * Amplifies the test classes specified by the given configuration, using {@link InputConfiguration#getNbParallelClasses()} workers.
+     *
+     * @param configuration the configuration built from the given arguments
+     * @param args          the command line arguments of DSpot, that are given to the workers
+     */
+    public static void run(InputConfiguration configuration, String[] args) throws Exception {
+        if ("diff".equals(configuration.getTestClasses().get(0))) {
+            LOGGER.warn("The test classes selected according to a diff cannot be amplified in parallel.");
+            LOGGER.warn("Amplifying them one after the other.");
+            Main.run(configuration);
+            return;
+        }
+        final long startTime = System.currentTimeMillis();
+        final List<String> amplifiedTestClasses = new ParallelDSpot(configuration, args).amplify();
+        LOGGER.info("Amplification {}.", amplifiedTestClasses.isEmpty() ? "failed" : "succeed");
+        final long elapsedTime = System.currentTimeMillis() - startTime;
+        LOGGER.info("Elapsed time {} ms", elapsedTime);
+    }
+
+    private final InputConfiguration configuration;
+
+    private final JSAPResult jsapResult;
+
+    private final String projectName;
+
+    private ParallelDSpot(InputConfiguration configuration, String[] args) {
+        this.configuration = configuration;
+        this.jsapResult = JSAPOptions.options.parse(args);
+        final String[] splittedPath = this.configuration.getAbsolutePathToProjectRoot().split("/");
+        this.projectName = splittedPath[splittedPath.length - 1];
+    }
+
+    private List<String> amplify() throws Exception {
+        final List<String> testClasses = this.getTestClassesToBeAmplified();
+        final List<List<String>> testClassesPerWorker = distribute(testClasses, this.configuration.getNbParallelClasses());
+        LOGGER.info("Amplifying {} test classes using {} workers", testClasses.size(), testClassesPerWorker.size());
+        Main.createOutputDirectories(this.configuration);
+        final File workersDirectory = new File(PATH_TO_WORKERS).getAbsoluteFile();
+        FileUtils.deleteDirectory(workersDirectory);
+        FileUtils.forceMkdir(workersDirectory);
+
+        final Map<String, String> commonArguments = new HashMap<>();
+        commonArguments.put("parallelClasses", "0");
+        if (this.jsapResult.contains("spoonModelCache")) {
+            commonArguments.put("spoonModelCache", new File(this.jsapResult.getString("spoonModelCache")).getAbsolutePath());
+        }
+        if (this.jsapResult.contains("mutant")) {
+            commonArguments.put("mutant", new File(this.jsapResult.getString("mutant")).getAbsolutePath());
+        } else if (this.configuration.getSelector() instanceof PitMutantScoreSelector) {
+            final String pathToOriginalResultOfPit = this.runPitOnOriginalTestSuite(workersDirectory);
+            if (pathToOriginalResultOfPit != null) {
+                commonArguments.put("mutant", pathToOriginalResultOfPit);
+            }
+        }
+
+        final List<Process> workers = new ArrayList<>();
+        final List<File> outputDirectoriesOfWorkers = new ArrayList<>();
+        try {
+            for (int i = 0; i < testClassesPerWorker.size(); i++) {
+                final File workerDirectory = new File(workersDirectory, "worker-" + i);
+                final File outputDirectory = new File(workerDirectory, "output");
+                FileUtils.forceMkdir(outputDirectory);
+                final Map<String, String> arguments = new HashMap<>(commonArguments);
+                arguments.put("path", this.writePropertiesOfWorker(workerDirectory, outputDirectory));
+                arguments.put("test", String.join(
+                        String.valueOf(((FlaggedOption) JSAPOptions.options.getByID("test")).getListSeparator()),
+                        testClassesPerWorker.get(i))
+                );
+                workers.add(this.startWorker(workerDirectory, buildArgumentsOfWorker(this.jsapResult, arguments)));
+                outputDirectoriesOfWorkers.add(outputDirectory);
+            }
+            for (int i = 0; i < workers.size(); i++) {
+                if (workers.get(i).waitFor() != 0) {
+                    LOGGER.error("The worker {} failed, see {}", i,
+                            new File(outputDirectoriesOfWorkers.get(i).getParentFile(), "dspot.log").getAbsolutePath());
+                }
+            }
+        } finally {
+            workers.forEach(Process::destroyForcibly);
+        }
+        return this.mergeOutputsOfWorkers(outputDirectoriesOfWorkers);
+    }
+
+    // when a run is resumed, the test classes that have already been amplified are not given to the workers
+    private List<String> getTestClassesToBeAmplified() throws IOException {
+        final ProjectTimeJSON projectTimeJSON = this.readProjectTimeJSON();
+        return this.getTestClasses().stream()
+                .filter(testClass -> !this.configuration.shouldResume() || !projectTimeJSON.contains(testClass))
+                .collect(Collectors.toList());
+    }
+
+    private List<String> getTestClasses() {
+        final List<String> testClasses = this.configuration.getTestClasses();
+        if (!testClasses.isEmpty() && !"all".equals(testClasses.get(0))) {
+            return testClasses;
+        }
+        final Factory factory = DSpotCompiler.createDSpotCompiler(this.configuration, this.configuration.getDependencies())
+                .getLauncher()
+                .getFactory();
+        return DSpot.getAllTestClasses(factory).stream()
+                .filter(testClass -> DSpot.isNotExcluded(this.configuration, testClass))
+                .map(testClass -> testClass.getQualifiedName())
+                .collect(Collectors.toList());
+    }
+
+    private ProjectTimeJSON readProjectTimeJSON() throws IOException {
+        final File projectJsonFile = new File(this.configuration.getOutputDirectory(), this.projectName + ".json");
+        if (!projectJsonFile.exists()) {
+            return new ProjectTimeJSON(this.projectName);
+        }
+        try (FileReader reader = new FileReader(projectJsonFile)) {
+            return new Gson().fromJson(reader, ProjectTimeJSON.class);
+        }
+    }
+
+    /**
+     * Distributes the given test classes, one after the other, to the given number of workers.
+     *
+     * @return the test classes of each worker. There are no more workers than test classes.
+     */
+    static List<List<String>> distribute(List<String> testClasses, int nbWorkers) {
+        final List<List<String>> testClassesPerWorker = new ArrayList<>();
+        for (int i = 0; i < testClasses.size(); i++) {
+            if (i < nbWorkers) {
+                testClassesPerWorker.add(new ArrayList<>());
+            }
+            testClassesPerWorker.get(i % nbWorkers).add(testClasses.get(i));
+        }
+        return testClassesPerWorker;
+    }
+
+    /**
+     * Builds the command line arguments of a worker, from the arguments given to this process.
+     *
+     * @param jsapResult the parsed arguments given to this process
+     * @param overridden the values of the options that are specific to the worker, by id of option
+     * @return the command line arguments of the worker
+     */
+    static String[] buildArgumentsOfWorker(JSAPResult jsapResult, Map<String, String> overridden) {
+        final List<String> arguments = new ArrayList<>();
+        final Iterator<?> ids = JSAPOptions.options.getIDMap().idIterator();
+        while (ids.hasNext()) {
+            final String id = (String) ids.next();
+            final Parameter parameter = JSAPOptions.options.getByID(id);
+            if ("help".equals(id) || "example".equals(id)) {
+                continue;
+            }
+            if (parameter instanceof Switch) {
+                if (jsapResult.getBoolean(id)) {
+                    arguments.add("--" + ((Switch) parameter).getLongFlag());
+                }
+            } else if (parameter instanceof FlaggedOption) {
+                final FlaggedOption option = (FlaggedOption) parameter;
+                final String value;
+                if (overridden.containsKey(id)) {
+                    value = overridden.get(id);
+                } else if (jsapResult.contains(id)) {
+                    value = Stream.of(jsapResult.getObjectArray(id))
+                            .map(Object::toString)
+                            .collect(Collectors.joining(String.valueOf(option.getListSeparator())));
+                } else {
+                    continue;
+                }
+                arguments.add("--" + option.getLongFlag());
+                arguments.add(value);
+            }
+        }
+        return arguments.toArray(new String[0]);
+    }
+
+    /*
+        The paths of the properties that are relative to the working directory are made absolute,
+        since the worker runs in another working directory.
+     */
+    private String writePropertiesOfWorker(File workerDirectory, File outputDirectory) throws IOException {
+        final Properties properties = InputConfiguration.loadProperties(this.jsapResult.getString("path"));
+        properties.setProperty(ConstantsProperties.PROJECT_ROOT_PATH.getName(),
+                new File(ConstantsProperties.PROJECT_ROOT_PATH.get(properties)).getAbsolutePath());
+        if (!ConstantsProperties.PATH_TO_SECOND_VERSION.get(properties).isEmpty()) {
+            properties.setProperty(ConstantsProperties.PATH_TO_SECOND_VERSION.getName(),
+                    new File(ConstantsProperties.PATH_TO_SECOND_VERSION.get(properties)).getAbsolutePath());
+        }
+        if (!ConstantsProperties.MAVEN_HOME.get(properties).isEmpty()) {
+            properties.setProperty(ConstantsProperties.MAVEN_HOME.getName(),
+                    new File(ConstantsProperties.MAVEN_HOME.get(properties)).getAbsolutePath());
+        }
+        properties.setProperty(ConstantsProperties.OUTPUT_DIRECTORY.getName(), outputDirectory.getAbsolutePath());
+        final File propertiesFile = new File(workerDirectory, "dspot.properties");
+        try (OutputStream outputStream = new FileOutputStream(propertiesFile)) {
+            properties.store(outputStream, "generated by " + ParallelDSpot.class.getName());
+        }
+        return propertiesFile.getAbsolutePath();
+    }
+
+    private Process startWorker(File workerDirectory, String[] arguments) throws IOException {
+        final List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + "/bin/java");
+        ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(jvmArgument -> jvmArgument.startsWith("-Xm") || jvmArgument.startsWith("-D"))
+                .forEach(command::add);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ParallelDSpot.class.getName());
+        command.addAll(Arrays.asList(arguments));
+        LOGGER.info("Starting the worker {}", workerDirectory.getName());
+        return new ProcessBuilder(command)
+                .directory(workerDirectory)
+                .redirectErrorStream(true)
+                .redirectOutput(new File(workerDirectory, "dspot.log"))
+                .start();
+    }
+
+    // the workers would run PIT on the whole original test suite one after the other: we run it once for all of them
+    private String runPitOnOriginalTestSuite(File workersDirectory) throws IOException {
+        final AutomaticBuilder automaticBuilder = this.configuration.getBuilder();
+        final String pathToRootOfProject = this.configuration.getAbsolutePathToProjectRoot();
+        final AutomaticBuilderLock lock = AutomaticBuilderLock.lock(pathToRootOfProject);
+        try {
+            final String outputDirectoryPit;
+            if (this.configuration.isInProcessPit()) {
+                final PitEngine pitEngine = new PitEngine(this.configuration);
+                pitEngine.runPit();
+                outputDirectoryPit = pitEngine.getOutputDirectoryPit();
+            } else {
+                automaticBuilder.runPit(pathToRootOfProject);
+                outputDirectoryPit = automaticBuilder.getOutputDirectoryPit();
+            }
+            final File[] reports = new File(pathToRootOfProject + outputDirectoryPit).listFiles();
+            if (reports == null || reports.length == 0) {
+                return null;
+            }
+            final File originalResultOfPit = new File(workersDirectory, "mutations.csv");
+            FileUtils.copyFile(new File(reports[0], "mutations.csv"), originalResultOfPit);
+            FileUtils.deleteDirectory(reports[0]);
+            return originalResultOfPit.getAbsolutePath();
+        } finally {
+            lock.close();
+        }
+    }
+
+    private List<String> mergeOutputsOfWorkers(List<File> outputDirectoriesOfWorkers) throws IOException {
+        final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        final File outputDirectory = new File(this.configuration.getOutputDirectory());
+        final File projectJsonFile = new File(outputDirectory, this.projectName + ".json");
+        final ProjectTimeJSON projectTimeJSON = this.readProjectTimeJSON();
+        final List<String> amplifiedTestClasses = new ArrayList<>();
+        for (File outputDirectoryOfWorker : outputDirectoriesOfWorkers) {
+            final File projectJsonFileOfWorker = new File(outputDirectoryOfWorker, this.projectName + ".json");
+            if (projectJsonFileOfWorker.exists()) {
+                try (FileReader reader = new FileReader(projectJsonFileOfWorker)) {
+                    gson.fromJson(reader, ProjectTimeJSON.class).classTimes.forEach(classTimeJSON -> {
+                        projectTimeJSON.add(classTimeJSON);
+                        amplifiedTestClasses.add(classTimeJSON.fullQualifiedName);
+                    });
+                }
+                FileUtils.forceDelete(projectJsonFileOfWorker);
+            }
+            FileUtils.copyDirectory(outputDirectoryOfWorker, outputDirectory);
+        }
+        try (FileWriter writer = new FileWriter(projectJsonFile, false)) {
+            writer.write(gson.toJson(projectTimeJSON));
+        }
+        LOGGER.info("The outputs of the workers have been merged in {}", outputDirectory.getAbsolutePath());
+        return amplifiedTestClasses;
+    }
+}
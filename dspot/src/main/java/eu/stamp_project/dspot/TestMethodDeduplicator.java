@@ -0,0 +1,203 @@
+package eu.stamp_project.dspot;
+
+import eu.stamp_project.utils.AmplificationHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spoon.reflect.code.CtBinaryOperator;
+import spoon.reflect.code.CtCatchVariable;
+import spoon.reflect.code.CtComment;
+import spoon.reflect.code.CtLiteral;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.code.CtOperatorAssignment;
+import spoon.reflect.code.CtUnaryOperator;
+import spoon.reflect.declaration.CtCodeSnippet;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtNamedElement;
+import spoon.reflect.path.CtRole;
+import spoon.reflect.reference.CtCatchVariableReference;
+import spoon.reflect.reference.CtLocalVariableReference;
+import spoon.reflect.reference.CtReference;
+import spoon.reflect.visitor.CtScanner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Discards the amplified test methods that are structurally identical to a test method already seen during the amplification
+ * of the current test class, i.e. generated at the same iteration, at a previous one, or an original test method.
+ * <p>
+ * Two test methods are identical if their bodies have the same structure, see {@link #structurallyEquals(CtMethod, CtMethod)}.
+ * The structure does not depend on the name of the test method, on the names of its local variables, nor on its comments,
+ * so that it detects the test methods that the amplifiers generate twice, with different names.
+ * The test methods are indexed by their structural hash, see {@link #structuralHash(CtMethod)}:
+ * only the test methods with the same hash are compared, since two different test methods may have the same hash.
+ */
+public class TestMethodDeduplicator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestMethodDeduplicator.class);
+
+    private final Map<Long, List<CtMethod<?>>> seenTestMethodsByHash = new HashMap<>();
+
+    private int numberOfDiscardedTestMethods = 0;
+
+    /**
+     * Forgets the test methods seen so far, before the amplification of a new test class.
+     *
+     * @param originalTestMethods the original test methods of the test class, that the amplified test methods must differ from
+     */
+    public void reset(List<CtMethod<?>> originalTestMethods) {
+        this.seenTestMethodsByHash.clear();
+        this.numberOfDiscardedTestMethods = 0;
+        originalTestMethods.forEach(this::addIfUnseen);
+    }
+
+    /**
+     * Marks the given test methods as seen, without counting them as discarded.
+     * Used on resume, to rebuild the test methods seen before the interruption from the ones restored by the {@link Checkpoint}.
+     * The checkpoint does not save the test methods that have been seen but not kept,
+     * so a resumed run may keep a few duplicates of them that an uninterrupted run would have discarded.
+     *
+     * @param testMethods the test methods restored by the checkpoint
+     */
+    public void markAsSeen(List<CtMethod<?>> testMethods) {
+        testMethods.forEach(this::addIfUnseen);
+    }
+
+    /**
+     * @param amplifiedTestMethods the test methods generated by the input amplification
+     * @return the given test methods, without the ones identical to a test method seen before
+     */
+    public List<CtMethod<?>> removeDuplicates(List<CtMethod<?>> amplifiedTestMethods) {
+        final List<CtMethod<?>> uniqueTestMethods = new ArrayList<>();
+        int numberOfDuplicates = 0;
+        for (CtMethod<?> amplifiedTestMethod : amplifiedTestMethods) {
+            if (this.addIfUnseen(amplifiedTestMethod)) {
+                uniqueTestMethods.add(amplifiedTestMethod);
+            } else {
+                AmplificationHelper.ampTestToParent.remove(amplifiedTestMethod);
+                numberOfDuplicates++;
+            }
+        }
+        if (numberOfDuplicates > 0) {
+            this.numberOfDiscardedTestMethods += numberOfDuplicates;
+            LOGGER.info("{} duplicated amplified test methods have been discarded. (total for this test class: {})",
+                    numberOfDuplicates, this.numberOfDiscardedTestMethods);
+        }
+        return uniqueTestMethods;
+    }
+
+    // returns false if a test method identical to the given one has been seen before
+    private boolean addIfUnseen(CtMethod<?> testMethod) {
+        final List<CtMethod<?>> seenTestMethods =
+                this.seenTestMethodsByHash.computeIfAbsent(structuralHash(testMethod), hash -> new ArrayList<>());
+        if (seenTestMethods.stream().anyMatch(seenTestMethod -> structurallyEquals(seenTestMethod, testMethod))) {
+            return false;
+        }
+        seenTestMethods.add(testMethod);
+        return true;
+    }
+
+    /**
+     * @return the number of test methods discarded since the last {@link #reset(List)}
+     */
+    public int getNumberOfDiscardedTestMethods() {
+        return numberOfDiscardedTestMethods;
+    }
+
+    /**
+     * @param testMethod a test method
+     * @return a hash of the abstract syntax tree of the body of the given test method,
+     * in which the local variables are named by their order of declaration, and the comments are ignored
+     */
+    public static long structuralHash(CtMethod<?> testMethod) {
+        final StructuralScanner scanner = new StructuralScanner(false);
+        scanner.scan(CtRole.BODY, testMethod.getBody());
+        return scanner.hash;
+    }
+
+    /**
+     * @param testMethod      a test method
+     * @param otherTestMethod another test method
+     * @return true if the abstract syntax trees of the bodies of the given test methods are the same,
+     * once the local variables are named by their order of declaration, and the comments are ignored
+     */
+    public static boolean structurallyEquals(CtMethod<?> testMethod, CtMethod<?> otherTestMethod) {
+        return structuralTokens(testMethod).equals(structuralTokens(otherTestMethod));
+    }
+
+    private static List<Object> structuralTokens(CtMethod<?> testMethod) {
+        final StructuralScanner scanner = new StructuralScanner(true);
+        scanner.scan(CtRole.BODY, testMethod.getBody());
+        return scanner.tokens;
+    }
+
+    // computes the structural hash of the scanned elements, and records the hashed values if it is asked for
+    private static class StructuralScanner extends CtScanner {
+
+        private static final long PRIME = 0x100000001b3L;
+
+        private static final int EXIT = 0x5f3759df;
+
+        private long hash = 0xcbf29ce484222325L;
+
+        // the local variables, by name, and their order of declaration
+        private final Map<String, Integer> localVariables = new HashMap<>();
+
+        // the hashed values, in order, or null if they are not recorded
+        private final List<Object> tokens;
+
+        StructuralScanner(boolean recordTokens) {
+            this.tokens = recordTokens ? new ArrayList<>() : null;
+        }
+
+        private void mix(Object value) {
+            this.hash = (this.hash ^ Objects.hashCode(value)) * PRIME;
+            if (this.tokens != null) {
+                this.tokens.add(value);
+            }
+        }
+
+        @Override
+        public void scan(CtRole role, CtElement element) {
+            if (element == null || element instanceof CtComment) {
+                return;
+            }
+            mix(role == null ? -1 : role.ordinal());
+            mix(element.getClass().getName());
+            mixValueOf(element);
+            super.scan(role, element);
+            mix(EXIT);
+        }
+
+        // the values that are not children of the element, e.g. the value of a literal or the name of a reference
+        private void mixValueOf(CtElement element) {
+            if (element instanceof CtCodeSnippet) {
+                // e.g. the assertions on arrays, built as snippets
+                mix(((CtCodeSnippet) element).getValue());
+            } else if (element instanceof CtLiteral) {
+                mix(((CtLiteral<?>) element).getValue());
+            } else if (element instanceof CtLocalVariable || element instanceof CtCatchVariable) {
+                final String name = ((CtNamedElement) element).getSimpleName();
+                this.localVariables.putIfAbsent(name, this.localVariables.size());
+                mix(this.localVariables.get(name));
+            } else if (element instanceof CtLocalVariableReference || element instanceof CtCatchVariableReference) {
+                final String name = ((CtReference) element).getSimpleName();
+                mix(this.localVariables.containsKey(name) ? (Object) this.localVariables.get(name) : name);
+            } else if (element instanceof CtReference) {
+                mix(((CtReference) element).getSimpleName());
+            } else if (element instanceof CtNamedElement) {
+                mix(((CtNamedElement) element).getSimpleName());
+            } else if (element instanceof CtBinaryOperator) {
+                mix(((CtBinaryOperator<?>) element).getKind().ordinal());
+            } else if (element instanceof CtUnaryOperator) {
+                mix(((CtUnaryOperator<?>) element).getKind().ordinal());
+            } else if (element instanceof CtOperatorAssignment) {
+                mix(((CtOperatorAssignment<?, ?>) element).getKind().ordinal());
+            }
+        }
+    }
+}
@@ -58,20 +58,22 @@ public abstract class AbstractAmplifier<T extends CtElement> implements Amplifie
     }
 
     /**
-     * This method replace the given original element by the amplified one, by producing a clone of the given test method.
+     * This method replace the given original element by the amplified one, in a clone of the given test method.
+     * The original element is found in the clone by its index in {@link #getOriginals(CtMethod)}: the given test method is not modified.
      * The amplified element would be marked as amplified, with the METADATA_KEY,
      * <i>i.e.</i> calling {@link #hasBeenAmplified(CtElement)} returns true.
      *
-     * @param originalElement  element to be replaced
-     * @param amplifiedElement new element to be used
-     * @param testMethod       test method to be cloned
+     * @param indexOfOriginalElement index of the element to be replaced, in the elements returned by {@link #getOriginals(CtMethod)}
+     * @param amplifiedElement       new element to be used. It is cloned, so that it can be used in several clones of the test method
+     * @param testMethod             test method to be cloned
      * @return a clone of the given test method with an amplified element that replaces the original element
      */
-    protected CtMethod<?> replace(T originalElement, T amplifiedElement, CtMethod<?> testMethod) {
-        originalElement.replace(amplifiedElement);
-        amplifiedElement.putMetadata(this.METADATA_KEY, true);
+    @SuppressWarnings("unchecked")
+    protected CtMethod<?> replace(int indexOfOriginalElement, T amplifiedElement, CtMethod<?> testMethod) {
         CtMethod<?> clone = AmplificationHelper.cloneTestMethodForAmp(testMethod, getSuffix());
-        amplifiedElement.replace(originalElement);
+        final T amplifiedElementOfClone = (T) amplifiedElement.clone();
+        amplifiedElementOfClone.putMetadata(this.METADATA_KEY, true);
+        this.getOriginals(clone).get(indexOfOriginalElement).replace(amplifiedElementOfClone);
         return clone;
     }
 
@@ -84,18 +86,41 @@ public abstract class AbstractAmplifier<T extends CtElement> implements Amplifie
 
     protected abstract Set<T> amplify(T original, CtMethod<?> testMethod);
 
+    /**
+     * The amplified test methods are described lazily: the test method is cloned only when a descriptor is materialized,
+     * see {@link AmplificationDescriptor#materialize()}.
+     * The original elements are identified by their index, to be found in the clone.
+     */
     @Override
-    public Stream<CtMethod<?>> amplify(CtMethod<?> testMethod, int iteration) {
+    public Stream<AmplificationDescriptor> describe(CtMethod<?> testMethod, int iteration) {
         List<T> originals = this.getOriginals(testMethod);
         List<T> reducedOriginals = this.reduceAlreadyAmplifiedElements(originals);
         return reducedOriginals.stream()
                 .filter(reducedOriginal ->
                         reducedOriginal.getMetadata(METADATA_KEY) == null ||
                                 !(boolean) reducedOriginal.getMetadata(METADATA_KEY)
-                ).flatMap(original ->
-                        this.amplify(original, testMethod)
-                                .stream()
-                                .map(amplified -> this.replace(original, amplified, testMethod))
-                );
+                ).flatMap(original -> {
+                    final int indexOfOriginal = indexOf(originals, original);
+                    return this.amplify(original, testMethod)
+                            .stream()
+                            .map(amplified -> new AmplificationDescriptor(testMethod, original, amplified,
+                                    () -> this.replace(indexOfOriginal, amplified, testMethod))
+                            );
+                });
+    }
+
+    // the elements are compared by identity, since several of them may be equal
+    private static int indexOf(List<?> elements, Object element) {
+        for (int i = 0; i < elements.size(); i++) {
+            if (elements.get(i) == element) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Stream<CtMethod<?>> amplify(CtMethod<?> testMethod, int iteration) {
+        return this.describe(testMethod, iteration).map(AmplificationDescriptor::materialize);
     }
 }
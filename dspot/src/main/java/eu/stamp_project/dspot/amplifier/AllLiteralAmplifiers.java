@@ -30,6 +30,11 @@ public class AllLiteralAmplifiers implements Amplifier {
         return this.literalAmplifiers.stream().flatMap(amplifier -> amplifier.amplify(testMethod, 0));
     }
 
+    @Override
+    public Stream<AmplificationDescriptor> describe(CtMethod<?> testMethod, int iteration) {
+        return this.literalAmplifiers.stream().flatMap(amplifier -> amplifier.describe(testMethod, 0));
+    }
+
     @Override
     public void reset(CtType testClass) {
         this.literalAmplifiers.forEach(amplifier -> amplifier.reset(testClass));
@@ -0,0 +1,100 @@
+package eu.stamp_project.dspot.amplifier;
+
+import eu.stamp_project.utils.AmplificationHelper;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtMethod;
+
+import java.util.function.Supplier;
+
+/**
+ * A lightweight description of an amplified test method: the test method to be amplified,
+ * the element to be replaced in it, and the element that replaces it.
+ * <p>
+ * The amplified test method, <i>i.e.</i> a clone of the whole test method, is only created by {@link #materialize()},
+ * <i>e.g.</i> once a budgetizer decided to keep it.
+ * To do so, the amplifiers clone the test method, and replace the element in the clone, found by its index:
+ * the test method itself is never modified, since several amplifiers may amplify it at the same time.
+ */
+public class AmplificationDescriptor {
+
+    private final CtMethod<?> testMethod;
+
+    private final CtElement originalElement;
+
+    private final CtElement amplifiedElement;
+
+    private final Supplier<CtMethod<?>> materializer;
+
+    // the amplified test method, if it has been created by the amplifier
+    private final CtMethod<?> amplifiedTestMethod;
+
+    /**
+     * @param testMethod       the test method to be amplified
+     * @param originalElement  the element to be replaced in the test method
+     * @param amplifiedElement the element that replaces the original one
+     * @param materializer     creates the amplified test method, each time it is called
+     */
+    public AmplificationDescriptor(CtMethod<?> testMethod,
+                                   CtElement originalElement,
+                                   CtElement amplifiedElement,
+                                   Supplier<CtMethod<?>> materializer) {
+        this.testMethod = testMethod;
+        this.originalElement = originalElement;
+        this.amplifiedElement = amplifiedElement;
+        this.materializer = materializer;
+        this.amplifiedTestMethod = null;
+    }
+
+    private AmplificationDescriptor(CtMethod<?> testMethod, CtMethod<?> amplifiedTestMethod) {
+        this.testMethod = testMethod;
+        this.originalElement = null;
+        this.amplifiedElement = null;
+        this.materializer = () -> amplifiedTestMethod;
+        this.amplifiedTestMethod = amplifiedTestMethod;
+    }
+
+    /**
+     * Describes a test method already amplified, for the amplifiers that do not replace a single element.
+     *
+     * @param testMethod          the test method that has been amplified
+     * @param amplifiedTestMethod the amplified test method
+     * @return a descriptor which materialization is the given amplified test method
+     */
+    public static AmplificationDescriptor of(CtMethod<?> testMethod, CtMethod<?> amplifiedTestMethod) {
+        return new AmplificationDescriptor(testMethod, amplifiedTestMethod);
+    }
+
+    /**
+     * @return the amplified test method. A new clone is created at each call, except for the descriptors built with {@link #of(CtMethod, CtMethod)}
+     */
+    public CtMethod<?> materialize() {
+        return this.materializer.get();
+    }
+
+    /**
+     * Forgets the amplified test method, if it has already been created by the amplifier, when the descriptor is not kept.
+     */
+    public void discard() {
+        if (this.amplifiedTestMethod != null) {
+            AmplificationHelper.ampTestToParent.remove(this.amplifiedTestMethod);
+        }
+    }
+
+    public CtMethod<?> getTestMethod() {
+        return testMethod;
+    }
+
+    /**
+     * @return the element to be replaced, or null if the test method has already been amplified
+     */
+    public CtElement getOriginalElement() {
+        return originalElement;
+    }
+
+    /**
+     * @return the element that replaces the original one, or null if the test method has already been amplified
+     */
+    public CtElement getAmplifiedElement() {
+        return amplifiedElement;
+    }
+}
@@ -22,6 +22,17 @@ public interface Amplifier {
      */
     Stream<CtMethod<?>> amplify(CtMethod<?> testMethod, int iteration);
 
+    /**
+     * Describes the input amplification of the given test method, without cloning it for each amplified test method,
+     * see {@link AmplificationDescriptor}. By default, the amplified test methods are created by {@link #amplify(CtMethod, int)}.
+     * @param testMethod to be amplified
+     * @param iteration of the main loop of DSpot
+     * @return the descriptors of all the input amplified test methods
+     */
+    default Stream<AmplificationDescriptor> describe(CtMethod<?> testMethod, int iteration) {
+        return this.amplify(testMethod, iteration).map(amplifiedTestMethod -> AmplificationDescriptor.of(testMethod, amplifiedTestMethod));
+    }
+
     void reset(CtType<?> testClass);
 
 }
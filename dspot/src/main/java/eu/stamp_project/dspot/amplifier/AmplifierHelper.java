@@ -20,6 +20,9 @@ import spoon.reflect.visitor.filter.TypeFilter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -34,24 +37,79 @@ public class AmplifierHelper {
         return var.getFactory().Code().createVariableRead(varRef, false);
     }
 
+    /*
+        The methods that can be called on each type are cached, since they are looked up for the same types at each amplification.
+        The cache is bound to a model: it is cleared when the given types come from another factory.
+     */
+    private static final Map<CtTypeReference<?>, List<CtMethod<?>>> methodsWithTargetType = new ConcurrentHashMap<>();
+
+    private static Factory factoryOfMethodsWithTargetType;
+
+    private static final AtomicLong numberOfCacheHits = new AtomicLong();
+
+    private static final AtomicLong numberOfCacheMisses = new AtomicLong();
+
+    /**
+     * @param type the type of the target
+     * @return the methods that can be called on a target of the given type, <i>i.e.</i> the public methods
+     * which parameters can be generated. The result is cached for the model of the given type.
+     */
     public static List<CtMethod<?>> findMethodsWithTargetType(CtTypeReference<?> type) {
         if (type == null) {
             return Collections.emptyList();
         } else {
-            return type.getTypeDeclaration().getMethods().stream()
-                    .filter(method -> method.getModifiers().contains(ModifierKind.PUBLIC)) // TODO checks this predicate
-                    // TODO we could also access to method with default or protected modifiers
-                    .filter(method -> !method.getModifiers().contains(ModifierKind.STATIC)) // TODO checks this predicate
-                    // TODO we can't amplify test on full static classes with this predicate
-                    .filter(method -> !method.getModifiers().contains(ModifierKind.ABSTRACT)) // TODO checks this predicate
-                    // TODO maybe we would like to call of abstract method, since the abstract would be implemented
-                    // TODO inherited classes. However, the semantic of the test to be amplified may be to test the abstract class
-                    .filter(method -> method.getParameters()
-                            .stream()
-                            .map(CtParameter::getType)
-                            .allMatch(ValueCreatorHelper::canGenerateAValueForType)
-                    ).collect(Collectors.toList());
+            synchronized (methodsWithTargetType) {
+                if (factoryOfMethodsWithTargetType != type.getFactory()) {
+                    methodsWithTargetType.clear();
+                    factoryOfMethodsWithTargetType = type.getFactory();
+                }
+            }
+            final List<CtMethod<?>> cachedMethods = methodsWithTargetType.get(type);
+            if (cachedMethods != null) {
+                numberOfCacheHits.incrementAndGet();
+                return cachedMethods;
+            }
+            numberOfCacheMisses.incrementAndGet();
+            final List<CtMethod<?>> methods = Collections.unmodifiableList(computeMethodsWithTargetType(type));
+            final List<CtMethod<?>> previousMethods = methodsWithTargetType.putIfAbsent(type.clone(), methods);
+            return previousMethods == null ? methods : previousMethods;
+        }
+    }
+
+    private static List<CtMethod<?>> computeMethodsWithTargetType(CtTypeReference<?> type) {
+        return type.getTypeDeclaration().getMethods().stream()
+                .filter(method -> method.getModifiers().contains(ModifierKind.PUBLIC)) // TODO checks this predicate
+                // TODO we could also access to method with default or protected modifiers
+                .filter(method -> !method.getModifiers().contains(ModifierKind.STATIC)) // TODO checks this predicate
+                // TODO we can't amplify test on full static classes with this predicate
+                .filter(method -> !method.getModifiers().contains(ModifierKind.ABSTRACT)) // TODO checks this predicate
+                // TODO maybe we would like to call of abstract method, since the abstract would be implemented
+                // TODO inherited classes. However, the semantic of the test to be amplified may be to test the abstract class
+                .filter(method -> method.getParameters()
+                        .stream()
+                        .map(CtParameter::getType)
+                        .allMatch(ValueCreatorHelper::canGenerateAValueForType)
+                ).collect(Collectors.toList());
+    }
+
+    /**
+     * Clears the cache of {@link #findMethodsWithTargetType(CtTypeReference)}, e.g. when the model has been changed, and its counters.
+     */
+    public static void resetMethodsWithTargetTypeCache() {
+        synchronized (methodsWithTargetType) {
+            methodsWithTargetType.clear();
+            factoryOfMethodsWithTargetType = null;
         }
+        numberOfCacheHits.set(0L);
+        numberOfCacheMisses.set(0L);
+    }
+
+    public static long getNumberOfCacheHits() {
+        return numberOfCacheHits.get();
+    }
+
+    public static long getNumberOfCacheMisses() {
+        return numberOfCacheMisses.get();
     }
 
     public static CtMethod<?> addInvocation(CtMethod<?> testMethod,
@@ -23,6 +23,11 @@ public abstract class DecoratorAmplifier implements Amplifier {
         return this.internalAmplifier.amplify(testMethod, 0);
     }
 
+    @Override
+    public Stream<AmplificationDescriptor> describe(CtMethod<?> testMethod, int iteration) {
+        return this.internalAmplifier.describe(testMethod, 0);
+    }
+
     @Override
     public void reset(CtType testClass) {
         this.internalAmplifier.reset(testClass);
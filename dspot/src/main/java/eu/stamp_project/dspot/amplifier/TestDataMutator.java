@@ -13,6 +13,7 @@ import spoon.reflect.visitor.filter.TypeFilter;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /* This processor is meant to replace all literal values in test cases by other literal values
@@ -40,33 +41,41 @@ public class TestDataMutator implements Amplifier {
 	}
 
 	public Stream<CtMethod<?>> amplify(CtMethod<?> method, int iteration) {
-		List<CtMethod<?>> methods = new ArrayList<>();
+		return this.describe(method, iteration).map(AmplificationDescriptor::materialize);
+	}
+
+	/**
+	 * The literals of the test method are collected once. Each mutant is materialized by cloning the test method,
+	 * and replacing the i-th literal of the clone by a mutated one, see {@link AmplificationDescriptor}.
+	 */
+	@Override
+	public Stream<AmplificationDescriptor> describe(CtMethod<?> method, int iteration) {
 		//get the list of literals in the method
 		List<CtLiteral> literals = Query.getElements(method.getBody(), new LiteralToBeMutedFilter());
-		//this index serves to replace ith literal is replaced by zero in the ith clone of the method
-		int lit_index = 0;
-		for (CtLiteral lit : literals) {
-			try {
-				if (!AmplificationChecker.isInAssert(lit) && !AmplificationChecker.isCase(lit) && lit.getValue() != null) {
-					if (lit.getValue() instanceof Number) {
-						methods.addAll(createAllNumberMutant(method, lit, lit_index));
-					}
-					if (lit.getValue() instanceof String) {
-						methods.addAll(createAllStringMutant(method, lit, lit_index));
-					}
-					if (lit.getValue() instanceof Boolean) {
-						methods.add(createBooleanMutant(method, lit));
-					}
-					if (lit.getValue() instanceof Character) {
-						methods.addAll(createAllCharacterMutant(method, lit, lit_index));
-					}
-				}
-			} catch (Exception e) {
-				throw new RuntimeException(e);
-			}
-			lit_index++;
+		//this index serves to replace ith literal in the ith clone of the method
+		return IntStream.range(0, literals.size())
+				.filter(lit_index -> {
+					final CtLiteral lit = literals.get(lit_index);
+					return !AmplificationChecker.isInAssert(lit) && !AmplificationChecker.isCase(lit) && lit.getValue() != null;
+				}).boxed()
+				.flatMap(lit_index -> describeAllMutants(method, literals.get(lit_index), lit_index));
+	}
+
+	private Stream<AmplificationDescriptor> describeAllMutants(CtMethod<?> method, CtLiteral lit, int lit_index) {
+		if (lit.getValue() instanceof Number) {
+			return numberMutated(lit).stream().map(newValue -> describeNumberMutant(method, lit, lit_index, newValue));
+		} else if (lit.getValue() instanceof String) {
+			return stringMutated(lit).stream().map(newValue ->
+					describeMutant(method, lit, lit_index, false, method.getFactory().Code().createLiteral(newValue), "_literalMutationString")
+			);
+		} else if (lit.getValue() instanceof Boolean) {
+			return Stream.of(describeBooleanMutant(method, lit, lit_index));
+		} else if (lit.getValue() instanceof Character) {
+			return characterMutated(lit).stream().map(newValue ->
+					describeMutant(method, lit, lit_index, false, method.getFactory().Code().createLiteral(newValue), "_literalMutationChar")
+			);
 		}
-		return methods.stream();
+		return Stream.empty();
 	}
 
 	public void reset(CtType testClass) {
@@ -77,76 +86,53 @@ public class TestDataMutator implements Amplifier {
 				.collect(Collectors.groupingBy(lit -> lit.getClass()));
 	}
 
-	private CtMethod<?> createNumberMutant(CtMethod<?> method, int original_lit_index, Number newValue) {
-		//clone the method
-		CtMethod cloned_method = AmplificationHelper.cloneTestMethodForAmp(method, "_literalMutationNumber");
-		//get the lit_indexth literal of the cloned method
-		CtLiteral newLiteral = Query.getElements(cloned_method.getBody(), new LiteralToBeMutedFilter())
-				.get(original_lit_index);
-
-		CtElement toReplace = newLiteral;
-
-		if (newLiteral.getValue() instanceof Integer) {
+	private AmplificationDescriptor describeNumberMutant(CtMethod<?> method, CtLiteral literal, int lit_index, Number newValue) {
+		CtLiteral newLiteral = literal.clone();
+		if (literal.getValue() instanceof Integer) {
 			newLiteral.setValue(newValue.intValue());
-		} else if (newLiteral.getValue() instanceof Long) {
+		} else if (literal.getValue() instanceof Long) {
 			newLiteral.setValue(newValue.longValue());
-		} else if (newLiteral.getValue() instanceof Double) {
+		} else if (literal.getValue() instanceof Double) {
 			newLiteral.setValue(newValue.doubleValue());
-		} else if (newLiteral.getValue() instanceof Short) {
+		} else if (literal.getValue() instanceof Short) {
 			newLiteral.setValue(newValue.shortValue());
-		} else if (newLiteral.getValue() instanceof Float) {
+		} else if (literal.getValue() instanceof Float) {
 			newLiteral.setValue(newValue.floatValue());
-		} else if (newLiteral.getValue() instanceof Byte) {
+		} else if (literal.getValue() instanceof Byte) {
 			newLiteral.setValue(newValue.byteValue());
 		}
-		if (newLiteral.getParent() instanceof CtUnaryOperator) {
-			CtUnaryOperator parent = (CtUnaryOperator) newLiteral.getParent();
+		CtElement toReplace = literal;
+		if (literal.getParent() instanceof CtUnaryOperator) {
+			CtUnaryOperator parent = (CtUnaryOperator) literal.getParent();
 			if (parent.getKind().equals(UnaryOperatorKind.NEG)) {
 				toReplace = parent;
 			}
 		}
-		toReplace.replace(newLiteral);
-		Counter.updateInputOf(cloned_method, 1);
-		DSpotUtils.addComment(toReplace, "TestDataMutator on numbers", CtComment.CommentType.INLINE);
-		return cloned_method;
+		DSpotUtils.addComment(newLiteral, "TestDataMutator on numbers", CtComment.CommentType.INLINE);
+		return describeMutant(method, toReplace, lit_index, toReplace != literal, newLiteral, "_literalMutationNumber");
 	}
 
-	private List<CtMethod<?>> createAllNumberMutant(CtMethod<?> method, CtLiteral literal, int lit_index) {
-		return numberMutated(literal).stream()
-				.map(newValue -> createNumberMutant(method, lit_index, newValue))
-				.collect(Collectors.toList());
+	private AmplificationDescriptor describeBooleanMutant(CtMethod<?> method, CtLiteral booleanLiteral, int lit_index) {
+		CtLiteral newLiteral = booleanLiteral.clone();
+		newLiteral.setValue(!(Boolean) booleanLiteral.getValue());
+		DSpotUtils.addComment(newLiteral, "TestDataMutator on boolean", CtComment.CommentType.INLINE);
+		return describeMutant(method, booleanLiteral, lit_index, false, newLiteral, "_literalMutationBoolean");
 	}
 
-
-	private List<CtMethod<?>> createAllStringMutant(CtMethod<?> method, CtLiteral literal, int original_lit_index) {
-		return stringMutated(literal).stream()
-				.map(literalMutated -> createStringMutant(method, original_lit_index, literalMutated))
-				.collect(Collectors.toList());
+	private AmplificationDescriptor describeMutant(CtMethod<?> method, CtElement toReplace, int lit_index, boolean replacesParent,
+												  CtElement newElement, String suffix) {
+		return new AmplificationDescriptor(method, toReplace, newElement,
+				() -> createMutant(method, lit_index, replacesParent, newElement, suffix)
+		);
 	}
 
-	private CtMethod<?> createStringMutant(CtMethod<?> method, int original_lit_index, String newValue) {
-		CtMethod<?> cloned_method = AmplificationHelper.cloneTestMethodForAmp(method, "_literalMutationString");
+	// replaces the lit_indexth literal of a clone of the test method, or its parent, by a clone of the new element
+	private CtMethod<?> createMutant(CtMethod<?> method, int lit_index, boolean replacesParent, CtElement newElement, String suffix) {
+		CtMethod<?> cloned_method = AmplificationHelper.cloneTestMethodForAmp(method, suffix);
+		CtLiteral literal = Query.getElements(cloned_method.getBody(), new LiteralToBeMutedFilter()).get(lit_index);
+		CtElement toReplace = replacesParent ? literal.getParent() : literal;
+		toReplace.replace(newElement.clone());
 		Counter.updateInputOf(cloned_method, 1);
-		CtLiteral toReplace = Query.getElements(cloned_method.getBody(), new LiteralToBeMutedFilter())
-				.get(original_lit_index);
-		toReplace.replace(cloned_method.getFactory().Code().createLiteral(newValue));
-		DSpotUtils.addComment(toReplace, "TestDataMutator on strings", CtComment.CommentType.INLINE);
-		return cloned_method;
-	}
-
-	private List<CtMethod<?>> createAllCharacterMutant(CtMethod method, CtLiteral lit, int original_lit_index) {
-		return characterMutated(lit).stream()
-				.map(character -> createCharacterMutant(method, original_lit_index, character))
-				.collect(Collectors.toList());
-	}
-
-	private CtMethod<?> createCharacterMutant(CtMethod method, int original_lit_index, Character newValue) {
-		CtMethod cloned_method = AmplificationHelper.cloneTestMethodForAmp(method, "_literalMutationChar");
-		Counter.updateInputOf(cloned_method, 1);
-		CtLiteral toReplace = Query.getElements(cloned_method.getBody(), new LiteralToBeMutedFilter())
-				.get(original_lit_index);
-		toReplace.replace(cloned_method.getFactory().Code().createLiteral(newValue));
-		DSpotUtils.addComment(toReplace, "TestDataMutator on strings", CtComment.CommentType.INLINE);
 		return cloned_method;
 	}
 
@@ -208,22 +194,6 @@ public class TestDataMutator implements Amplifier {
 	}
 
 
-	private CtMethod<?> createBooleanMutant(CtMethod test, CtLiteral booleanLiteral) {
-		Boolean value = (Boolean) booleanLiteral.getValue();
-		CtMethod cloned_method = AmplificationHelper.cloneTestMethodForAmp(test, "_literalMutationBoolean");
-		CtLiteral newValue = cloned_method.getElements(new TypeFilter<CtLiteral>(CtLiteral.class) {
-			@Override
-			public boolean matches(CtLiteral element) {
-				return element.equals(booleanLiteral);
-			}
-		}).get(0);
-		newValue.setValue(!value);
-		newValue.setTypeCasts(booleanLiteral.getTypeCasts());
-		Counter.updateInputOf(cloned_method, 1);
-		DSpotUtils.addComment(newValue, "TestDataMutator on boolean", CtComment.CommentType.INLINE);
-		return cloned_method;
-	}
-
 	private Set<Object> getLiterals(Set<CtType> codeFragmentsProvide) {
 		return codeFragmentsProvide.stream()
 				.flatMap(cl -> getLiterals(cl).stream())
@@ -6,7 +6,6 @@ import spoon.reflect.code.CtExpression;
 import spoon.reflect.declaration.*;
 import spoon.reflect.factory.Factory;
 import spoon.reflect.reference.CtTypeReference;
-import spoon.reflect.visitor.filter.TypeFilter;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -25,15 +24,12 @@ public class ConstructorCreator {
         CtConstructorCall<?> constructorCall = type.getFactory().createConstructorCall();
         constructorCall.setType(type);
         if (type.getDeclaration() != null) {
-            final List<CtConstructor<?>> constructors = type.getDeclaration()
-                    .getElements(new TypeFilter<CtConstructor<?>>(CtConstructor.class) {
-                        @Override
-                        public boolean matches(CtConstructor<?> element) {
-                            return element.getParameters().stream()
-                                    .map(CtParameter::getType)
-                                    .allMatch(ValueCreatorHelper::canGenerateAValueForType);
-                        }
-                    });
+            final List<CtConstructor<?>> constructors = ModelIndex.get(type.getFactory()).getConstructors(type.getDeclaration())
+                    .stream()
+                    .filter(element -> element.getParameters().stream()
+                            .map(CtParameter::getType)
+                            .allMatch(ValueCreatorHelper::canGenerateAValueForType)
+                    ).collect(Collectors.toList());
             if (!constructors.isEmpty()) {
                 final List<CtExpression> generatedConstructors = constructors.stream().map(ctConstructor -> {
                             final CtConstructorCall<?> clone = constructorCall.clone();
@@ -60,15 +56,13 @@ public class ConstructorCreator {
         CtType<?> typeDeclaration = type.getDeclaration() == null ? type.getTypeDeclaration() : type.getDeclaration();
         if (typeDeclaration != null) {
             // We take public constructor that have only parameter that can be generated
-            final List<CtConstructor<?>> constructors = typeDeclaration.getElements(new TypeFilter<CtConstructor<?>>(CtConstructor.class) {
-                @Override
-                public boolean matches(CtConstructor<?> element) {
-                    return element.hasModifier(ModifierKind.PUBLIC) &&
+            final List<CtConstructor<?>> constructors = ModelIndex.get(type.getFactory()).getConstructors(typeDeclaration)
+                    .stream()
+                    .filter(element -> element.hasModifier(ModifierKind.PUBLIC) &&
                             element.getParameters().stream()
                                     .map(CtParameter::getType)
-                                    .allMatch(ValueCreatorHelper::canGenerateAValueForType);
-                }
-            });
+                                    .allMatch(ValueCreatorHelper::canGenerateAValueForType)
+                    ).collect(Collectors.toList());
             if (!constructors.isEmpty()) {
                 CtConstructorCall<?> constructorCall = type.getFactory().createConstructorCall();
                 constructorCall.setType(type);
@@ -94,32 +88,11 @@ public class ConstructorCreator {
         return null;
     }
 
-    // we may need to be more exhaustive in the name convention of factories
-    private static final String[] NAME_OF_FACTORY_METHOD = {"build", "create"};
-
-    static final class FILTER_FACTORY_METHOD extends TypeFilter<CtMethod<?>> {
-        private final CtTypeReference type;
-        public FILTER_FACTORY_METHOD(CtTypeReference type) {
-            super(CtMethod.class);
-            this.type = type;
-        }
-        @Override
-        public boolean matches(CtMethod<?> element) {
-            return element.getModifiers().contains(ModifierKind.STATIC) &&
-                    Arrays.stream(NAME_OF_FACTORY_METHOD)
-                            .anyMatch(element.getSimpleName().toLowerCase()::contains) &&
-                    element.getType().equals(type) &&
-                    element.getParameters().stream()
-                            .map(CtParameter::getType)
-                            .allMatch(ValueCreatorHelper::canGenerateAValueForType);
-        }
-    }
-
     static List<CtExpression<?>> generateConstructorUsingFactory(CtTypeReference type) {
         // this method will return an invocation of method that return the given type.
         // the usage of Factory classes/methods is well spread
         final Factory factory = type.getFactory();
-        final List<CtMethod<?>> factoryMethod = factory.getModel().getElements(new FILTER_FACTORY_METHOD(type));
+        final List<CtMethod<?>> factoryMethod = ModelIndex.get(factory).getFactoryMethods(type);
         return factoryMethod.stream()
                 .map(method ->
                         factory.createInvocation(factory.createTypeAccess(method.getParent(CtType.class).getReference(), true),
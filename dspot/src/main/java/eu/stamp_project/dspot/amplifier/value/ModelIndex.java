@@ -0,0 +1,138 @@
+package eu.stamp_project.dspot.amplifier.value;
+
+import spoon.reflect.declaration.CtConstructor;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtParameter;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.declaration.ModifierKind;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * An index of the Spoon model, used to generate values, see {@link ValueCreator} and {@link ConstructorCreator}.
+ * <p>
+ * The static factory methods of the model are collected once, with a single traversal of the model,
+ * and indexed by the qualified name of the type they return.
+ * The constructors of each type, and whether a value can be generated for a type, see {@link ValueCreatorHelper#canGenerateAValueForType(CtTypeReference)},
+ * are computed once per type, when they are first needed.
+ * A false computed for a type that needs, through the parameters of its constructors, a type whose computation is still in progress
+ * is not kept, since it may become true once that computation is done.
+ * <p>
+ * There is one index at a time, for the model of the given factory, see {@link #get(Factory)}.
+ */
+public class ModelIndex {
+
+    // we may need to be more exhaustive in the name convention of factories
+    private static final String[] NAME_OF_FACTORY_METHOD = {"build", "create"};
+
+    private static ModelIndex instance;
+
+    /**
+     * @param factory the factory of the model
+     * @return the index of the model of the given factory. It is built at the first call with this factory.
+     */
+    public static synchronized ModelIndex get(Factory factory) {
+        if (instance == null || instance.factory != factory) {
+            instance = new ModelIndex(factory);
+        }
+        return instance;
+    }
+
+    private final Factory factory;
+
+    private final Map<String, List<CtMethod<?>>> factoryMethodsByQualifiedNameOfType;
+
+    private final Map<CtType<?>, List<CtConstructor<?>>> constructorsByType;
+
+    private final Map<CtTypeReference<?>, Boolean> canGenerateAValueByType;
+
+    // the types for which canGenerateAValueForType is being computed, with the depth of their call
+    private final Map<CtTypeReference<?>, Integer> depthOfTypesInProgress;
+
+    // the lowest depth of the types in progress whose provisional result has been used by the current call
+    private int lowestDepthOfProvisionalResults = Integer.MAX_VALUE;
+
+    private ModelIndex(Factory factory) {
+        this.factory = factory;
+        this.factoryMethodsByQualifiedNameOfType = factory.getModel().getElements(new TypeFilter<CtMethod<?>>(CtMethod.class) {
+            @Override
+            public boolean matches(CtMethod<?> element) {
+                return element.getModifiers().contains(ModifierKind.STATIC) &&
+                        element.getType() != null &&
+                        Arrays.stream(NAME_OF_FACTORY_METHOD)
+                                .anyMatch(element.getSimpleName().toLowerCase()::contains);
+            }
+        }).stream().collect(Collectors.groupingBy(method -> method.getType().getQualifiedName()));
+        this.constructorsByType = new IdentityHashMap<>();
+        this.canGenerateAValueByType = new HashMap<>();
+        this.depthOfTypesInProgress = new HashMap<>();
+    }
+
+    /**
+     * @param type the type to be built
+     * @return the static factory methods that return the given type, and which parameters can be generated
+     */
+    public synchronized List<CtMethod<?>> getFactoryMethods(CtTypeReference<?> type) {
+        return this.factoryMethodsByQualifiedNameOfType.getOrDefault(type.getQualifiedName(), Collections.emptyList())
+                .stream()
+                .filter(method -> method.getType().equals(type))
+                .filter(method -> method.getParameters().stream()
+                        .map(CtParameter::getType)
+                        .allMatch(ValueCreatorHelper::canGenerateAValueForType)
+                ).collect(Collectors.toList());
+    }
+
+    /**
+     * @param typeDeclaration the declaration of a type
+     * @return all the constructors declared in the given type, in their order of declaration
+     */
+    public synchronized List<CtConstructor<?>> getConstructors(CtType<?> typeDeclaration) {
+        return this.constructorsByType.computeIfAbsent(typeDeclaration, type ->
+                new ArrayList<>(type.getElements(new TypeFilter<CtConstructor<?>>(CtConstructor.class)))
+        );
+    }
+
+    /**
+     * @param type the type of the value to be generated
+     * @return true if a value can be generated for the given type, computed once per type
+     */
+    synchronized boolean canGenerateAValueForType(CtTypeReference<?> type) {
+        final Boolean canGenerateAValue = this.canGenerateAValueByType.get(type);
+        if (canGenerateAValue != null) {
+            return canGenerateAValue;
+        }
+        // assumed false while it is computed, in order to stop on the types that need themselves through the parameters of their constructors
+        final Integer depthOfTypeInProgress = this.depthOfTypesInProgress.get(type);
+        if (depthOfTypeInProgress != null) {
+            this.lowestDepthOfProvisionalResults = Math.min(this.lowestDepthOfProvisionalResults, depthOfTypeInProgress);
+            return false;
+        }
+        final CtTypeReference<?> key = type.clone();
+        final int depth = this.depthOfTypesInProgress.size();
+        final int lowestDepthOfProvisionalResultsOfCaller = this.lowestDepthOfProvisionalResults;
+        this.depthOfTypesInProgress.put(key, depth);
+        this.lowestDepthOfProvisionalResults = Integer.MAX_VALUE;
+        try {
+            final boolean computed = ValueCreatorHelper.computeCanGenerateAValueForType(type);
+            // a false that relied on the provisional result of a type still in progress, other than this one, may be wrong:
+            // it is computed again at the next call, once the types in progress are done
+            if (computed || this.lowestDepthOfProvisionalResults >= depth) {
+                this.canGenerateAValueByType.put(key, computed);
+            }
+            return computed;
+        } finally {
+            this.depthOfTypesInProgress.remove(key);
+            this.lowestDepthOfProvisionalResults = Math.min(lowestDepthOfProvisionalResultsOfCaller, this.lowestDepthOfProvisionalResults);
+        }
+    }
+}
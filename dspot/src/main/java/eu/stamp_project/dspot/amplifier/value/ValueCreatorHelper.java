@@ -1,13 +1,11 @@
 package eu.stamp_project.dspot.amplifier.value;
 
 import eu.stamp_project.utils.AmplificationChecker;
-import spoon.reflect.declaration.CtConstructor;
 import spoon.reflect.declaration.CtParameter;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.declaration.ModifierKind;
 import spoon.reflect.reference.CtTypeReference;
 import spoon.reflect.reference.CtWildcardReference;
-import spoon.reflect.visitor.filter.TypeFilter;
 import spoon.support.SpoonClassNotFoundException;
 
 import java.util.Collection;
@@ -22,7 +20,18 @@ import java.util.Set;
  */
 public class ValueCreatorHelper {
 
+    /**
+     * @param type the type of the value to be generated
+     * @return true if a value can be generated for the given type. The result is computed once per type, see {@link ModelIndex}
+     */
     public static boolean canGenerateAValueForType(CtTypeReference type) {
+        if (type instanceof CtWildcardReference) {
+            return false;
+        }
+        return ModelIndex.get(type.getFactory()).canGenerateAValueForType(type);
+    }
+
+    static boolean computeCanGenerateAValueForType(CtTypeReference type) {
         try {
             if (type instanceof CtWildcardReference) {
                 return false;
@@ -56,20 +65,19 @@ public class ValueCreatorHelper {
             return false;
         }
 
-        final boolean canBeConstructed = (!typeDeclaration.getElements(new TypeFilter<CtConstructor<?>>(CtConstructor.class) {
-            // we can use at least one constructor
-            @Override
-            public boolean matches(CtConstructor<?> element) {
-                return element.hasModifier(ModifierKind.PUBLIC) &&
+        final ModelIndex modelIndex = ModelIndex.get(type.getFactory());
+        final boolean canBeConstructed = modelIndex.getConstructors(typeDeclaration)
+                .stream()
+                // we can use at least one constructor
+                .anyMatch(element -> element.hasModifier(ModifierKind.PUBLIC) &&
                         element.getParameters()
                                 .stream()
                                 .map(CtParameter::getType)
                                 .filter(reference -> ! reference.equals(type))
-                                .allMatch(ValueCreatorHelper::canGenerateAValueForType);
-            }
-        }).isEmpty()) ||
+                                .allMatch(ValueCreatorHelper::canGenerateAValueForType)
+                ) ||
                 // or we can use a factor method
-                !(type.getFactory().getModel().getElements(new ConstructorCreator.FILTER_FACTORY_METHOD(type)).isEmpty());
+                !modelIndex.getFactoryMethods(type).isEmpty();
         // above, when we say use, it means that we can find one element that match filters, i.e. the returned list is not empty
 
         return (type.getActualTypeArguments().isEmpty() || // There is no type arguments
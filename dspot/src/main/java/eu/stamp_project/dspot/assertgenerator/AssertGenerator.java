@@ -1,5 +1,7 @@
 package eu.stamp_project.dspot.assertgenerator;
 
+import eu.stamp_project.compare.ObservationException;
+import eu.stamp_project.testrunner.runner.test.Failure;
 import eu.stamp_project.testrunner.runner.test.TestListener;
 import eu.stamp_project.dspot.AmplificationException;
 import eu.stamp_project.utils.compilation.DSpotCompiler;
@@ -13,7 +15,9 @@ import spoon.reflect.declaration.CtType;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -45,7 +49,8 @@ public class AssertGenerator {
     /**
      * Adds new assertions in multiple tests.
      * <p>
-     * <p>Details of the assertions generation in {@link #innerAssertionAmplification(CtType, List)}.
+     * <p>Details of the assertions generation in {@link #innerAssertionAmplification(CtType, List)},
+     * or in {@link #innerAssertionAmplificationWithOneRun(CtType, List)} if {@link InputConfiguration#shouldCombineObservationRuns()}.
      *
      * @param testClass Test class
      * @param tests     Test methods to amplify
@@ -67,7 +72,8 @@ public class AssertGenerator {
                 compiler,
                 this.assertionRemover.getVariableAssertedPerTestMethod()
         );
-        final List<CtMethod<?>> amplifiedTestsWithAssertions =
+        final List<CtMethod<?>> amplifiedTestsWithAssertions = this.configuration.shouldCombineObservationRuns() ?
+                this.innerAssertionAmplificationWithOneRun(cloneClass, testsWithoutAssertions) :
                 this.innerAssertionAmplification(cloneClass, testsWithoutAssertions);
         if (amplifiedTestsWithAssertions.isEmpty()) {
             LOGGER.info("Could not generate any test with assertions");
@@ -149,4 +155,87 @@ public class AssertGenerator {
         }
         return generatedTestWithAssertion;
     }
+
+    /**
+     * Generates assertions and try/catch/fail blocks for multiple tests, with a single run of the instrumented tests.
+     * <p>
+     * <p>The run of the instrumented tests, see {@link MethodsAssertGenerator#runInstrumentedTests(CtType, List)},
+     * splits passing tests from failing ones and collects the actual values at the same time.
+     * The tests that fail because of the observation itself, rather than because of the code under test,
+     * are amplified apart with {@link #innerAssertionAmplification(CtType, List)}.
+     *
+     * @param testClass Test class
+     * @param tests     Test methods
+     * @return New tests with new assertions
+     */
+    private List<CtMethod<?>> innerAssertionAmplificationWithOneRun(CtType testClass, List<CtMethod<?>> tests) {
+        LOGGER.info("Run instrumented tests. ({})", tests.size());
+        final TestListener testResult;
+        try {
+            testResult = this.methodsAssertGenerator.runInstrumentedTests(testClass, tests);
+        } catch (AmplificationException e) {
+            LOGGER.warn("Error when executing instrumented tests during Assertion Amplification:");
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+
+        final Map<String, Failure> failureByName = testResult.getFailingTests()
+                .stream()
+                .collect(Collectors.toMap(failure -> failure.testCaseName, Function.identity(), (failure1, failure2) -> failure1));
+        final List<String> passingTestsName = testResult.getPassingTests();
+
+        final List<CtMethod<?>> passingTests = new ArrayList<>();
+        final List<CtMethod<?>> failingTests = new ArrayList<>();
+        final List<CtMethod<?>> testsFailingToBeObserved = new ArrayList<>();
+        for (CtMethod<?> test : tests) {
+            final String nameOfTestWithLog = test.getSimpleName() + AssertGeneratorHelper.WITH_LOG_SUFFIX;
+            if (passingTestsName.contains(nameOfTestWithLog)) {
+                passingTests.add(test);
+            } else if (failureByName.containsKey(nameOfTestWithLog)) {
+                if (isThrownByObservation(failureByName.get(nameOfTestWithLog))) {
+                    testsFailingToBeObserved.add(test);
+                } else {
+                    failingTests.add(test);
+                }
+            }
+        }
+
+        final List<CtMethod<?>> generatedTestWithAssertion = new ArrayList<>();
+        // add assertion on passing tests
+        if (!passingTests.isEmpty()) {
+            LOGGER.info("{} test pass, generating assertion...", passingTests.size());
+            generatedTestWithAssertion.addAll(
+                    this.methodsAssertGenerator.buildTestsWithAssert(passingTests)
+                            .stream()
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList())
+            );
+        }
+
+        // add try/catch/fail on failing/error tests
+        if (!failingTests.isEmpty()) {
+            LOGGER.info("{} test fail, generating try/catch/fail blocks...", failingTests.size());
+            generatedTestWithAssertion.addAll(
+                    failingTests.stream()
+                            .map(ctMethod ->
+                                    this.tryCatchFailGenerator.surroundWithTryCatchFail(ctMethod,
+                                            failureByName.get(ctMethod.getSimpleName() + AssertGeneratorHelper.WITH_LOG_SUFFIX))
+                            )
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList())
+            );
+        }
+
+        // the observation failed, e.g. on a null value: we do not know if the test passes
+        if (!testsFailingToBeObserved.isEmpty()) {
+            LOGGER.info("{} test could not be observed, running them apart...", testsFailingToBeObserved.size());
+            generatedTestWithAssertion.addAll(this.innerAssertionAmplification(testClass, testsFailingToBeObserved));
+        }
+        return generatedTestWithAssertion;
+    }
+
+    // the instrumentation of the test method failed, see ObjectLog#log(Object, String, String)
+    static boolean isThrownByObservation(Failure failure) {
+        return ObservationException.class.getName().equals(failure.fullQualifiedNameOfException);
+    }
 }
@@ -1,9 +1,13 @@
 package eu.stamp_project.dspot.assertgenerator;
 
 import eu.stamp_project.compare.ObjectLog;
+import eu.stamp_project.compare.ObservationBudget;
+import eu.stamp_project.compare.RepeatRule;
+import eu.stamp_project.program.InputConfiguration;
 import eu.stamp_project.utils.AmplificationHelper;
 import spoon.reflect.code.CtAssignment;
 import spoon.reflect.code.CtBlock;
+import spoon.reflect.code.CtConstructorCall;
 import spoon.reflect.code.CtExpression;
 import spoon.reflect.code.CtInvocation;
 import spoon.reflect.code.CtLocalVariable;
@@ -13,6 +17,7 @@ import spoon.reflect.code.CtTypeAccess;
 import spoon.reflect.code.CtVariableAccess;
 import spoon.reflect.code.CtVariableWrite;
 import spoon.reflect.declaration.CtAnnotation;
+import spoon.reflect.declaration.CtField;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtNamedElement;
 import spoon.reflect.declaration.CtType;
@@ -25,6 +30,7 @@ import spoon.reflect.reference.CtWildcardReference;
 import spoon.reflect.visitor.filter.TypeFilter;
 import spoon.support.SpoonClassNotFoundException;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -43,10 +49,12 @@ public class AssertGeneratorHelper {
         );
     }
 
+    static final String WITH_LOG_SUFFIX = "_withlog";
+
     static CtMethod<?> createTestWithLog(CtMethod test, final String filter,
                                          List<CtLocalVariable<?>> ctVariableReads) {
         CtMethod clone = AmplificationHelper.cloneTestMethodNoAmp(test);
-        clone.setSimpleName(test.getSimpleName() + "_withlog");
+        clone.setSimpleName(test.getSimpleName() + WITH_LOG_SUFFIX);
         final List<CtStatement> allStatement = clone.getElements(new TypeFilter<>(CtStatement.class));
         allStatement.stream()
                 .filter(statement -> isStmtToLog(filter, statement) || ctVariableReads.contains(statement))
@@ -83,6 +91,54 @@ public class AssertGeneratorHelper {
         testClass.addMethod(afterClassMethod);
     }
 
+    // adds a JUnit rule that runs each test method numberOfRuns times, see eu.stamp_project.compare.RepeatRule
+    static void addRepeatRule(CtType<?> testClass, int numberOfRuns, InputConfiguration configuration) {
+        final Factory factory = testClass.getFactory();
+        final CtTypeReference<RepeatRule> ctTypeReference = factory.Type().createReference(RepeatRule.class);
+        final CtConstructorCall<RepeatRule> constructorCall = factory.createConstructorCall(ctTypeReference,
+                factory.createLiteral(numberOfRuns),
+                createObservationBudget(factory, configuration)
+        );
+        addRule(testClass, ctTypeReference, "repeatRuleOfDSpot", constructorCall);
+    }
+
+    // adds a JUnit rule that bounds the observations of each test method, see eu.stamp_project.compare.ObservationBudget
+    static void addObservationBudget(CtType<?> testClass, InputConfiguration configuration) {
+        final Factory factory = testClass.getFactory();
+        addRule(testClass,
+                factory.Type().createReference(ObservationBudget.class),
+                "observationBudgetOfDSpot",
+                createObservationBudget(factory, configuration)
+        );
+    }
+
+    private static CtConstructorCall<ObservationBudget> createObservationBudget(Factory factory, InputConfiguration configuration) {
+        return factory.createConstructorCall(factory.Type().createReference(ObservationBudget.class),
+                factory.createLiteral(configuration.getMaxObservationDepth()),
+                factory.createLiteral(configuration.getMaxObservedGettersPerType()),
+                factory.createLiteral(configuration.getMaxObservationsPerTest()),
+                factory.createLiteral(configuration.getObservedTypes()),
+                factory.createLiteral(configuration.getExcludedObservedTypes())
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void addRule(CtType<?> testClass,
+                                    CtTypeReference<T> ctTypeReference,
+                                    String name,
+                                    CtConstructorCall<T> constructorCall) {
+        final Factory factory = testClass.getFactory();
+        final CtField<T> rule = factory.createField(testClass,
+                EnumSet.of(ModifierKind.PUBLIC, ModifierKind.FINAL),
+                ctTypeReference,
+                name,
+                constructorCall
+        );
+        final CtAnnotation annotation = factory.createAnnotation();
+        annotation.setAnnotationType(factory.Type().createReference("org.junit.Rule"));
+        rule.addAnnotation(annotation);
+    }
+
     private static CtMethod<Void> initAfterClassMethod(Factory factory) {
         final CtMethod<Void> afterClassMethod = factory.createMethod();
         afterClassMethod.setType(factory.Type().VOID_PRIMITIVE);
@@ -39,6 +39,9 @@ public class MethodsAssertGenerator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodsAssertGenerator.class);
 
+    // number of runs of each instrumented test method, used to detect non-deterministic values
+    private static final int NUMBER_OF_RUNS = 3;
+
     private CtType originalClass;
 
     private Factory factory;
@@ -75,20 +78,9 @@ public class MethodsAssertGenerator {
     public List<CtMethod<?>> addAssertions(CtType<?> testClass, List<CtMethod<?>> testCases) {
         CtType clone = testClass.clone();
         testClass.getPackage().addType(clone);
-        LOGGER.info("Add observations points in passing tests.");
-        LOGGER.info("Instrumentation...");
-        final List<CtMethod<?>> testCasesWithLogs = testCases.stream()
-                .map(ctMethod -> {
-                            DSpotUtils.printProgress(testCases.indexOf(ctMethod), testCases.size());
-                            return AssertGeneratorHelper.createTestWithLog(
-                                    ctMethod,
-                                    this.originalClass.getPackage().getQualifiedName(),
-                                    this.variableReadsAsserted.get(ctMethod)
-                            );
-                        }
-                ).collect(Collectors.toList());
+        final List<CtMethod<?>> testCasesWithLogs = this.instrument(testCases);
         final List<CtMethod<?>> testsToRun = new ArrayList<>();
-        IntStream.range(0, 3).forEach(i -> testsToRun.addAll(
+        IntStream.range(0, NUMBER_OF_RUNS).forEach(i -> testsToRun.addAll(
                 testCasesWithLogs.stream()
                         .map(CtMethod::clone)
                         .map(ctMethod -> {
@@ -101,14 +93,16 @@ public class MethodsAssertGenerator {
                         })
                         .collect(Collectors.toList())
         ));
-        ObjectLog.reset();
+        this.resetObservations(clone);
         LOGGER.info("Run instrumented tests. ({})", testsToRun.size());
-        AssertGeneratorHelper.addAfterClassMethod(clone);
+        AssertGeneratorHelper.addObservationBudget(clone, this.configuration);
         try {
             final TestListener result = TestCompiler.compileAndRun(clone,
                     this.compiler,
                     testsToRun,
-                    this.configuration
+                    this.configuration,
+                    1,
+                    this.configuration.isInProcessAssertionRun()
             );
             if (!result.getFailingTests().isEmpty()) {
                 LOGGER.warn("Some instrumented test failed!");
@@ -117,18 +111,101 @@ public class MethodsAssertGenerator {
             e.printStackTrace();
             return Collections.emptyList();
         }
-        Map<String, Observation> observations = ObjectLog.getObservations();
+        return this.buildTestsWithAssert(testCases);
+    }
+
+    /**
+     * Runs the instrumented tests once, to know which tests pass and to collect the values of the observation points at the same time.
+     * <p>
+     * <p>Each test method is run {@link #NUMBER_OF_RUNS} times in the same JVM by {@link eu.stamp_project.compare.RepeatRule},
+     * to detect non-deterministic values. Only the first run of a test method gives its result.
+     * The names of the instrumented test methods end with {@link AssertGeneratorHelper#WITH_LOG_SUFFIX}.
+     * <p>
+     * <p>The assertions are then generated with {@link #buildTestsWithAssert(List)}.
+     *
+     * @param testClass Test class
+     * @param testCases Test methods
+     * @return the result of the run of the instrumented tests
+     * @throws AmplificationException if the instrumented tests could not be compiled or run
+     */
+    public TestListener runInstrumentedTests(CtType<?> testClass, List<CtMethod<?>> testCases) throws AmplificationException {
+        CtType clone = testClass.clone();
+        testClass.getPackage().addType(clone);
+        final List<CtMethod<?>> testCasesWithLogs = this.instrument(testCases);
+        testCasesWithLogs.forEach(clone::addMethod);
+        this.resetObservations(clone);
+        LOGGER.info("Run instrumented tests. ({})", testCasesWithLogs.size());
+        AssertGeneratorHelper.addRepeatRule(clone, NUMBER_OF_RUNS, this.configuration);
+        return TestCompiler.compileAndRun(clone,
+                this.compiler,
+                testCasesWithLogs,
+                this.configuration,
+                NUMBER_OF_RUNS,
+                this.configuration.isInProcessAssertionRun()
+        );
+    }
+
+    /*
+        When the instrumented tests are run inside the JVM of DSpot, ObjectLog records the observations directly in memory.
+        Otherwise, they are saved in a file after the tests, and loaded by DSpot.
+     */
+    private void resetObservations(CtType<?> instrumentedTestClass) {
+        if (this.configuration.isInProcessAssertionRun()) {
+            ObjectLog.resetInMemory();
+        } else {
+            ObjectLog.reset();
+            AssertGeneratorHelper.addAfterClassMethod(instrumentedTestClass);
+        }
+    }
+
+    /**
+     * Adds new assertions in multiple tests, from the observations of the last run of instrumented tests.
+     * <p>
+     * <p>The observations are grouped by test method once, and the tests are built one after the other:
+     * building the assertions draws values from the shared random, e.g. the names of the arrays,
+     * so that the same seed gives the same amplified tests.
+     *
+     * @param testCases Passing test methods
+     * @return New tests with new assertions generated from observation points values
+     */
+    public List<CtMethod<?>> buildTestsWithAssert(List<CtMethod<?>> testCases) {
+        final Map<String, Map<String, Observation>> observationsByTest = ObjectLog.getObservationsByTest();
+        final int numberOfTruncatedObservations = observationsByTest.values()
+                .stream()
+                .flatMap(observations -> observations.values().stream())
+                .mapToInt(Observation::getNumberOfTruncatedObservations)
+                .sum();
+        if (numberOfTruncatedObservations > 0) {
+            LOGGER.info("{} observations have been truncated by the budget of observations", numberOfTruncatedObservations);
+        }
         LOGGER.info("Generating assertions...");
         return testCases.stream()
-                .map(ctMethod -> this.buildTestWithAssert(ctMethod, observations))
+                .map(ctMethod -> this.buildTestWithAssert(ctMethod,
+                        observationsByTest.getOrDefault(ctMethod.getSimpleName(), Collections.emptyMap()))
+                )
                 .collect(Collectors.toList());
     }
 
+    private List<CtMethod<?>> instrument(List<CtMethod<?>> testCases) {
+        LOGGER.info("Add observations points in passing tests.");
+        LOGGER.info("Instrumentation...");
+        return testCases.stream()
+                .map(ctMethod -> {
+                            DSpotUtils.printProgress(testCases.indexOf(ctMethod), testCases.size());
+                            return AssertGeneratorHelper.createTestWithLog(
+                                    ctMethod,
+                                    this.originalClass.getPackage().getQualifiedName(),
+                                    this.variableReadsAsserted.get(ctMethod)
+                            );
+                        }
+                ).collect(Collectors.toList());
+    }
+
     /**
      * Adds new assertions to a test from observation points.
      *
      * @param test         Test method
-     * @param observations Observation points of the test suite
+     * @param observations Observation points of the test method, by id
      * @return Test with new assertions
      */
     @SuppressWarnings("unchecked")
@@ -136,21 +213,29 @@ public class MethodsAssertGenerator {
         CtMethod testWithAssert = AmplificationHelper.cloneTestMethodForAmp(test, "");
         int numberOfAddedAssertion = 0;
         List<CtStatement> statements = Query.getElements(testWithAssert, new TypeFilter(CtStatement.class));
+        final double delta = Double.parseDouble(configuration.getDelta());
+        // the last statement of the test is printed again only when another statement took its place.
+        // A statement modified in place is a compound one, that is never equal to an assertion
+        CtStatement lastStatementOfTest = null;
+        String lastStatementOfTestAsString = null;
         for (String id : observations.keySet()) {
-            if (!id.split("__")[0].equals(testWithAssert.getSimpleName())) {
-                continue;
-            }
             final List<CtStatement> assertStatements = AssertBuilder.buildAssert(
                     factory,
                     observations.get(id).getNotDeterministValues(),
                     observations.get(id).getObservationValues(),
-                    Double.parseDouble(configuration.getDelta())
+                    delta
             );
-
+            if (assertStatements.isEmpty()) {
+                continue;
+            }
+            if (testWithAssert.getBody().getLastStatement() != lastStatementOfTest) {
+                lastStatementOfTest = testWithAssert.getBody().getLastStatement();
+                lastStatementOfTestAsString = lastStatementOfTest.toString();
+            }
             if (assertStatements.stream()
                     .map(Object::toString)
                     .map("// AssertGenerator add assertion\n"::concat)
-                    .anyMatch(testWithAssert.getBody().getLastStatement().toString()::equals)) {
+                    .anyMatch(lastStatementOfTestAsString::equals)) {
                 continue;
             }
             int line = Integer.parseInt(id.split("__")[1]);
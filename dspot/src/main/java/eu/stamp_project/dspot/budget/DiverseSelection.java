@@ -0,0 +1,93 @@
+package eu.stamp_project.dspot.budget;
+
+import eu.stamp_project.utils.AmplificationHelper;
+import spoon.reflect.declaration.CtMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Selects a diverse subset of a given size among the amplified test methods offered one by one, see {@link NoBudgetizer#reduce(List)}.
+ * <p>
+ * The offered test methods are kept in a pool of at most twice the size of the subset, with their features, see {@link TestMethodFeatures}.
+ * When the pool is full, it is reduced to the size of the subset by a farthest-point selection:
+ * the test methods are selected one by one, the next one being the furthest from the ones already selected.
+ * The memory is thus bounded by the size of the subset, and not by the number of offered test methods.
+ * If no more than twice the size of the subset is offered, the selection is the same as a farthest-point selection over all of them.
+ * <p>
+ * The test methods that are discarded are removed from {@link AmplificationHelper#ampTestToParent}.
+ */
+class DiverseSelection {
+
+    private final int size;
+
+    private final List<TestMethodFeatures> pool;
+
+    private int numberOfOfferedTestMethods;
+
+    DiverseSelection(int size) {
+        this.size = size;
+        this.pool = new ArrayList<>();
+        this.numberOfOfferedTestMethods = 0;
+    }
+
+    void offer(CtMethod<?> testMethod) {
+        this.numberOfOfferedTestMethods++;
+        this.pool.add(new TestMethodFeatures(testMethod));
+        if (this.pool.size() >= 2 * this.size) {
+            this.reducePool();
+        }
+    }
+
+    int getNumberOfOfferedTestMethods() {
+        return numberOfOfferedTestMethods;
+    }
+
+    /**
+     * @return the selected test methods, in their order of selection
+     */
+    List<CtMethod<?>> select() {
+        if (this.pool.size() > this.size) {
+            this.reducePool();
+        }
+        final List<CtMethod<?>> selectedTestMethods = new ArrayList<>();
+        this.pool.forEach(features -> selectedTestMethods.add(features.testMethod));
+        return selectedTestMethods;
+    }
+
+    private void reducePool() {
+        final boolean[] isSelected = new boolean[this.pool.size()];
+        // the distance of each candidate to the closest selected test
+        final int[] distanceToSelected = new int[this.pool.size()];
+        Arrays.fill(distanceToSelected, Integer.MAX_VALUE);
+        final List<TestMethodFeatures> selected = new ArrayList<>();
+        int next = 0;
+        while (selected.size() < this.size) {
+            isSelected[next] = true;
+            selected.add(this.pool.get(next));
+            int furthest = -1;
+            for (int i = 0; i < this.pool.size(); i++) {
+                if (!isSelected[i]) {
+                    distanceToSelected[i] = Math.min(distanceToSelected[i], this.pool.get(i).distanceTo(this.pool.get(next)));
+                    if (furthest == -1 || distanceToSelected[i] > distanceToSelected[furthest]) {
+                        furthest = i;
+                    }
+                }
+            }
+            next = furthest;
+        }
+        final Set<CtMethod<?>> selectedTestMethods = Collections.newSetFromMap(new IdentityHashMap<>());
+        selected.forEach(features -> selectedTestMethods.add(features.testMethod));
+        for (TestMethodFeatures features : this.pool) {
+            if (!selectedTestMethods.contains(features.testMethod)) {
+                AmplificationHelper.ampTestToParent.remove(features.testMethod);
+            }
+        }
+        this.pool.clear();
+        this.pool.addAll(selected);
+    }
+}
@@ -1,19 +1,12 @@
 package eu.stamp_project.dspot.budget;
 
 import eu.stamp_project.program.InputConfiguration;
-import eu.stamp_project.utils.AmplificationHelper;
 import eu.stamp_project.utils.DSpotUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spoon.reflect.declaration.CtMethod;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -27,6 +20,10 @@ public class NoBudgetizer implements Budgetizer {
 
     /**
      * Input amplification for a single test.
+     * <p>
+     * <p>The amplifiers are run one after the other, and each of them generates its tests lazily:
+     * the returned stream is sequential, so that the tests are generated only when they are pulled.
+     * A parallel stream would generate them ahead of the consumer, and buffer them to keep their order.
      *
      * @param test Test method
      * @return New generated tests
@@ -34,12 +31,16 @@ public class NoBudgetizer implements Budgetizer {
     protected Stream<CtMethod<?>> inputAmplifyTest(CtMethod<?> test, int i) {
         return InputConfiguration.get()
                 .getAmplifiers()
-                .parallelStream()
+                .stream()
                 .flatMap(amplifier -> amplifier.amplify(test, i));
     }
 
     /**
      * Input amplification of multiple tests.
+     * <p>
+     * <p>The amplified tests are pulled one by one from the amplifiers, see {@link #inputAmplifyTest(CtMethod, int)},
+     * and offered to a selection bounded by the budget, see {@link DiverseSelection}:
+     * at most the tests of the selection, and the one being offered, are kept in memory.
      *
      * @param testMethods Test methods
      * @return New generated tests
@@ -47,13 +48,13 @@ public class NoBudgetizer implements Budgetizer {
     @Override
     public List<CtMethod<?>> inputAmplify(List<CtMethod<?>> testMethods, int i) {
         LOGGER.info("Amplification of inputs...");
-        List<CtMethod<?>> inputAmplifiedTests = testMethods.parallelStream()
-                .flatMap(test -> {
-                    DSpotUtils.printProgress(testMethods.indexOf(test), testMethods.size());
-                    return inputAmplifyTest(test, i);
-                }).collect(Collectors.toList());
-        LOGGER.info("{} new tests generated", inputAmplifiedTests.size());
-        return reduce(inputAmplifiedTests);
+        final DiverseSelection selection = new DiverseSelection(InputConfiguration.get().getMaxTestAmplified());
+        for (int indexOfTest = 0; indexOfTest < testMethods.size(); indexOfTest++) {
+            DSpotUtils.printProgress(indexOfTest, testMethods.size());
+            inputAmplifyTest(testMethods.get(indexOfTest), i).forEach(selection::offer);
+        }
+        LOGGER.info("{} new tests generated", selection.getNumberOfOfferedTestMethods());
+        return this.select(selection);
     }
 
     /**
@@ -62,70 +63,25 @@ public class NoBudgetizer implements Budgetizer {
      * <p>The reduction aims at keeping a maximum of diversity. Because all the amplified tests come from the same
      * original test, they have a <em>lot</em> in common.
      * <p>
-     * <p>Diversity is measured with the textual representation of amplified tests. We use the sum of the bytes returned
-     * by the {@link String#getBytes()} method and keep the amplified tests with the most distant values.
+     * <p>Diversity is measured with cheap features of the amplified tests, computed from their abstract syntax tree, see {@link TestMethodFeatures}.
+     * The amplified tests are selected one by one, the next one being the furthest from the ones already selected (farthest-point selection).
+     * The selection is done on a pool bounded by the threshold, see {@link DiverseSelection}.
      *
      * @param tests List of tests to be reduced
      * @return A subset of the input tests
      */
     public List<CtMethod<?>> reduce(List<CtMethod<?>> tests) {
-        final List<CtMethod<?>> reducedTests = new ArrayList<>();
-        if (tests.size() > InputConfiguration.get().getMaxTestAmplified()) {
-            LOGGER.warn("Too many tests have been generated: {}", tests.size());
-            final Map<Long, List<CtMethod<?>>> valuesToMethod = new HashMap<>();
-            for (CtMethod<?> test : tests) {
-                final long value = sumByteArrayToLong(test.toString().getBytes());
-                if (!valuesToMethod.containsKey(value)) {
-                    valuesToMethod.put(value, new ArrayList<>());
-                }
-                valuesToMethod.get(value).add(test);
-            }
-            final Long average = average(valuesToMethod.keySet());
-            while (reducedTests.size() < InputConfiguration.get().getMaxTestAmplified()) {
-                final Long furthest = furthest(valuesToMethod.keySet(), average);
-                reducedTests.add(valuesToMethod.get(furthest).get(0));
-                if (valuesToMethod.get(furthest).isEmpty()) {
-                    valuesToMethod.remove(furthest);
-                } else {
-                    valuesToMethod.get(furthest).remove(0);
-                    if (valuesToMethod.get(furthest).isEmpty()) {
-                        valuesToMethod.remove(furthest);
-                    }
-                }
-            }
-            LOGGER.info("Number of generated test reduced to {}", reducedTests.size());
-        }
-        if (reducedTests.isEmpty()) {
-            reducedTests.addAll(tests);
-        } else {
-            tests.stream()
-                    .filter(test -> !reducedTests.contains(test))
-                    .forEach(discardedTest -> AmplificationHelper.ampTestToParent.remove(discardedTest));
-        }
-        return reducedTests;
+        final DiverseSelection selection = new DiverseSelection(InputConfiguration.get().getMaxTestAmplified());
+        tests.forEach(selection::offer);
+        return this.select(selection);
     }
 
-    /**
-     * Returns the average of a collection of double
-     */
-    private Long average(Collection<Long> values) {
-        return values.stream().collect(Collectors.averagingLong(Long::longValue)).longValue();
-    }
-
-    /**
-     * Returns the first, most distant element of a collection from a defined value.
-     */
-    private Long furthest(Collection<Long> values, Long average) {
-        return values.stream()
-                .max(Comparator.comparingLong(d -> Math.abs(d - average)))
-                .orElse(null);
-    }
-
-    private long sumByteArrayToLong(byte[] byteArray) {
-        long sum = 0L;
-        for (byte aByteArray : byteArray) {
-            sum += (int) aByteArray;
+    private List<CtMethod<?>> select(DiverseSelection selection) {
+        final List<CtMethod<?>> reducedTests = selection.select();
+        if (selection.getNumberOfOfferedTestMethods() > reducedTests.size()) {
+            LOGGER.warn("Too many tests have been generated: {}", selection.getNumberOfOfferedTestMethods());
+            LOGGER.info("Number of generated test reduced to {}", reducedTests.size());
         }
-        return sum;
+        return reducedTests;
     }
 }
@@ -1,5 +1,6 @@
 package eu.stamp_project.dspot.budget;
 
+import eu.stamp_project.dspot.amplifier.AmplificationDescriptor;
 import eu.stamp_project.dspot.amplifier.Amplifier;
 import eu.stamp_project.program.InputConfiguration;
 import eu.stamp_project.utils.AmplificationHelper;
@@ -11,6 +12,7 @@ import spoon.reflect.declaration.CtMethod;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -68,16 +70,38 @@ public class SimpleBudgetizer implements Budgetizer {
         return amplifiedTestMethods;
     }
 
+    /*
+        At most the whole budget is taken from an amplifier for a test method.
+        The descriptions of the amplified test methods are pulled one by one, and a random sample of the size of the budget is kept (reservoir sampling).
+        Only the sampled ones are materialized, i.e. cloned, see AmplificationDescriptor.
+     */
     private Map<Amplifier, Map<CtMethod<?>, List<CtMethod<?>>>> amplify(List<Amplifier> amplifiers,
                                                                         ArrayList<CtMethod<?>> testMethodsToBeAmplified,
                                                                         int iteration) {
+        final int budget = InputConfiguration.get().getMaxTestAmplified();
         Map<Amplifier, Map<CtMethod<?>, List<CtMethod<?>>>> amplifiedTestMethodPerAmplifierPerTestMethod = new HashMap<>();
         for (Amplifier amplifier : amplifiers) {
             amplifiedTestMethodPerAmplifierPerTestMethod.put(amplifier, new HashMap<>());
             for (CtMethod<?> testMethod : testMethodsToBeAmplified) {
-                final List<CtMethod<?>> amplification = amplifier.amplify(testMethod, 0).collect(Collectors.toList());
-                Collections.shuffle(amplification, AmplificationHelper.getRandom());
-                amplifiedTestMethodPerAmplifierPerTestMethod.get(amplifier).put(testMethod, amplification);
+                final List<AmplificationDescriptor> sample = new ArrayList<>();
+                final Iterator<AmplificationDescriptor> amplification = amplifier.describe(testMethod, 0).iterator();
+                for (int index = 0; amplification.hasNext(); index++) {
+                    final AmplificationDescriptor descriptor = amplification.next();
+                    if (index < budget) {
+                        sample.add(descriptor);
+                    } else {
+                        final int replaced = AmplificationHelper.getRandom().nextInt(index + 1);
+                        if (replaced < budget) {
+                            sample.set(replaced, descriptor).discard();
+                        } else {
+                            descriptor.discard();
+                        }
+                    }
+                }
+                Collections.shuffle(sample, AmplificationHelper.getRandom());
+                amplifiedTestMethodPerAmplifierPerTestMethod.get(amplifier).put(testMethod,
+                        sample.stream().map(AmplificationDescriptor::materialize).collect(Collectors.toList())
+                );
             }
         }
         return amplifiedTestMethodPerAmplifierPerTestMethod;
@@ -0,0 +1,106 @@
+package eu.stamp_project.dspot.budget;
+
+import eu.stamp_project.utils.AmplificationHelper;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.code.CtLiteral;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.code.CtStatement;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.visitor.CtScanner;
+
+import java.util.Objects;
+
+/**
+ * A cheap feature vector of an amplified test method, computed with a single scan of its body, without printing it.
+ * <p>
+ * The features are: the kind of amplification, given by the suffix added to the name of its parent;
+ * the number of statements, invocations, literals and local variables;
+ * and two sketches of 64 bits, one of the literals and their positions, and one of the invoked methods and their positions.
+ * The distance between two test methods, see {@link #distanceTo(TestMethodFeatures)},
+ * counts the bits that differ in the sketches, e.g. a mutated literal or an added invocation.
+ */
+class TestMethodFeatures {
+
+    // the weight of a different kind of amplification in the distance
+    private static final int WEIGHT_OF_KIND = 4;
+
+    final CtMethod<?> testMethod;
+
+    private final String kind;
+
+    private int numberOfStatements;
+
+    private int numberOfInvocations;
+
+    private int numberOfLiterals;
+
+    private int numberOfLocalVariables;
+
+    private long literalSketch;
+
+    private long invocationSketch;
+
+    TestMethodFeatures(CtMethod<?> testMethod) {
+        this.testMethod = testMethod;
+        this.kind = kindOf(testMethod);
+        new CtScanner() {
+            @Override
+            public void scan(CtElement element) {
+                if (element != null) {
+                    features(element);
+                }
+                super.scan(element);
+            }
+        }.scan(testMethod.getBody());
+    }
+
+    private void features(CtElement element) {
+        if (element instanceof CtStatement) {
+            this.numberOfStatements++;
+        }
+        if (element instanceof CtInvocation) {
+            final CtInvocation<?> invocation = (CtInvocation<?>) element;
+            this.invocationSketch |= bit(this.numberOfInvocations, invocation.getExecutable().getSimpleName());
+            this.numberOfInvocations++;
+        } else if (element instanceof CtLiteral) {
+            this.literalSketch |= bit(this.numberOfLiterals, ((CtLiteral<?>) element).getValue());
+            this.numberOfLiterals++;
+        } else if (element instanceof CtLocalVariable) {
+            this.numberOfLocalVariables++;
+        }
+    }
+
+    // one bit of a sketch, for the given value at the given position
+    private static long bit(int position, Object value) {
+        final int hash = 31 * position + Objects.hashCode(value);
+        return 1L << ((hash ^ (hash >>> 16)) & 63);
+    }
+
+    // the suffix added to the name of the parent, without the number of the clone, e.g. "_literalMutationString"
+    private static String kindOf(CtMethod<?> testMethod) {
+        final CtMethod<?> parent = AmplificationHelper.ampTestToParent.get(testMethod);
+        final String name = testMethod.getSimpleName();
+        if (parent == null || !name.startsWith(parent.getSimpleName())) {
+            return "";
+        }
+        int end = name.length();
+        while (end > parent.getSimpleName().length() && Character.isDigit(name.charAt(end - 1))) {
+            end--;
+        }
+        return name.substring(parent.getSimpleName().length(), end);
+    }
+
+    /**
+     * @return the distance between the features of two test methods, 0 if their features are the same
+     */
+    int distanceTo(TestMethodFeatures other) {
+        return (this.kind.equals(other.kind) ? 0 : WEIGHT_OF_KIND) +
+                Math.abs(this.numberOfStatements - other.numberOfStatements) +
+                Math.abs(this.numberOfInvocations - other.numberOfInvocations) +
+                Math.abs(this.numberOfLiterals - other.numberOfLiterals) +
+                Math.abs(this.numberOfLocalVariables - other.numberOfLocalVariables) +
+                Long.bitCount(this.literalSketch ^ other.literalSketch) +
+                Long.bitCount(this.invocationSketch ^ other.invocationSketch);
+    }
+}
@@ -1,5 +1,8 @@
 package eu.stamp_project.dspot.selector;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
 import eu.stamp_project.minimization.ChangeMinimizer;
 import eu.stamp_project.minimization.Minimizer;
 import eu.stamp_project.program.InputConfiguration;
@@ -135,6 +138,25 @@ public class ChangeDetectorSelector implements TestSelector {
         this.currentClassTestToBeAmplified = null;
     }
 
+    @Override
+    public JsonElement getStateOfSelection() {
+        final Map<String, Failure> failurePerName = new HashMap<>();
+        this.failurePerAmplifiedTest.forEach((amplifiedTest, failure) ->
+                failurePerName.put(amplifiedTest.getSimpleName(), failure)
+        );
+        return new Gson().toJsonTree(failurePerName);
+    }
+
+    @Override
+    public void restoreSelection(List<CtMethod<?>> amplifiedTestCases, JsonElement stateOfSelection, Map<String, CtMethod<?>> amplifiedTestsByName) {
+        final Map<String, Failure> failurePerName =
+                new Gson().fromJson(stateOfSelection, new TypeToken<Map<String, Failure>>(){}.getType());
+        this.failurePerAmplifiedTest.clear();
+        failurePerName.keySet().stream()
+                .filter(amplifiedTestsByName::containsKey)
+                .forEach(name -> this.failurePerAmplifiedTest.put(amplifiedTestsByName.get(name), failurePerName.get(name)));
+    }
+
     @Override
     public void report() {
         final String output = "======= REPORT =======" + AmplificationHelper.LINE_SEPARATOR +
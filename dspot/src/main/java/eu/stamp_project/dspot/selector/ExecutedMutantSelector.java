@@ -2,7 +2,9 @@ package eu.stamp_project.dspot.selector;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import eu.stamp_project.automaticbuilder.AutomaticBuilder;
+import eu.stamp_project.automaticbuilder.AutomaticBuilderLock;
 import eu.stamp_project.dspot.selector.json.mutant.MutantJSON;
 import eu.stamp_project.dspot.selector.json.mutant.TestCaseJSON;
 import eu.stamp_project.dspot.selector.json.mutant.TestClassJSON;
@@ -61,13 +63,18 @@ public class ExecutedMutantSelector extends TakeAllSelector {
         if (this.originalMutantExecuted == null) {
             LOGGER.info("Computing executed mutants by the original test suite...");
             final AutomaticBuilder automaticBuilder = InputConfiguration.get().getBuilder();
-            automaticBuilder.runPit(this.configuration.getAbsolutePathToProjectRoot());
-            this.originalMutantExecuted =
-                    PitResultParser.parseAndDelete(
-                            this.configuration.getAbsolutePathToProjectRoot() + automaticBuilder.getOutputDirectoryPit()
-                    ).stream().filter(pitResult -> pitResult.getStateOfMutant() == PitResult.State.KILLED ||
-                            pitResult.getStateOfMutant() == PitResult.State.SURVIVED)
-                            .collect(Collectors.toList());
+            final AutomaticBuilderLock lock = AutomaticBuilderLock.lock(this.configuration.getAbsolutePathToProjectRoot());
+            try {
+                automaticBuilder.runPit(this.configuration.getAbsolutePathToProjectRoot());
+                this.originalMutantExecuted =
+                        PitResultParser.parseAndDelete(
+                                this.configuration.getAbsolutePathToProjectRoot() + automaticBuilder.getOutputDirectoryPit()
+                        ).stream().filter(pitResult -> pitResult.getStateOfMutant() == PitResult.State.KILLED ||
+                                pitResult.getStateOfMutant() == PitResult.State.SURVIVED)
+                                .collect(Collectors.toList());
+            } finally {
+                lock.close();
+            }
         }
     }
 
@@ -107,10 +114,16 @@ public class ExecutedMutantSelector extends TakeAllSelector {
         DSpotCompiler.compile(configuration, DSpotCompiler.PATH_TO_AMPLIFIED_TEST_SRC, classpath,
                 new File(this.configuration.getAbsolutePathToTestClasses()));
 
-        InputConfiguration.get().getBuilder()
-                .runPit(this.configuration.getAbsolutePathToProjectRoot(), clone);
-        final List<PitResult> pitResults = PitResultParser.parseAndDelete(this.configuration.getAbsolutePathToProjectRoot() +
-                InputConfiguration.get().getBuilder().getOutputDirectoryPit());
+        final List<PitResult> pitResults;
+        final AutomaticBuilderLock lock = AutomaticBuilderLock.lock(this.configuration.getAbsolutePathToProjectRoot());
+        try {
+            InputConfiguration.get().getBuilder()
+                    .runPit(this.configuration.getAbsolutePathToProjectRoot(), clone);
+            pitResults = PitResultParser.parseAndDelete(this.configuration.getAbsolutePathToProjectRoot() +
+                    InputConfiguration.get().getBuilder().getOutputDirectoryPit());
+        } finally {
+            lock.close();
+        }
         final int numberOfSelectedAmplifiedTest = pitResults.stream()
                 .filter(pitResult -> pitResult.getStateOfMutant() == PitResult.State.KILLED ||
                         pitResult.getStateOfMutant() == PitResult.State.SURVIVED)
@@ -234,4 +247,16 @@ public class ExecutedMutantSelector extends TakeAllSelector {
                 ).count();
     }
 
+
+    @Override
+    public JsonElement getStateOfSelection() {
+        return PitMutantScoreSelector.toJsonByName(this.mutantExecutedPerAmplifiedTestMethod);
+    }
+
+    @Override
+    public void restoreSelection(List<CtMethod<?>> amplifiedTestCases, JsonElement stateOfSelection, Map<String, CtMethod<?>> amplifiedTestsByName) {
+        super.restoreSelection(amplifiedTestCases, stateOfSelection, amplifiedTestsByName);
+        this.mutantExecutedPerAmplifiedTestMethod.clear();
+        this.mutantExecutedPerAmplifiedTestMethod.putAll(PitMutantScoreSelector.fromJsonByName(stateOfSelection, amplifiedTestsByName));
+    }
 }
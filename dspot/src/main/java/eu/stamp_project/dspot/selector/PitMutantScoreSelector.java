@@ -2,7 +2,10 @@ package eu.stamp_project.dspot.selector;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
 import eu.stamp_project.automaticbuilder.AutomaticBuilder;
+import eu.stamp_project.automaticbuilder.AutomaticBuilderLock;
 import eu.stamp_project.utils.compilation.DSpotCompiler;
 import eu.stamp_project.utils.AmplificationChecker;
 import eu.stamp_project.utils.AmplificationHelper;
@@ -10,6 +13,7 @@ import eu.stamp_project.dspot.selector.json.mutant.MutantJSON;
 import eu.stamp_project.dspot.selector.json.mutant.TestCaseJSON;
 import eu.stamp_project.dspot.selector.json.mutant.TestClassJSON;
 import eu.stamp_project.utils.Counter;
+import eu.stamp_project.mutant.pit.PitEngine;
 import eu.stamp_project.mutant.pit.PitResult;
 import eu.stamp_project.mutant.pit.PitResultParser;
 import eu.stamp_project.utils.DSpotUtils;
@@ -42,6 +46,13 @@ public class PitMutantScoreSelector extends TakeAllSelector {
 
     private List<PitResult> mutantNotTestedByOriginal;
 
+    // the classes that have mutants not killed by the original test suite, i.e. the only ones that the amplified tests can improve
+    private Set<String> classesWithLiveMutants;
+
+    private int numberOfMutantOfClassesWithLiveMutants;
+
+    private PitEngine pitEngine;
+
     public PitMutantScoreSelector() {
         this.testThatKilledMutants = new HashMap<>();
     }
@@ -61,10 +72,23 @@ public class PitMutantScoreSelector extends TakeAllSelector {
             pitVersion = "1.4.0";
         }
         */
+        if (configuration.isInProcessPit() && this.pitEngine == null) {
+            this.pitEngine = new PitEngine(configuration);
+        }
         if (this.originalKilledMutants == null) {
-            final AutomaticBuilder automaticBuilder = InputConfiguration.get().getBuilder();
-            automaticBuilder.runPit(this.configuration.getAbsolutePathToProjectRoot());
-            initOriginalPitResult(PitResultParser.parseAndDelete(this.configuration.getAbsolutePathToProjectRoot() + automaticBuilder.getOutputDirectoryPit()) );
+            final AutomaticBuilderLock lock = AutomaticBuilderLock.lock(this.configuration.getAbsolutePathToProjectRoot());
+            try {
+                if (this.pitEngine != null) {
+                    this.pitEngine.runPit();
+                    initOriginalPitResult(PitResultParser.parseAndDelete(this.configuration.getAbsolutePathToProjectRoot() + this.pitEngine.getOutputDirectoryPit()));
+                } else {
+                    final AutomaticBuilder automaticBuilder = InputConfiguration.get().getBuilder();
+                    automaticBuilder.runPit(this.configuration.getAbsolutePathToProjectRoot());
+                    initOriginalPitResult(PitResultParser.parseAndDelete(this.configuration.getAbsolutePathToProjectRoot() + automaticBuilder.getOutputDirectoryPit()));
+                }
+            } finally {
+                lock.close();
+            }
         }
     }
 
@@ -78,6 +102,14 @@ public class PitMutantScoreSelector extends TakeAllSelector {
         this.originalKilledMutants = results.stream()
                 .filter(result -> result.getStateOfMutant() == PitResult.State.KILLED)
                 .collect(Collectors.toList());
+        this.classesWithLiveMutants = results.stream()
+                .filter(result -> result.getStateOfMutant() == PitResult.State.SURVIVED ||
+                        result.getStateOfMutant() == PitResult.State.NO_COVERAGE)
+                .map(PitResult::getFullQualifiedNameOfMutatedClass)
+                .collect(Collectors.toSet());
+        this.numberOfMutantOfClassesWithLiveMutants = (int) results.stream()
+                .filter(result -> this.classesWithLiveMutants.contains(result.getFullQualifiedNameOfMutatedClass()))
+                .count();
         LOGGER.info("The original test suite kill {} / {}", this.originalKilledMutants.size(), results.size());
     }
 
@@ -114,13 +146,40 @@ public class PitMutantScoreSelector extends TakeAllSelector {
         DSpotCompiler.compile(this.configuration, DSpotCompiler.PATH_TO_AMPLIFIED_TEST_SRC, classpath,
                 new File(this.configuration.getAbsolutePathToTestClasses()));
 
-        InputConfiguration.get().getBuilder().runPit(this.configuration.getAbsolutePathToProjectRoot(), clone);
-        final List<PitResult> results = PitResultParser.parseAndDelete(this.configuration.getAbsolutePathToProjectRoot() + automaticBuilder.getOutputDirectoryPit());
+        final List<PitResult> results;
+        final int expectedNumberOfMutant;
+        if (this.pitEngine != null) {
+            /*
+                The in-process engine mutates only the classes that have mutants not killed by the original test suite,
+                since only these mutants can be newly killed by the amplified tests.
+             */
+            expectedNumberOfMutant = this.numberOfMutantOfClassesWithLiveMutants;
+            if (this.classesWithLiveMutants.isEmpty()) {
+                results = Collections.emptyList();
+            } else {
+                final AutomaticBuilderLock lock = AutomaticBuilderLock.lock(this.configuration.getAbsolutePathToProjectRoot());
+                try {
+                    this.pitEngine.runPit(Collections.singletonList(clone.getQualifiedName()), this.classesWithLiveMutants);
+                    results = PitResultParser.parseAndDelete(this.configuration.getAbsolutePathToProjectRoot() + this.pitEngine.getOutputDirectoryPit());
+                } finally {
+                    lock.close();
+                }
+            }
+        } else {
+            expectedNumberOfMutant = this.numberOfMutant;
+            final AutomaticBuilderLock lock = AutomaticBuilderLock.lock(this.configuration.getAbsolutePathToProjectRoot());
+            try {
+                InputConfiguration.get().getBuilder().runPit(this.configuration.getAbsolutePathToProjectRoot(), clone);
+                results = PitResultParser.parseAndDelete(this.configuration.getAbsolutePathToProjectRoot() + automaticBuilder.getOutputDirectoryPit());
+            } finally {
+                lock.close();
+            }
+        }
 
         Set<CtMethod<?>> selectedTests = new HashSet<>();
         if (results != null) {
-            LOGGER.info("{} mutants has been generated ({})", results.size(), this.numberOfMutant);
-            if (results.size() != this.numberOfMutant) {
+            LOGGER.info("{} mutants has been generated ({})", results.size(), expectedNumberOfMutant);
+            if (results.size() != expectedNumberOfMutant) {
                 LOGGER.warn("Number of generated mutant is different than the original one.");
             }
             results.stream()
@@ -278,4 +337,39 @@ public class PitMutantScoreSelector extends TakeAllSelector {
     public Minimizer getMinimizer() {
         return new PitMutantMinimizer(this.currentClassTestToBeAmplified, this.configuration, this.testThatKilledMutants);
     }
+
+    @Override
+    public JsonElement getStateOfSelection() {
+        return toJsonByName(this.testThatKilledMutants);
+    }
+
+    @Override
+    public void restoreSelection(List<CtMethod<?>> amplifiedTestCases, JsonElement stateOfSelection, Map<String, CtMethod<?>> amplifiedTestsByName) {
+        super.restoreSelection(amplifiedTestCases, stateOfSelection, amplifiedTestsByName);
+        this.testThatKilledMutants.clear();
+        this.testThatKilledMutants.putAll(fromJsonByName(stateOfSelection, amplifiedTestsByName));
+    }
+
+    // the test methods are saved by name, and the name "none" is used for the mutants killed by an unknown test method, as in the reports of PIT
+    static JsonElement toJsonByName(Map<? extends CtMethod, Set<PitResult>> mutantsPerTestMethod) {
+        final Map<String, Set<PitResult>> mutantsPerName = new HashMap<>();
+        mutantsPerTestMethod.forEach((testMethod, mutants) ->
+                mutantsPerName.put(testMethod == null ? "none" : testMethod.getSimpleName(), mutants)
+        );
+        return new Gson().toJsonTree(mutantsPerName);
+    }
+
+    static Map<CtMethod<?>, Set<PitResult>> fromJsonByName(JsonElement json, Map<String, CtMethod<?>> testMethodsByName) {
+        final Map<String, Set<PitResult>> mutantsPerName =
+                new Gson().fromJson(json, new TypeToken<Map<String, Set<PitResult>>>(){}.getType());
+        final Map<CtMethod<?>, Set<PitResult>> mutantsPerTestMethod = new HashMap<>();
+        mutantsPerName.forEach((name, mutants) -> {
+            if ("none".equals(name)) {
+                mutantsPerTestMethod.put(null, mutants);
+            } else if (testMethodsByName.containsKey(name)) {
+                mutantsPerTestMethod.put(testMethodsByName.get(name), mutants);
+            }
+        });
+        return mutantsPerTestMethod;
+    }
 }
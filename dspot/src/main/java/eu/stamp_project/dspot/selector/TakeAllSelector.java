@@ -1,5 +1,7 @@
 package eu.stamp_project.dspot.selector;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
 import eu.stamp_project.program.InputConfiguration;
 import eu.stamp_project.minimization.GeneralMinimizer;
 import eu.stamp_project.minimization.Minimizer;
@@ -8,6 +10,7 @@ import spoon.reflect.declaration.CtType;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by Benjamin DANGLOT
@@ -65,4 +68,15 @@ public class TakeAllSelector implements TestSelector {
 	public Minimizer getMinimizer() {
 		return new GeneralMinimizer();
 	}
+
+	@Override
+	public JsonElement getStateOfSelection() {
+		return JsonNull.INSTANCE;
+	}
+
+	@Override
+	public void restoreSelection(List<CtMethod<?>> amplifiedTestCases, JsonElement stateOfSelection, Map<String, CtMethod<?>> amplifiedTestsByName) {
+		this.selectedAmplifiedTest.clear();
+		this.selectedAmplifiedTest.addAll(amplifiedTestCases);
+	}
 }
@@ -1,10 +1,12 @@
 package eu.stamp_project.dspot.selector;
 
+import com.google.gson.JsonElement;
 import eu.stamp_project.program.InputConfiguration;
 import eu.stamp_project.minimization.Minimizer;
 import spoon.reflect.declaration.CtMethod;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by Benjamin DANGLOT
@@ -37,4 +39,20 @@ public interface TestSelector {
 
     Minimizer getMinimizer();
 
+    /**
+     * This method returns the state of the selection of the current test class, that is saved in a checkpoint, see {@link eu.stamp_project.dspot.Checkpoint}.
+     * The amplified test methods returned by {@link #getAmplifiedTestCases()} are saved apart: they must not be part of the state.
+     * @return the state of the selection, e.g. the mutants killed by each amplified test method
+     */
+    JsonElement getStateOfSelection();
+
+    /**
+     * This method restores the selection of the current test class from a checkpoint, see {@link eu.stamp_project.dspot.Checkpoint}.
+     * Contract: it is called after {@link #selectToAmplify(List)} on the original test methods of the test class.
+     * @param amplifiedTestCases the amplified test methods that had been selected to be kept before the checkpoint
+     * @param stateOfSelection the state returned by {@link #getStateOfSelection()} before the checkpoint
+     * @param amplifiedTestsByName the amplified test methods restored from the checkpoint, by name
+     */
+    void restoreSelection(List<CtMethod<?>> amplifiedTestCases, JsonElement stateOfSelection, Map<String, CtMethod<?>> amplifiedTestsByName);
+
 }
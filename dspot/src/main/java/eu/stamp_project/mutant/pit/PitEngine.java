@@ -0,0 +1,204 @@
+package eu.stamp_project.mutant.pit;
+
+import eu.stamp_project.program.InputConfiguration;
+import eu.stamp_project.utils.AmplificationHelper;
+import eu.stamp_project.mutationtest.descartes.DescartesEngineFactory;
+import org.apache.commons.io.FileUtils;
+import org.pitest.boot.HotSwapAgent;
+import org.pitest.functional.predicate.Predicate;
+import org.pitest.mutationtest.config.PluginServices;
+import org.pitest.mutationtest.config.ReportOptions;
+import org.pitest.mutationtest.tooling.AnalysisResult;
+import org.pitest.mutationtest.tooling.EntryPoint;
+import org.pitest.testapi.TestGroupConfig;
+import org.pitest.util.Glob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs PIT through its API, inside the JVM of DSpot, instead of invoking the build tool of the project,
+ * see {@link eu.stamp_project.automaticbuilder.AutomaticBuilder#runPit(String, spoon.reflect.declaration.CtType[])}.
+ * <p>
+ * There is no Maven or Gradle build, no modification of the pom, and no resolution of the plugins:
+ * the classpath of the project is known by DSpot, and PIT and Descartes are dependencies of DSpot.
+ * PIT still runs the tests in its own minion processes.
+ * <p>
+ * The engine lives as long as the selector. It keeps the plugins of PIT, and a history file shared by all its runs,
+ * so that PIT does not analyse again the mutants whose class and covering tests did not change since a previous run.
+ * Each run can be restricted to the given test classes and to the given mutated classes,
+ * <i>e.g.</i> the amplified test class against the classes that still have live mutants.
+ * <p>
+ * The report is written as CSV in the same directory as PIT run by the build tool, see {@link #getOutputDirectoryPit()},
+ * so that it is read by {@link PitResultParser#parseAndDelete(String)}.
+ */
+public class PitEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PitEngine.class);
+
+    private static final long TIMEOUT_CONSTANT = 10000L;
+
+    private static final List<String> LOGGING_CLASSES = Arrays.asList(
+            "java.util.logging",
+            "org.apache.log4j",
+            "org.slf4j",
+            "org.apache.commons.logging"
+    );
+
+    // PIT and Descartes are not dependencies of the project: their jars are added to its classpath, as the Maven plugin does with its own dependencies.
+    // Descartes depends only on PIT, and the minions find JUnit in the dependencies of the project.
+    private static final List<String> CLASSPATH_OF_PIT = Stream.of(HotSwapAgent.class, EntryPoint.class, DescartesEngineFactory.class)
+            .map(PitEngine::getLocationOf)
+            .distinct()
+            .collect(Collectors.toList());
+
+    private static String getLocationOf(Class<?> clazz) {
+        try {
+            return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private final InputConfiguration configuration;
+
+    private final PluginServices plugins;
+
+    private final File history;
+
+    public PitEngine(InputConfiguration configuration) {
+        this.configuration = configuration;
+        this.plugins = PluginServices.makeForContextLoader();
+        try {
+            this.history = File.createTempFile("pit-history", ".txt");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        // PIT creates the history at the end of the first run
+        this.history.delete();
+        this.history.deleteOnExit();
+    }
+
+    /**
+     * Runs PIT on all the test classes that match the filter.
+     */
+    public void runPit() {
+        this.runPit(Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * @param testClasses    the qualified names of the test classes to be run. Empty means all the test classes that match the filter.
+     * @param mutatedClasses the qualified names of the classes to be mutated. Empty means all the classes that match the filter.
+     */
+    public void runPit(Collection<String> testClasses, Collection<String> mutatedClasses) {
+        final File outputDirectory = new File(this.configuration.getAbsolutePathToProjectRoot() + this.getOutputDirectoryPit());
+        try {
+            FileUtils.deleteDirectory(outputDirectory);
+        } catch (Exception ignored) {
+
+        }
+        final ReportOptions options = this.buildReportOptions(outputDirectory, testClasses, mutatedClasses);
+        LOGGER.info("run PIT in process on {}", testClasses.isEmpty() ? "all the test classes" : String.join(",", testClasses));
+        final AnalysisResult result = new EntryPoint().execute(
+                new File(this.configuration.getAbsolutePathToProjectRoot()),
+                options,
+                this.plugins,
+                Collections.emptyMap()
+        );
+        if (result.getError().hasSome()) {
+            throw new RuntimeException(result.getError().value());
+        }
+    }
+
+    /**
+     * @return the directory of the reports, relative to the root of the project
+     */
+    public String getOutputDirectoryPit() {
+        return MavenPitCommandAndOptions.OUTPUT_DIRECTORY_PIT;
+    }
+
+    /*
+        The classpath of the minions is the classpath of the project only, i.e. its classes, test classes and dependencies,
+        the dependencies added by DSpot, e.g. the compare package, and the jars of PIT and Descartes.
+        The classpath of DSpot is not included: its dependencies would shadow the ones of the project.
+     */
+    private ReportOptions buildReportOptions(File outputDirectory, Collection<String> testClasses, Collection<String> mutatedClasses) {
+        final ReportOptions options = new ReportOptions();
+        final List<String> classpath = new ArrayList<>(Arrays.asList(
+                this.configuration.getFullClassPathWithExtraDependencies().split(AmplificationHelper.PATH_SEPARATOR)
+        ));
+        if (this.configuration.getAdditionalClasspathElements() != null &&
+                !this.configuration.getAdditionalClasspathElements().isEmpty()) {
+            classpath.addAll(Arrays.asList(
+                    this.configuration.getProcessedAddtionalClasspathElements().split(AmplificationHelper.PATH_SEPARATOR)
+            ));
+        }
+        classpath.addAll(CLASSPATH_OF_PIT);
+        classpath.removeIf(String::isEmpty);
+        options.setClassPathElements(classpath);
+        // only the classes of the program are mutated, not the tests nor the dependencies
+        options.setCodePaths(Collections.singletonList(new File(this.configuration.getAbsolutePathToClasses()).getAbsolutePath()));
+        options.setSourceDirs(Collections.singletonList(new File(this.configuration.getAbsolutePathToSourceCode())));
+
+        final Collection<Predicate<String>> filter = this.getFilter();
+        options.setTargetClasses(mutatedClasses.isEmpty() ? filter : Glob.toGlobPredicates(mutatedClasses));
+        options.setTargetTests(testClasses.isEmpty() ? filter : Glob.toGlobPredicates(testClasses));
+        if (this.configuration.getExcludedClasses() != null && !this.configuration.getExcludedClasses().isEmpty()) {
+            options.setExcludedClasses(Glob.toGlobPredicates(Arrays.asList(this.configuration.getExcludedClasses().split(","))));
+        }
+
+        if (this.configuration.isDescartesMode()) {
+            options.setMutationEngine("descartes");
+            options.setMutators(Arrays.asList(MavenPitCommandAndOptions.VALUE_MUTATORS_DESCARTES));
+        } else {
+            options.setMutationEngine("gregor");
+            options.setMutators(Collections.singletonList(MavenPitCommandAndOptions.VALUE_MUTATORS_ALL));
+        }
+
+        options.setReportDir(outputDirectory.getAbsolutePath());
+        options.addOutputFormats(Collections.singletonList("CSV"));
+        options.setShouldCreateTimestampedReports(true);
+        options.setHistoryInputLocation(this.history);
+        options.setHistoryOutputLocation(this.history);
+
+        options.setTimeoutConstant(TIMEOUT_CONSTANT);
+        options.addChildJVMArgs(this.getJVMArgs());
+        options.setNumberOfThreads(1);
+        options.setDependencyAnalysisMaxDistance(-1);
+        options.setGroupConfig(new TestGroupConfig(Collections.emptyList(), Collections.emptyList()));
+        options.setLoggingClasses(LOGGING_CLASSES);
+        options.setIncludeLaunchClasspath(false);
+        options.setFailWhenNoMutations(false);
+        options.setVerbose(this.configuration.isVerbose());
+        return options;
+    }
+
+    private Collection<Predicate<String>> getFilter() {
+        if (this.configuration.getFilter() == null || this.configuration.getFilter().isEmpty()) {
+            LOGGER.warn("You gave an empty filter. To use PIT, it is recommend to specify a filter, at least, the top package of your program, otherwise, PIT may take a long time or could not be run.");
+            return Glob.toGlobPredicates(Collections.singletonList("*"));
+        }
+        return Glob.toGlobPredicates(Arrays.asList(this.configuration.getFilter().split(",")));
+    }
+
+    // the JVM args are given as in the properties, e.g. ['-Xmx2048m','-Xms1024m']
+    private List<String> getJVMArgs() {
+        if (this.configuration.getJVMArgs() == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(this.configuration.getJVMArgs().replaceAll("[\\[\\]']", "").split(","))
+                .map(String::trim)
+                .filter(jvmArg -> !jvmArg.isEmpty())
+                .collect(Collectors.toList());
+    }
+}
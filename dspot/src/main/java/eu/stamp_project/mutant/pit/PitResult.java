@@ -28,7 +28,7 @@ public class PitResult {
 
     private final String simpleNameMethod;
 
-    private CtMethod testCase = null;
+    private transient CtMethod testCase = null;
 
     public PitResult(String fullQualifiedNameOfMutatedClass, State stateOfMutant,
                      String fullQualifiedNameMutantOperator,
@@ -49,6 +49,10 @@ public class PitResult {
         return stateOfMutant;
     }
 
+    public String getFullQualifiedNameOfMutatedClass() {
+        return fullQualifiedNameOfMutatedClass;
+    }
+
     public String getFullQualifiedNameMutantOperator() {
         return fullQualifiedNameMutantOperator;
     }
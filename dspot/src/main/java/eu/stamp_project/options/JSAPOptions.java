@@ -31,6 +31,15 @@ public class JSAPOptions {
     public static final JSAP options = initJSAP();
 
     public static InputConfiguration parse(String[] args) {
+        return parse(args, true);
+    }
+
+    /**
+     * @param args          the command line arguments of DSpot
+     * @param shouldCompile if false, the project is not compiled, see {@link InputConfiguration#initialize(String, boolean)}
+     * @return the configuration built from the given arguments, or null if DSpot should run the example
+     */
+    public static InputConfiguration parse(String[] args, boolean shouldCompile) {
         JSAPResult jsapConfig = options.parse(args);
         if (!jsapConfig.success() || jsapConfig.getBoolean("help")) {
             System.err.println();
@@ -57,7 +66,7 @@ public class JSAPOptions {
         }
         final List<String> testClasses = Arrays.asList(jsapConfig.getStringArray("test"));
         final List<String> testCases = Arrays.asList(jsapConfig.getStringArray("testCases"));
-        return InputConfiguration.initialize(jsapConfig.getString("path"))
+        return InputConfiguration.initialize(jsapConfig.getString("path"), shouldCompile)
                 .setAmplifiers(AmplifierEnum.buildAmplifiersFromString(jsapConfig.getStringArray("amplifiers")))
                 .setNbIteration(jsapConfig.getInt("iteration"))
                 .setTestClasses(testClasses)
@@ -73,6 +82,21 @@ public class JSAPOptions {
                 .setVerbose(jsapConfig.getBoolean("verbose"))
                 .setUseWorkingDirectory(jsapConfig.getBoolean("working-directory"))
                 .setWithComment(jsapConfig.getBoolean("comment"))
+                .setCompileInMemory(jsapConfig.getBoolean("in-memory-compilation"))
+                .setTestRunnerPoolSize(jsapConfig.getInt("testRunnerPoolSize"))
+                .setNbParallelClasses(jsapConfig.getInt("parallelClasses"))
+                .setPipelineCapacity(jsapConfig.getInt("pipelineCapacity"))
+                .setResume(jsapConfig.getBoolean("resume"))
+                .setCombineObservationRuns(jsapConfig.getBoolean("combine-observation-runs"))
+                .setMaxObservationDepth(jsapConfig.getInt("maxObservationDepth"))
+                .setMaxObservedGettersPerType(jsapConfig.getInt("maxObservedGettersPerType"))
+                .setMaxObservationsPerTest(jsapConfig.getInt("maxObservationsPerTest"))
+                .setObservedTypes(jsapConfig.getString("observedTypes", ""))
+                .setExcludedObservedTypes(jsapConfig.getString("excludedObservedTypes", ""))
+                .setInProcessAssertionRun(jsapConfig.getBoolean("in-process-assertion-run"))
+                .setInProcessTimeOutInMs(jsapConfig.getInt("inProcessTimeOut"))
+                .setPathToSpoonModelCache(jsapConfig.getString("spoonModelCache", ""))
+                .setInProcessPit(jsapConfig.getBoolean("in-process-pit"))
                 .setDescartesMode(jsapConfig.getBoolean("descartes"));
     }
 
@@ -225,6 +249,98 @@ public class JSAPOptions {
         withComment.setDefault("false");
         withComment.setHelp("Enable comment on amplified test: details steps of the Amplification.");
 
+        Switch inMemoryCompilation = new Switch("in-memory-compilation");
+        inMemoryCompilation.setLongFlag("in-memory-compilation");
+        inMemoryCompilation.setDefault("false");
+        inMemoryCompilation.setHelp("Enable the compilation of amplified test classes in memory, instead of printing them on the disk before compiling them.");
+
+        FlaggedOption testRunnerPoolSize = new FlaggedOption("testRunnerPoolSize");
+        testRunnerPoolSize.setStringParser(JSAP.INTEGER_PARSER);
+        testRunnerPoolSize.setLongFlag("test-runner-pool-size");
+        testRunnerPoolSize.setUsageName("integer");
+        testRunnerPoolSize.setHelp("[optional] specify the number of long-lived JVMs used to run the tests. With 0, a new JVM is forked for each run.");
+        testRunnerPoolSize.setDefault("0");
+
+        FlaggedOption parallelClasses = new FlaggedOption("parallelClasses");
+        parallelClasses.setStringParser(JSAP.INTEGER_PARSER);
+        parallelClasses.setLongFlag("parallel-classes");
+        parallelClasses.setUsageName("integer");
+        parallelClasses.setHelp("[optional] specify the number of processes of DSpot that amplify different test classes in parallel. With 0 or 1, the test classes are amplified one after the other. Only available from the command line.");
+        parallelClasses.setDefault("0");
+
+        FlaggedOption pipelineCapacity = new FlaggedOption("pipelineCapacity");
+        pipelineCapacity.setStringParser(JSAP.INTEGER_PARSER);
+        pipelineCapacity.setLongFlag("pipeline-capacity");
+        pipelineCapacity.setUsageName("integer");
+        pipelineCapacity.setHelp("[optional] specify the number of test methods whose iterations are amplified at the same time. With more than 1, the input amplification of a test method overlaps the execution of the tests of another one, and the amplification is no longer reproducible with the same seed.");
+        pipelineCapacity.setDefault("1");
+
+        Switch resume = new Switch("resume");
+        resume.setLongFlag("resume");
+        resume.setDefault("false");
+        resume.setHelp("[optional] if enabled, DSpot resumes an interrupted run: the test classes already amplified in the output directory are skipped, and the amplification of a test class restarts at its last saved iteration. The output directory is not cleaned. (default: off)");
+
+        Switch combineObservationRuns = new Switch("combine-observation-runs");
+        combineObservationRuns.setLongFlag("combine-observation-runs");
+        combineObservationRuns.setDefault("false");
+        combineObservationRuns.setHelp("[optional] if enabled, the assertion amplification runs the instrumented tests once, to know which ones pass and to observe their values at the same time. Each test method is repeated in the same JVM to detect non-deterministic values. (default: off)");
+
+        FlaggedOption maxObservationDepth = new FlaggedOption("maxObservationDepth");
+        maxObservationDepth.setStringParser(JSAP.INTEGER_PARSER);
+        maxObservationDepth.setLongFlag("max-observation-depth");
+        maxObservationDepth.setUsageName("integer");
+        maxObservationDepth.setHelp("[optional] specify the maximum depth of the getters invoked from an observed object, during the assertion amplification.");
+        maxObservationDepth.setDefault("3");
+
+        FlaggedOption maxObservedGettersPerType = new FlaggedOption("maxObservedGettersPerType");
+        maxObservedGettersPerType.setStringParser(JSAP.INTEGER_PARSER);
+        maxObservedGettersPerType.setLongFlag("max-observed-getters-per-type");
+        maxObservedGettersPerType.setUsageName("integer");
+        maxObservedGettersPerType.setHelp("[optional] specify the maximum number of getters invoked on an observed object, per type, during the assertion amplification. With a negative value, there is no limit.");
+        maxObservedGettersPerType.setDefault("-1");
+
+        FlaggedOption maxObservationsPerTest = new FlaggedOption("maxObservationsPerTest");
+        maxObservationsPerTest.setStringParser(JSAP.INTEGER_PARSER);
+        maxObservationsPerTest.setLongFlag("max-observations-per-test");
+        maxObservationsPerTest.setUsageName("integer");
+        maxObservationsPerTest.setHelp("[optional] specify the maximum number of observations of a test method, during the assertion amplification. The observation stops once it is reached. With a negative value, there is no limit.");
+        maxObservationsPerTest.setDefault("-1");
+
+        FlaggedOption observedTypes = new FlaggedOption("observedTypes");
+        observedTypes.setStringParser(JSAP.STRING_PARSER);
+        observedTypes.setLongFlag("observed-types");
+        observedTypes.setUsageName("regex");
+        observedTypes.setHelp("[optional] specify a regex on the qualified names of the types whose getters are invoked during the assertion amplification. By default, all the types are observed.");
+
+        FlaggedOption excludedObservedTypes = new FlaggedOption("excludedObservedTypes");
+        excludedObservedTypes.setStringParser(JSAP.STRING_PARSER);
+        excludedObservedTypes.setLongFlag("excluded-observed-types");
+        excludedObservedTypes.setUsageName("regex");
+        excludedObservedTypes.setHelp("[optional] specify a regex on the qualified names of the types whose getters are not invoked during the assertion amplification.");
+
+        Switch inProcessAssertionRun = new Switch("in-process-assertion-run");
+        inProcessAssertionRun.setLongFlag("in-process-assertion-run");
+        inProcessAssertionRun.setDefault("false");
+        inProcessAssertionRun.setHelp("[optional] if enabled, the assertion amplification runs the instrumented tests inside the JVM of DSpot, in an isolated class loader, and reads the observations directly from memory. The tests must not depend on the working directory nor call System.exit(). (default: off)");
+
+        FlaggedOption inProcessTimeOut = new FlaggedOption("inProcessTimeOut");
+        inProcessTimeOut.setStringParser(JSAP.INTEGER_PARSER);
+        inProcessTimeOut.setLongFlag("in-process-time-out");
+        inProcessTimeOut.setUsageName("integer");
+        inProcessTimeOut.setHelp("[optional] specify the hard timeout in millisecond of a run inside the JVM of DSpot, after which the run and its class loader are abandoned. With a negative value, the timeout of the runs in another JVM is used.");
+        inProcessTimeOut.setDefault("-1");
+
+        FlaggedOption spoonModelCache = new FlaggedOption("spoonModelCache");
+        spoonModelCache.setStringParser(JSAP.STRING_PARSER);
+        spoonModelCache.setLongFlag("spoon-model-cache");
+        spoonModelCache.setUsageName("path");
+        spoonModelCache.setHelp("[optional] specify a directory in which the Spoon model of the program is cached between two runs of DSpot. The cached model is used as long as the content of the source files and the classpath do not change. By default, the model is not cached.");
+
+        Switch inProcessPit = new Switch("in-process-pit");
+        inProcessPit.setLongFlag("in-process-pit");
+        inProcessPit.setDefault("false");
+        inProcessPit.setHelp("[optional] if enabled, the PitMutantScoreSelector runs PIT through its API inside the JVM of DSpot, instead of invoking Maven or Gradle, and runs the amplified tests only against the classes that have live mutants. (default: off)");
+
         Switch descartes = new Switch("descartes");
         descartes.setLongFlag("descartes");
         descartes.setDefault("false");
@@ -259,6 +375,21 @@ public class JSAPOptions {
             jsap.registerParameter(timeOut);
             jsap.registerParameter(verbose);
             jsap.registerParameter(withComment);
+            jsap.registerParameter(inMemoryCompilation);
+            jsap.registerParameter(testRunnerPoolSize);
+            jsap.registerParameter(parallelClasses);
+            jsap.registerParameter(pipelineCapacity);
+            jsap.registerParameter(resume);
+            jsap.registerParameter(combineObservationRuns);
+            jsap.registerParameter(maxObservationDepth);
+            jsap.registerParameter(maxObservedGettersPerType);
+            jsap.registerParameter(maxObservationsPerTest);
+            jsap.registerParameter(observedTypes);
+            jsap.registerParameter(excludedObservedTypes);
+            jsap.registerParameter(inProcessAssertionRun);
+            jsap.registerParameter(inProcessTimeOut);
+            jsap.registerParameter(spoonModelCache);
+            jsap.registerParameter(inProcessPit);
             jsap.registerParameter(nominimize);
             jsap.registerParameter(useWorkingDirectory);
             jsap.registerParameter(example);
@@ -9,6 +9,7 @@ import eu.stamp_project.dspot.selector.TestSelector;
 import eu.stamp_project.testrunner.EntryPoint;
 import eu.stamp_project.utils.AmplificationHelper;
 import eu.stamp_project.utils.DSpotUtils;
+import eu.stamp_project.utils.compilation.DSpotCompiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spoon.reflect.factory.Factory;
@@ -37,7 +38,7 @@ public class InputConfiguration {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(InputConfiguration.class);
 
-    private static Properties loadProperties(String pathToPropertiesFile) {
+    public static Properties loadProperties(String pathToPropertiesFile) {
         try {
             Properties properties = new Properties();
             if (pathToPropertiesFile == null || "".equals(pathToPropertiesFile)) {
@@ -67,7 +68,19 @@ public class InputConfiguration {
      *
      */
     public static InputConfiguration initialize(String pathToPropertiesFile) {
-        InputConfiguration.initialize(loadProperties(pathToPropertiesFile));
+        return InputConfiguration.initialize(pathToPropertiesFile, true);
+    }
+
+    /**
+     * Same as {@link InputConfiguration#initialize(String)}
+     *
+     * @param pathToPropertiesFile the path to the properties file. It is recommended to use an absolute path.
+     * @param shouldCompile        if false, the project is not compiled, and its classpath is the one built by a previous run of the automatic builder,
+     *                             e.g. by the process of DSpot that started this one, see {@link eu.stamp_project.dspot.ParallelDSpot}
+     * @return the new instance of the InputConfiguration
+     */
+    public static InputConfiguration initialize(String pathToPropertiesFile, boolean shouldCompile) {
+        InputConfiguration.initialize(loadProperties(pathToPropertiesFile), shouldCompile);
         InputConfiguration.instance.configPath = pathToPropertiesFile;
         return InputConfiguration.instance;
     }
@@ -93,12 +106,23 @@ public class InputConfiguration {
      *
      */
     public static InputConfiguration initialize(Properties properties) {
+        return InputConfiguration.initialize(properties, true);
+    }
+
+    /**
+     * Same as {@link InputConfiguration#initialize(Properties)}
+     *
+     * @param properties    the properties. See {@link ConstantsProperties}
+     * @param shouldCompile if false, the project is not compiled, and its classpath is the one built by a previous run of the automatic builder
+     * @return the new instance of the InputConfiguration
+     */
+    public static InputConfiguration initialize(Properties properties, boolean shouldCompile) {
         if (InputConfiguration.instance != null) {
             LOGGER.warn("Erasing old instance of InputConfiguration");
         }
         InputConfiguration.instance = new InputConfiguration(properties);
         InputConfiguration.instance.configPath = "";
-        InputConfiguration.instance.initializeBuilder(properties);
+        InputConfiguration.instance.initializeBuilder(properties, shouldCompile);
         return InputConfiguration.instance;
     }
 
@@ -143,10 +167,10 @@ public class InputConfiguration {
                 .setExcludedTestCases(ConstantsProperties.EXCLUDED_TEST_CASES.get(properties));
     }
 
-    private void initializeBuilder(Properties properties){
+    private void initializeBuilder(Properties properties, boolean shouldCompile){
         this.setMavenHome(ConstantsProperties.MAVEN_HOME.get(properties));
         this.builder = AutomaticBuilderFactory.getAutomaticBuilder(ConstantsProperties.AUTOMATIC_BUILDER_NAME.getName());
-        this.dependencies = this.builder.compileAndBuildClasspath();
+        this.dependencies = shouldCompile ? this.builder.compileAndBuildClasspath() : this.builder.buildClasspath();
 
         final String additionalClasspathElements = ConstantsProperties.ADDITIONAL_CP_ELEMENTS.get(properties);
         if (!additionalClasspathElements.isEmpty()) {
@@ -432,6 +456,21 @@ public class InputConfiguration {
         return this;
     }
 
+    private DSpotCompiler compiler;
+
+    /**
+     * DSpot compiler of the current amplification, used to compile the amplified test classes,
+     * see {@link DSpotCompiler#compile(InputConfiguration, String, String, File)}
+     */
+    public DSpotCompiler getCompiler() {
+        return compiler;
+    }
+
+    public InputConfiguration setCompiler(DSpotCompiler compiler) {
+        this.compiler = compiler;
+        return this;
+    }
+
     private String outputDirectory;
 
     public InputConfiguration setOutputDirectory(String outputDirectory) {
@@ -766,6 +805,242 @@ public class InputConfiguration {
         return this;
     }
 
+    private boolean compileInMemory = false;
+
+    public boolean shouldCompileInMemory() {
+        return compileInMemory;
+    }
+
+    /**
+     * @param compileInMemory if true, the amplified test classes are compiled from their printed source code in memory,
+     *                        instead of being printed and compiled on the disk, see {@link eu.stamp_project.utils.compilation.DSpotCompiler#compileInMemory(String, String, String)}
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setCompileInMemory(boolean compileInMemory) {
+        this.compileInMemory = compileInMemory;
+        return this;
+    }
+
+    private int testRunnerPoolSize = 0;
+
+    public int getTestRunnerPoolSize() {
+        return testRunnerPoolSize;
+    }
+
+    /**
+     * @param testRunnerPoolSize the number of long-lived JVMs used to run the tests, see {@link eu.stamp_project.utils.compilation.TestRunnerWorkerPool}.
+     *                           If it is 0, a new JVM is forked for each run.
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setTestRunnerPoolSize(int testRunnerPoolSize) {
+        this.testRunnerPoolSize = testRunnerPoolSize;
+        return this;
+    }
+
+    private int nbParallelClasses = 0;
+
+    public int getNbParallelClasses() {
+        return nbParallelClasses;
+    }
+
+    /**
+     * @param nbParallelClasses the number of processes of DSpot that amplify different test classes in parallel, see {@link eu.stamp_project.dspot.ParallelDSpot}.
+     *                          If it is 0 or 1, the test classes are amplified one after the other by this process.
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setNbParallelClasses(int nbParallelClasses) {
+        this.nbParallelClasses = nbParallelClasses;
+        return this;
+    }
+
+    private int pipelineCapacity = 1;
+
+    public int getPipelineCapacity() {
+        return pipelineCapacity;
+    }
+
+    /**
+     * @param pipelineCapacity the maximal number of iterations of different test methods in the pipeline of {@link eu.stamp_project.dspot.Amplification}.
+     *                         If it is 1, the test methods are amplified one after the other, and the input amplification does not overlap the execution of the tests.
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setPipelineCapacity(int pipelineCapacity) {
+        this.pipelineCapacity = pipelineCapacity;
+        return this;
+    }
+
+    private boolean resume = false;
+
+    public boolean shouldResume() {
+        return resume;
+    }
+
+    /**
+     * @param resume if true, the test classes that have been amplified by a previous run are skipped,
+     *               and the amplification of a test class restarts at the last iteration saved by {@link eu.stamp_project.dspot.Checkpoint}.
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setResume(boolean resume) {
+        this.resume = resume;
+        return this;
+    }
+
+    private boolean combineObservationRuns = false;
+
+    public boolean shouldCombineObservationRuns() {
+        return combineObservationRuns;
+    }
+
+    /**
+     * @param combineObservationRuns if true, {@link eu.stamp_project.dspot.assertgenerator.AssertGenerator} runs the instrumented tests once
+     *                               to split passing tests from failing ones and to collect the observations,
+     *                               repeating each test method in the same JVM instead of running three clones of it.
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setCombineObservationRuns(boolean combineObservationRuns) {
+        this.combineObservationRuns = combineObservationRuns;
+        return this;
+    }
+
+    private int maxObservationDepth = 3;
+
+    public int getMaxObservationDepth() {
+        return maxObservationDepth;
+    }
+
+    /**
+     * @param maxObservationDepth the maximum depth of the getters invoked by {@link eu.stamp_project.compare.ObjectLog} from an observed object
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setMaxObservationDepth(int maxObservationDepth) {
+        this.maxObservationDepth = maxObservationDepth;
+        return this;
+    }
+
+    private int maxObservedGettersPerType = -1;
+
+    public int getMaxObservedGettersPerType() {
+        return maxObservedGettersPerType;
+    }
+
+    /**
+     * @param maxObservedGettersPerType the maximum number of getters invoked on an observed object, per type. A negative value means no limit.
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setMaxObservedGettersPerType(int maxObservedGettersPerType) {
+        this.maxObservedGettersPerType = maxObservedGettersPerType;
+        return this;
+    }
+
+    private int maxObservationsPerTest = -1;
+
+    public int getMaxObservationsPerTest() {
+        return maxObservationsPerTest;
+    }
+
+    /**
+     * @param maxObservationsPerTest the maximum number of observations of an instrumented test method, during one run. A negative value means no limit.
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setMaxObservationsPerTest(int maxObservationsPerTest) {
+        this.maxObservationsPerTest = maxObservationsPerTest;
+        return this;
+    }
+
+    private String observedTypes = "";
+
+    public String getObservedTypes() {
+        return observedTypes;
+    }
+
+    /**
+     * @param observedTypes a regex on the qualified names of the types whose getters are invoked during the observation. Empty means all the types.
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setObservedTypes(String observedTypes) {
+        this.observedTypes = observedTypes;
+        return this;
+    }
+
+    private String excludedObservedTypes = "";
+
+    public String getExcludedObservedTypes() {
+        return excludedObservedTypes;
+    }
+
+    /**
+     * @param excludedObservedTypes a regex on the qualified names of the types whose getters are not invoked during the observation. Empty means no type.
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setExcludedObservedTypes(String excludedObservedTypes) {
+        this.excludedObservedTypes = excludedObservedTypes;
+        return this;
+    }
+
+    private boolean inProcessAssertionRun = false;
+
+    public boolean isInProcessAssertionRun() {
+        return inProcessAssertionRun;
+    }
+
+    /**
+     * @param inProcessAssertionRun if true, the instrumented tests of the assertion amplification are run inside the JVM of DSpot,
+     *                              see {@link eu.stamp_project.utils.compilation.InProcessTestRunner}
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setInProcessAssertionRun(boolean inProcessAssertionRun) {
+        this.inProcessAssertionRun = inProcessAssertionRun;
+        return this;
+    }
+
+    private int inProcessTimeOutInMs = -1;
+
+    public int getInProcessTimeOutInMs() {
+        return inProcessTimeOutInMs;
+    }
+
+    /**
+     * @param inProcessTimeOutInMs the hard timeout of a whole run inside the JVM of DSpot, after which the run and its class loader are abandoned.
+     *                             A negative value means the timeout computed for the runs in another JVM.
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setInProcessTimeOutInMs(int inProcessTimeOutInMs) {
+        this.inProcessTimeOutInMs = inProcessTimeOutInMs;
+        return this;
+    }
+
+    private boolean inProcessPit = false;
+
+    public boolean isInProcessPit() {
+        return inProcessPit;
+    }
+
+    /**
+     * @param inProcessPit if true, the PitMutantScoreSelector runs PIT through its API inside the JVM of DSpot,
+     *                     see {@link eu.stamp_project.mutant.pit.PitEngine}, instead of invoking the build tool of the project
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setInProcessPit(boolean inProcessPit) {
+        this.inProcessPit = inProcessPit;
+        return this;
+    }
+
+    private String pathToSpoonModelCache = "";
+
+    public String getPathToSpoonModelCache() {
+        return pathToSpoonModelCache;
+    }
+
+    /**
+     * @param pathToSpoonModelCache the directory in which the Spoon model of the program is cached between two runs of DSpot,
+     *                              see {@link eu.stamp_project.utils.compilation.SpoonModelCache}. Empty means that the model is not cached.
+     * @return an instance of this InputConfiguration
+     */
+    public InputConfiguration setPathToSpoonModelCache(String pathToSpoonModelCache) {
+        this.pathToSpoonModelCache = pathToSpoonModelCache;
+        return this;
+    }
+
     private Budgetizer budgetizer;
 
     public Budgetizer getBudgetizer() {
@@ -31,6 +31,7 @@ import spoon.support.reflect.declaration.CtClassImpl;
 import java.io.File;
 import java.text.DecimalFormat;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
@@ -39,6 +40,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -60,14 +62,15 @@ public class AmplificationHelper {
 
     public static final char DECIMAL_SEPARATOR = (((DecimalFormat) DecimalFormat.getInstance()).getDecimalFormatSymbols().getDecimalSeparator());
 
-    private static int cloneNumber = 1;
+    private static final AtomicInteger cloneNumber = new AtomicInteger(1);
 
     public static int timeOutInMs = 10000;
 
     /**
      * Link between an amplified test and its parent (i.e. the original test).
+     * It is synchronized, since amplified tests are created by several threads, see {@link eu.stamp_project.dspot.budget.NoBudgetizer}.
      */
-    public static Map<CtMethod<?>, CtMethod> ampTestToParent = new IdentityHashMap<>();
+    public static Map<CtMethod<?>, CtMethod> ampTestToParent = Collections.synchronizedMap(new IdentityHashMap<>());
 
     @Deprecated
     private static Map<CtType, Set<CtType>> importByClass = new HashMap<>();
@@ -82,8 +85,26 @@ public class AmplificationHelper {
         return random;
     }
 
+    /**
+     * @param random the generator to be used from now on, e.g. the one of an interrupted run, see {@link eu.stamp_project.dspot.Checkpoint}
+     */
+    public static void setRandom(Random random) {
+        AmplificationHelper.random = random;
+    }
+
+    /**
+     * @return the number that suffixes the name of the next amplified test method
+     */
+    public static int getCloneNumber() {
+        return cloneNumber.get();
+    }
+
+    public static void setCloneNumber(int number) {
+        cloneNumber.set(number);
+    }
+
     public static void reset() {
-        cloneNumber = 1;
+        cloneNumber.set(1);
         ampTestToParent.clear();
         importByClass.clear();
     }
@@ -305,8 +326,7 @@ public class AmplificationHelper {
     private static CtMethod cloneMethod(CtMethod method, String suffix) {
         CtMethod cloned_method = method.clone();
         //rename the clone
-        cloned_method.setSimpleName(method.getSimpleName() + (suffix.isEmpty() ? "" : suffix + cloneNumber));
-        cloneNumber++;
+        cloned_method.setSimpleName(method.getSimpleName() + (suffix.isEmpty() ? "" : suffix + cloneNumber.getAndIncrement()));
 
         CtAnnotation toRemove = cloned_method.getAnnotations().stream()
                 .filter(annotation -> annotation.toString().contains("Override"))
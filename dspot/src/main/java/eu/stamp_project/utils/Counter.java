@@ -93,4 +93,23 @@ public class Counter {
         _instance = null;
     }
 
+    public static Map<String, Integer> getNumberOfAssertionAdded() {
+        return new HashMap<>(getInstance().numberOfAssertionAdded);
+    }
+
+    public static Map<String, Integer> getNumberOfInputAdded() {
+        return new HashMap<>(getInstance().numberOfInputAdded);
+    }
+
+    /**
+     * Restores the counts of a previous run, see {@link eu.stamp_project.dspot.Checkpoint}.
+     *
+     * @param numberOfAssertionAdded the number of assertions added per test method name
+     * @param numberOfInputAdded     the number of inputs added per test method name
+     */
+    public static void restore(Map<String, Integer> numberOfAssertionAdded, Map<String, Integer> numberOfInputAdded) {
+        getInstance().numberOfAssertionAdded = new HashMap<>(numberOfAssertionAdded);
+        getInstance().numberOfInputAdded = new HashMap<>(numberOfInputAdded);
+    }
+
 }
@@ -106,7 +106,7 @@ public class DSpotUtils {
 
     public static final String packagePath = "eu/stamp_project/compare/";
 
-    public static final String[] classesToCopy = new String[]{"MethodsHandler", "ObjectLog", "Observation", "Utils", "FailToObserveException"};
+    public static final String[] classesToCopy = new String[]{"MethodsHandler", "ObjectLog", "Observation", "Utils", "FailToObserveException", "RepeatRule", "RepeatRule$1", "ObservationChannel", "MethodsHandler$Getter", "MethodsHandler$ReturnTypeCategory", "ObservationBudget", "ObservationBudget$1", "ObservationPaths", "ObservationPaths$Path", "ObjectLog$InProcessRun", "ObservationException"};
 
     public static void copyPackageFromResources() {
         final String pathToTestClassesDirectory = pathToDSpotDependencies + "/" + packagePath + "/";
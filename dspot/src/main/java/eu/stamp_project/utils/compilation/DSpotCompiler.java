@@ -1,8 +1,13 @@
 package eu.stamp_project.utils.compilation;
 
+import eu.stamp_project.automaticbuilder.AutomaticBuilderLock;
 import eu.stamp_project.utils.DSpotUtils;
 import eu.stamp_project.program.InputConfiguration;
+import org.apache.commons.io.FileUtils;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
+import org.eclipse.jdt.internal.compiler.batch.ClasspathDirectory;
+import org.eclipse.jdt.internal.compiler.batch.FileSystem;
+import org.eclipse.jdt.internal.compiler.env.INameEnvironment;
 import spoon.Launcher;
 import spoon.OutputType;
 import spoon.SpoonModelBuilder;
@@ -16,8 +21,14 @@ import spoon.support.compiler.FileSystemFolder;
 import spoon.support.compiler.jdt.JDTBasedSpoonCompiler;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static eu.stamp_project.utils.AmplificationHelper.PATH_SEPARATOR;
 
@@ -34,7 +45,7 @@ public class DSpotCompiler extends JDTBasedSpoonCompiler {
 		String pathToSources = configuration.getAbsolutePathToSourceCode()
 				+ PATH_SEPARATOR +
 				configuration.getAbsolutePathToTestSourceCode();
-		Launcher launcher = getSpoonModelOf(pathToSources, pathToDependencies);
+		Launcher launcher = getSpoonModelOf(pathToSources, pathToDependencies, configuration.getPathToSpoonModelCache());
 		return new DSpotCompiler(launcher, configuration, pathToDependencies);
 	}
 
@@ -43,33 +54,131 @@ public class DSpotCompiler extends JDTBasedSpoonCompiler {
 		this.dependencies = pathToDependencies;
 		this.launcher = launcher;
 		this.binaryOutputDirectory = new File(configuration.getAbsolutePathToTestClasses());
+		this.pathToProjectRoot = configuration.getAbsolutePathToProjectRoot();
 		this.sourceOutputDirectory = new File(PATH_TO_AMPLIFIED_TEST_SRC);
 		if (!this.sourceOutputDirectory.exists()) {
 			this.sourceOutputDirectory.mkdir();
 		}
+		this.inMemory = configuration.shouldCompileInMemory();
+	}
+
+	/**
+	 * Locks the binary output directory, <i>i.e.</i> the test classes of the project.
+	 * This directory is shared by the workers of {@link eu.stamp_project.dspot.ParallelDSpot}:
+	 * a worker must not compile in it while another one compiles or runs PIT, see {@link AutomaticBuilderLock}.
+	 *
+	 * @return the acquired lock, to be released using {@link AutomaticBuilderLock#close()}
+	 */
+	public AutomaticBuilderLock lockBinaryOutputDirectory() {
+		return AutomaticBuilderLock.lock(this.pathToProjectRoot);
 	}
 
 	public boolean compile(String pathToAdditionalDependencies) {
-		if (this.factory == null) {
-			this.factory = this.launcher.getFactory();
-		}
-		javaCompliance = factory.getEnvironment().getComplianceLevel();
-		DSpotJDTBatchCompiler compiler = new DSpotJDTBatchCompiler(this, null);//environment);
 		final SourceOptions sourcesOptions = new SourceOptions();
 		sourcesOptions.sources((new FileSystemFolder(this.sourceOutputDirectory).getAllJavaFiles()));
+		return this.compile(sourcesOptions, pathToAdditionalDependencies, Collections.emptyMap(), null);
+	}
 
-		this.reportProblems(this.factory.getEnvironment());
+	/**
+	 * Compiles the java files of the given folder, with exactly the given classpath, in the given output directory,
+	 * <i>e.g.</i> the amplified test class printed by a selector.
+	 * Unlike {@link #compile(InputConfiguration, String, String, File)}, no Spoon model of the sources is built,
+	 * and the name environment of the classpath is reused from a call to another.
+	 *
+	 * @param pathToSources         the folder of the java files to be compiled
+	 * @param classpath             the classpath of the compilation
+	 * @param binaryOutputDirectory the directory of the class files
+	 * @return true if the compilation succeeded, false otherwise
+	 */
+	public boolean compile(String pathToSources, String classpath, File binaryOutputDirectory) {
+		final SourceOptions sourcesOptions = new SourceOptions();
+		sourcesOptions.sources((new FileSystemFolder(new File(pathToSources)).getAllJavaFiles()));
+		// the problems of this compilation must not be returned by the next compilation of the amplified test class
+		final int numberOfProblems = this.probs.size();
+		final boolean success = this.compile(sourcesOptions,
+				(pathToSources + PATH_SEPARATOR + classpath).split(PATH_SEPARATOR),
+				binaryOutputDirectory,
+				Collections.emptyMap(),
+				null
+		);
+		this.probs.subList(numberOfProblems, this.probs.size()).clear();
+		return success;
+	}
+
+	/**
+	 * Compiles the given source code of a type, without printing it in {@link #PATH_TO_AMPLIFIED_TEST_SRC}.
+	 * The class files are not written in the binary output directory neither:
+	 * their bytes are available through {@link #getClassFilesInMemory()} until the next compilation.
+	 *
+	 * @param qualifiedName                the full qualified name of the type to be compiled
+	 * @param sourceCode                   the printed source code of the type
+	 * @param pathToAdditionalDependencies the additional dependencies to be added to the classpath
+	 * @return true if the compilation succeeded, false otherwise
+	 */
+	public boolean compileInMemory(String qualifiedName, String sourceCode, String pathToAdditionalDependencies) {
+		final String fileName = new File(this.sourceOutputDirectory,
+				qualifiedName.replaceAll("\\.", "/") + ".java").getAbsolutePath();
+		this.classFilesInMemory = new LinkedHashMap<>();
+		final SourceOptions sourcesOptions = new SourceOptions();
+		sourcesOptions.sources(new String[]{fileName});
+		return this.compile(sourcesOptions, pathToAdditionalDependencies,
+				Collections.singletonMap(fileName, sourceCode.toCharArray()), this.classFilesInMemory);
+	}
 
+	/**
+	 * this method call {@link #compileInMemory(String, String, String)} and return the potential problems of the compilation.
+	 */
+	public List<CategorizedProblem> compileInMemoryAndReturnProblems(String qualifiedName, String sourceCode, String pathToAdditionalDependencies) {
+		this.compileInMemory(qualifiedName, sourceCode, pathToAdditionalDependencies);
+		return getProblems();
+	}
+
+	/**
+	 * Writes the class files of the last in-memory compilation in the binary output directory.
+	 * The test runner executes the tests in another JVM, that loads the classes from the disk.
+	 */
+	public void writeClassFilesInMemory() {
+		this.classFilesInMemory.forEach((binaryName, bytes) -> {
+			final File classFile = new File(this.binaryOutputDirectory, binaryName.replaceAll("\\.", "/") + ".class");
+			try {
+				FileUtils.writeByteArrayToFile(classFile, bytes);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+	}
+
+	private boolean compile(SourceOptions sourcesOptions,
+							String pathToAdditionalDependencies,
+							Map<String, char[]> sourcesInMemory,
+							Map<String, byte[]> classFilesInMemory) {
 		String[] sourcesArray = this.sourceOutputDirectory.getAbsolutePath().split(PATH_SEPARATOR);
 		String[] classpath = (this.dependencies + PATH_SEPARATOR + pathToAdditionalDependencies).split(PATH_SEPARATOR);
 		String[] finalClasspath = new String[sourcesArray.length + classpath.length];
 		System.arraycopy(sourcesArray, 0, finalClasspath, 0, sourcesArray.length);
 		System.arraycopy(classpath, 0, finalClasspath, sourcesArray.length, classpath.length);
+		return this.compile(sourcesOptions, finalClasspath, getBinaryOutputDirectory(), sourcesInMemory, classFilesInMemory);
+	}
+
+	private boolean compile(SourceOptions sourcesOptions,
+							String[] finalClasspath,
+							File binaryOutputDirectory,
+							Map<String, char[]> sourcesInMemory,
+							Map<String, byte[]> classFilesInMemory) {
+		if (this.factory == null) {
+			this.factory = this.launcher.getFactory();
+		}
+		javaCompliance = factory.getEnvironment().getComplianceLevel();
+
+		this.reportProblems(this.factory.getEnvironment());
+
+		final DSpotJDTBatchCompiler compiler = new DSpotJDTBatchCompiler(this, this.getReusableEnvironment(finalClasspath));
+		compiler.setInMemory(sourcesInMemory, classFilesInMemory);
 
 		final ClasspathOptions classpathOptions = new ClasspathOptions()
 				.encoding(getEnvironment().getEncoding().displayName())
 				.classpath(finalClasspath)
-				.binaries(getBinaryOutputDirectory());
+				.binaries(binaryOutputDirectory);
 
 		final String[] args = new JDTBuilderImpl() //
 				.classpathOptions(classpathOptions) //
@@ -84,18 +193,86 @@ public class DSpotCompiler extends JDTBasedSpoonCompiler {
 		System.arraycopy(args, 0, finalArgs, 1, args.length);
 
 		compiler.compile(finalArgs);
-		environment = compiler.getEnvironment();
+		this.keepEnvironment(finalClasspath, compiler);
 
 		return compiler.globalErrorsCount == 0;
 	}
 
+	/*
+		The name environment of JDT resolves the types of the classpath, and caches the content of the jars and folders.
+		Building it again for each compilation is costly, and the classpath is the same from a call to another.
+		We reuse then the environment of a previous compilation with the same classpath.
+		There is one environment per classpath, e.g. one for the amplification and one for the selector, up to MAX_NUMBER_OF_ENVIRONMENTS,
+		the least recently used being discarded.
+		Folders are reset, since their content changes between two compilations,
+		e.g. the .class of the amplified test class is deleted, or the tmp sources are cleaned.
+	 */
+	private static final int MAX_NUMBER_OF_ENVIRONMENTS = 4;
+
+	private final Map<String, FileSystem> environmentsByClasspath = new LinkedHashMap<>(MAX_NUMBER_OF_ENVIRONMENTS, 0.75F, true);
+
+	private final Map<String, List<FileSystem.Classpath>> directoriesOfEnvironmentsByClasspath = new HashMap<>();
+
+	private FileSystem getReusableEnvironment(String[] classpath) {
+		final String classpathOfEnvironment = String.join(PATH_SEPARATOR, classpath);
+		final FileSystem reusableEnvironment = this.environmentsByClasspath.get(classpathOfEnvironment);
+		if (reusableEnvironment != null) {
+			this.directoriesOfEnvironmentsByClasspath.get(classpathOfEnvironment).forEach(FileSystem.Classpath::reset);
+		}
+		return reusableEnvironment;
+	}
+
+	private void keepEnvironment(String[] classpath, DSpotJDTBatchCompiler compiler) {
+		environment = compiler.getEnvironment();
+		final String classpathOfEnvironment = String.join(PATH_SEPARATOR, classpath);
+		if (this.environmentsByClasspath.get(classpathOfEnvironment) == environment) {
+			return;
+		}
+		this.environmentsByClasspath.put(classpathOfEnvironment, compiler.getEnvironment());
+		this.directoriesOfEnvironmentsByClasspath.put(classpathOfEnvironment, Arrays.stream(compiler.getClasspaths())
+				.filter(ClasspathDirectory.class::isInstance)
+				.collect(Collectors.toList())
+		);
+		if (this.environmentsByClasspath.size() > MAX_NUMBER_OF_ENVIRONMENTS) {
+			final String leastRecentlyUsed = this.environmentsByClasspath.keySet().iterator().next();
+			this.environmentsByClasspath.remove(leastRecentlyUsed).cleanup();
+			this.directoriesOfEnvironmentsByClasspath.remove(leastRecentlyUsed);
+		}
+	}
+
 	public static Launcher getSpoonModelOf(String pathToSources, String pathToDependencies) {
+		return getSpoonModelOf(pathToSources, pathToDependencies, "");
+	}
+
+	/**
+	 * Builds the Spoon model of the given sources, or loads it from the given cache if the sources did not change, see {@link SpoonModelCache}.
+	 *
+	 * @param pathToSources         the sources of the model, separated by {@link eu.stamp_project.utils.AmplificationHelper#PATH_SEPARATOR}
+	 * @param pathToDependencies    the classpath of the model
+	 * @param pathToSpoonModelCache the directory of the cache of the model. Empty means that the model is not cached.
+	 * @return a launcher with the built model
+	 */
+	public static Launcher getSpoonModelOf(String pathToSources, String pathToDependencies, String pathToSpoonModelCache) {
+		DSpotUtils.copyPackageFromResources();
+		String[] sourcesArray = (pathToSources + PATH_SEPARATOR + "target/dspot/dependencies/").split(PATH_SEPARATOR);
+		if (pathToSpoonModelCache.isEmpty()) {
+			return buildSpoonModelOf(sourcesArray, pathToDependencies);
+		}
+		final SpoonModelCache cache = new SpoonModelCache(pathToSpoonModelCache);
+		final String key = cache.computeKey(sourcesArray, pathToDependencies);
+		Launcher launcher = cache.load(key);
+		if (launcher == null) {
+			launcher = buildSpoonModelOf(sourcesArray, pathToDependencies);
+			cache.save(key, launcher);
+		}
+		return launcher;
+	}
+
+	private static Launcher buildSpoonModelOf(String[] sourcesArray, String pathToDependencies) {
 		Launcher launcher = new Launcher();
 		launcher.getEnvironment().setNoClasspath(true);
 		launcher.getEnvironment().setCommentEnabled(true);
 		launcher.getEnvironment().setOutputType(OutputType.CLASSES);
-		DSpotUtils.copyPackageFromResources();
-		String[] sourcesArray = (pathToSources + PATH_SEPARATOR + "target/dspot/dependencies/").split(PATH_SEPARATOR);
 		Arrays.stream(sourcesArray).forEach(launcher::addInputResource);
 		if (!pathToDependencies.isEmpty()) {
 			String[] dependenciesArray = pathToDependencies.split(PATH_SEPARATOR);
@@ -105,7 +282,26 @@ public class DSpotCompiler extends JDTBasedSpoonCompiler {
 		return launcher;
 	}
 
+	/**
+	 * Compiles the java files of the given folder in the given output directory.
+	 * If the configuration holds the compiler of the current amplification, see {@link InputConfiguration#getCompiler()},
+	 * it is used through {@link #compile(String, String, File)}. Otherwise, a Spoon model of the sources is built and compiled.
+	 * The compilation holds the lock of the project, since the binary output directory is shared, see {@link #lockBinaryOutputDirectory()}.
+	 */
 	public static boolean compile(InputConfiguration configuration, String pathToSources, String dependencies, File binaryOutputDirectory) {
+		final AutomaticBuilderLock lock = AutomaticBuilderLock.lock(configuration.getAbsolutePathToProjectRoot());
+		try {
+			return compileLocked(configuration, pathToSources, dependencies, binaryOutputDirectory);
+		} finally {
+			lock.close();
+		}
+	}
+
+	private static boolean compileLocked(InputConfiguration configuration, String pathToSources, String dependencies, File binaryOutputDirectory) {
+		if (configuration.getCompiler() != null) {
+			DSpotUtils.copyPackageFromResources();
+			return configuration.getCompiler().compile(pathToSources, dependencies, binaryOutputDirectory);
+		}
 		Launcher launcher = new Launcher();
 		if (configuration.isVerbose()) {
 			launcher.getEnvironment().setLevel("INFO");
@@ -146,10 +342,30 @@ public class DSpotCompiler extends JDTBasedSpoonCompiler {
 
 	private File binaryOutputDirectory;
 
+	private String pathToProjectRoot;
+
 	private String dependencies;
 
 	private File sourceOutputDirectory;
 
+	private boolean inMemory;
+
+	private Map<String, byte[]> classFilesInMemory = Collections.emptyMap();
+
+	/**
+	 * @return true if the amplified test classes should be compiled in memory, see {@link #compileInMemory(String, String, String)}
+	 */
+	public boolean isInMemory() {
+		return inMemory;
+	}
+
+	/**
+	 * @return the bytes of the class files produced by the last in-memory compilation, indexed by binary name
+	 */
+	public Map<String, byte[]> getClassFilesInMemory() {
+		return classFilesInMemory;
+	}
+
 	public File getBinaryOutputDirectory() {
 		return binaryOutputDirectory;
 	}
@@ -166,4 +382,8 @@ public class DSpotCompiler extends JDTBasedSpoonCompiler {
 		return launcher;
 	}
 
+	INameEnvironment getNameEnvironment() {
+		return environment;
+	}
+
 }
@@ -1,5 +1,7 @@
 package eu.stamp_project.utils.compilation;
 
+import org.eclipse.jdt.internal.compiler.ClassFile;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
 import org.eclipse.jdt.internal.compiler.Compiler;
 import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
 import org.eclipse.jdt.internal.compiler.batch.FileSystem;
@@ -11,6 +13,8 @@ import spoon.support.compiler.jdt.JDTBatchCompiler;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 
 
 /**
@@ -22,11 +26,45 @@ public class DSpotJDTBatchCompiler extends JDTBatchCompiler {
 
     private FileSystem environment;
 
+    /**
+     * contents of the compilation units that are not read from the disk, indexed by their file name
+     */
+    private Map<String, char[]> sourcesInMemory = Collections.emptyMap();
+
+    /**
+     * bytes of the generated class files, indexed by the binary name of the class.
+     * If this map is null, the class files are written on the disk, as usual.
+     */
+    private Map<String, byte[]> classFilesInMemory;
+
     public DSpotJDTBatchCompiler(JDTBasedSpoonCompiler jdtCompiler, FileSystem environment ) {
         super(jdtCompiler);
         this.environment = environment;
     }
 
+    /**
+     * Enables the in-memory mode: the given sources are not read from the disk,
+     * and the class files are put inside the given map instead of being written in the output directory.
+     *
+     * @param sourcesInMemory    contents of the compilation units, indexed by the file name given as argument of the compilation
+     * @param classFilesInMemory map that receives the bytes of the class files, indexed by binary name
+     */
+    public void setInMemory(Map<String, char[]> sourcesInMemory, Map<String, byte[]> classFilesInMemory) {
+        this.sourcesInMemory = sourcesInMemory;
+        this.classFilesInMemory = classFilesInMemory;
+    }
+
+    @Override
+    public void outputClassFiles(CompilationResult unitResult) {
+        if (this.classFilesInMemory == null) {
+            super.outputClassFiles(unitResult);
+        } else if (unitResult != null) {
+            for (ClassFile classFile : unitResult.getClassFiles()) {
+                this.classFilesInMemory.put(new String(classFile.fileName()).replace('/', '.'), classFile.getBytes());
+            }
+        }
+    }
+
     @Override
     public void performCompilation() {
         if(environment == null) {
@@ -72,16 +110,21 @@ public class DSpotJDTBatchCompiler extends JDTBatchCompiler {
             }
 
             knownFileNames.put(charName, charName);
-            File file = new File(this.filenames[i]);
-            if(!file.exists()) {
-                throw new IllegalArgumentException(this.bind("unit.missing", this.filenames[i]));
-            }
-
             String encoding = this.encodings[i];
             if(encoding == null) {
                 encoding = defaultEncoding;
             }
 
+            if (this.sourcesInMemory.containsKey(this.filenames[i])) {
+                units[i] = new CompilationUnit(this.sourcesInMemory.get(this.filenames[i]), this.filenames[i], encoding, this.destinationPaths[i], false, null);
+                continue;
+            }
+
+            File file = new File(this.filenames[i]);
+            if(!file.exists()) {
+                throw new IllegalArgumentException(this.bind("unit.missing", this.filenames[i]));
+            }
+
             String fileName;
             try {
                 fileName = file.getCanonicalPath();
@@ -97,5 +140,12 @@ public class DSpotJDTBatchCompiler extends JDTBatchCompiler {
         return environment;
     }
 
+    /**
+     * @return the entries of the classpath used to build the environment of this compiler
+     */
+    public FileSystem.Classpath[] getClasspaths() {
+        return this.checkedClasspaths;
+    }
+
 
 }
\ No newline at end of file
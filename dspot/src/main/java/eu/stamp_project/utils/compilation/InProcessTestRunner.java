@@ -0,0 +1,147 @@
+package eu.stamp_project.utils.compilation;
+
+import eu.stamp_project.compare.ObjectLog;
+import eu.stamp_project.testrunner.EntryPoint;
+import eu.stamp_project.testrunner.runner.test.TestListener;
+import eu.stamp_project.testrunner.runner.test.TestRunner;
+import eu.stamp_project.utils.AmplificationHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the tests inside the JVM of DSpot, rather than in a new JVM, see {@link EntryPoint#runTests(String, String, String...)}.
+ * <p>
+ * The classes of the project, its dependencies and the test classes are loaded by a new isolated class loader for each run,
+ * that looks into the classpath of the project before DSpot's one. Only JUnit and the compare package are shared with DSpot,
+ * so that {@link eu.stamp_project.compare.ObjectLog} records the observations directly in the memory of DSpot.
+ * <p>
+ * The tests are run on their own thread. If the run exceeds the given timeout, the thread is interrupted
+ * and abandoned, together with its class loader. The observations it could still make are discarded,
+ * see {@link eu.stamp_project.compare.ObjectLog.InProcessRun}.
+ */
+public class InProcessTestRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InProcessTestRunner.class);
+
+    // the packages loaded by DSpot's class loader, that are shared with the tests
+    private static final String[] SHARED_PACKAGES = new String[]{
+            "java.", "javax.", "sun.", "jdk.",
+            "org.junit.", "junit.", "org.hamcrest.",
+            "eu.stamp_project.compare.", "eu.stamp_project.testrunner."
+    };
+
+    /**
+     * @param classPath     the classpath of the project, including the test classes
+     * @param testClassName the full qualified name of the test class
+     * @param methodNames   the names of the test methods to be run
+     * @param timeoutInMs   the hard timeout of the whole run
+     * @return the result of the run
+     * @throws TimeoutException if the run exceeds the given timeout
+     */
+    public static TestListener runTests(String classPath, String testClassName, String[] methodNames, long timeoutInMs) throws TimeoutException {
+        final TestListener listener = new TestListener();
+        final IsolatedClassLoader classLoader = new IsolatedClassLoader(toURLs(classPath), InProcessTestRunner.class.getClassLoader());
+        final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "dspot-in-process-test-runner");
+            thread.setDaemon(true);
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        });
+        final ObjectLog.InProcessRun observationRun = ObjectLog.startInProcessRun();
+        final Future<?> run = executor.submit(() -> {
+            observationRun.join();
+            TestRunner.run(testClassName, Arrays.asList(methodNames), listener, classLoader);
+        });
+        executor.shutdown();
+        try {
+            run.get(timeoutInMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // the thread may never end: it is abandoned, and the class loader is not closed since the thread still uses it
+            // its next observations are discarded, so that they are not mixed with the ones of the next runs
+            observationRun.abandon();
+            run.cancel(true);
+            LOGGER.warn("The in-process run of {} did not end after {} ms, it is abandoned", testClassName, timeoutInMs);
+            throw new TimeoutException("The in-process run did not end after " + timeoutInMs + " ms");
+        } catch (InterruptedException e) {
+            observationRun.abandon();
+            run.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("The in-process run of " + testClassName + " crashed", e.getCause());
+        }
+        try {
+            classLoader.close();
+        } catch (IOException ignored) {
+            // the class loader will be garbage collected anyway
+        }
+        return listener;
+    }
+
+    private static URL[] toURLs(String classPath) {
+        return Arrays.stream(classPath.split(AmplificationHelper.PATH_SEPARATOR))
+                .filter(path -> !path.isEmpty())
+                .distinct()
+                .map(path -> {
+                    try {
+                        return new File(path).toURI().toURL();
+                    } catch (MalformedURLException e) {
+                        throw new RuntimeException(e);
+                    }
+                }).toArray(URL[]::new);
+    }
+
+    /*
+        Loads the classes from the classpath of the project first, to not use the dependencies of DSpot instead of the project's ones,
+        except the shared packages that are always loaded by DSpot's class loader.
+     */
+    private static class IsolatedClassLoader extends URLClassLoader {
+
+        IsolatedClassLoader(URL[] urls, ClassLoader parent) {
+            super(urls, parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (isShared(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loadedClass = findLoadedClass(name);
+                if (loadedClass == null) {
+                    try {
+                        loadedClass = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        return super.loadClass(name, resolve);
+                    }
+                }
+                if (resolve) {
+                    resolveClass(loadedClass);
+                }
+                return loadedClass;
+            }
+        }
+
+        private static boolean isShared(String name) {
+            for (String sharedPackage : SHARED_PACKAGES) {
+                if (name.startsWith(sharedPackage)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package eu.stamp_project.utils.compilation;
+
+import spoon.compiler.Environment;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.visitor.DefaultJavaPrettyPrinter;
+import spoon.reflect.visitor.DefaultTokenWriter;
+import spoon.reflect.visitor.PrinterHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The source code of a type, as printed by Spoon, with the offsets of its methods in this source code.
+ * These offsets are recorded while printing the type, and they are used to map the problems reported by JDT
+ * to the methods that contain them, without building a new Spoon model of the printed source code.
+ */
+public class PrintedType {
+
+    private final String sourceCode;
+
+    private final List<CtMethod<?>> methods;
+
+    private final int[] starts;
+
+    private final int[] ends;
+
+    private PrintedType(String sourceCode, List<CtMethod<?>> methods, int[] starts, int[] ends) {
+        this.sourceCode = sourceCode;
+        this.methods = methods;
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * Prints the given type, as {@link eu.stamp_project.utils.DSpotUtils#printCtTypeToGivenDirectory(CtType, java.io.File, boolean)} does.
+     *
+     * @param type        the type to be printed
+     * @param withComment print the comments or not
+     * @return the printed source code and the offsets of the methods of the given type
+     */
+    public static PrintedType print(CtType<?> type, boolean withComment) {
+        Factory factory = type.getFactory();
+        Environment env = factory.getEnvironment();
+        env.setAutoImports(true);
+        env.setCommentEnabled(withComment);
+        final PositionRecorderPrinter printer = new PositionRecorderPrinter(env, type);
+        printer.calculate(factory.CompilationUnit().getOrCreate(type), Collections.singletonList(type));
+        env.setAutoImports(false);
+        return new PrintedType(printer.getResult(),
+                printer.methods,
+                printer.starts.stream().mapToInt(Integer::intValue).toArray(),
+                printer.ends.stream().mapToInt(Integer::intValue).toArray()
+        );
+    }
+
+    public String getSourceCode() {
+        return sourceCode;
+    }
+
+    /**
+     * Methods are printed one after the other, so their offsets are sorted: this method uses a binary search.
+     *
+     * @param sourceStart the start offset of a fragment of the source code, e.g. of a compilation problem
+     * @param sourceEnd   the end offset of the same fragment
+     * @return the method of the printed type that contains the given fragment, or null if there is none
+     */
+    public CtMethod<?> getMethodContaining(int sourceStart, int sourceEnd) {
+        int index = Arrays.binarySearch(this.starts, sourceStart);
+        if (index < 0) {
+            index = -index - 2; // the last method that starts before the given offset
+        }
+        if (index >= 0 && this.ends[index] >= sourceEnd) {
+            return this.methods.get(index);
+        }
+        return null;
+    }
+
+    private static class PositionRecorderPrinter extends DefaultJavaPrettyPrinter {
+
+        private final CtType<?> printedType;
+
+        private final LengthPrinterHelper helper;
+
+        private final List<CtMethod<?>> methods = new ArrayList<>();
+
+        private final List<Integer> starts = new ArrayList<>();
+
+        private final List<Integer> ends = new ArrayList<>();
+
+        private PositionRecorderPrinter(Environment env, CtType<?> printedType) {
+            super(env);
+            this.printedType = printedType;
+            this.helper = new LengthPrinterHelper(env);
+            this.setPrinterTokenWriter(new DefaultTokenWriter(this.helper));
+        }
+
+        @Override
+        public <T> void visitCtMethod(CtMethod<T> m) {
+            // we record only the methods of the printed type, not the ones of its inner or anonymous classes
+            if (m.getParent() != this.printedType) {
+                super.visitCtMethod(m);
+            } else {
+                final int start = this.helper.length();
+                super.visitCtMethod(m);
+                this.methods.add(m);
+                this.starts.add(start);
+                this.ends.add(this.helper.length() - 1);
+            }
+        }
+    }
+
+    // exposes the length of the printed source code, without copying it as toString() does
+    private static class LengthPrinterHelper extends PrinterHelper {
+
+        private LengthPrinterHelper(Environment env) {
+            super(env);
+        }
+
+        private int length() {
+            return this.sbf.length();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package eu.stamp_project.utils.compilation;
+
+import eu.stamp_project.utils.AmplificationHelper;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.SuffixFileFilter;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spoon.Launcher;
+import spoon.reflect.factory.Factory;
+import spoon.support.SerializationModelStreamer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A cache on disk of the Spoon model of the program under amplification, see {@link DSpotCompiler#getSpoonModelOf(String, String, String)}.
+ * <p>
+ * The model is serialized with a key: a hash of the content of the source files and of the classpath used to build it.
+ * The cached model is loaded only if the key is the same, <i>i.e.</i> if no source file has been added, removed or modified since
+ * the model has been built, whatever their dates of modification, e.g. in a fresh checkout of the same revision.
+ * The entries of the classpath, e.g. the jars of the dependencies, are identified by their paths, sizes and dates of modification:
+ * a dependency rebuilt or updated in place, with the same path, invalidates the cached model as well.
+ * Otherwise, the model is built again, and replaces the cached one.
+ * <p>
+ * The model is written in a temporary file, then moved, so that the workers of {@link eu.stamp_project.dspot.ParallelDSpot}
+ * never read a model being written.
+ */
+public class SpoonModelCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpoonModelCache.class);
+
+    private static final String NAME_OF_MODEL_FILE = "spoon-model";
+
+    private final File cacheDirectory;
+
+    public SpoonModelCache(String pathToCacheDirectory) {
+        this.cacheDirectory = new File(pathToCacheDirectory);
+    }
+
+    /**
+     * @param pathsToSources     the folders and files given as input of the model
+     * @param pathToDependencies the classpath of the model
+     * @return a hash of the content of the java and class files of the given sources, of their paths, and of the classpath,
+     * with the size and the date of modification of the files of each of its entries
+     */
+    public String computeKey(String[] pathsToSources, String pathToDependencies) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        digest.update(String.valueOf(Launcher.class.getPackage().getImplementationVersion()).getBytes(StandardCharsets.UTF_8));
+        digest.update(pathToDependencies.getBytes(StandardCharsets.UTF_8));
+        for (String pathToDependency : pathToDependencies.split(AmplificationHelper.PATH_SEPARATOR)) {
+            if (!pathToDependency.isEmpty()) {
+                updateWithMetadataOf(digest, new File(pathToDependency));
+            }
+        }
+        for (String pathToSources : pathsToSources) {
+            final File sources = new File(pathToSources);
+            digest.update(sources.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+            for (File file : getFilesOf(sources)) {
+                digest.update(file.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+                try {
+                    digest.update(Files.readAllBytes(file.toPath()));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        final StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    // the dependency is a jar or a folder of classes: their content is not hashed, since they may be large
+    private static void updateWithMetadataOf(MessageDigest digest, File dependency) {
+        final List<File> files = new ArrayList<>();
+        if (dependency.isDirectory()) {
+            files.addAll(FileUtils.listFiles(dependency, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE));
+        } else if (dependency.isFile()) {
+            files.add(dependency);
+        }
+        files.sort(File::compareTo);
+        for (File file : files) {
+            digest.update((file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified()).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // the java and class files of the given folder, in a stable order
+    private static List<File> getFilesOf(File sources) {
+        final List<File> files = new ArrayList<>();
+        if (sources.isDirectory()) {
+            files.addAll(FileUtils.listFiles(sources, new SuffixFileFilter(Arrays.asList(".java", ".class")), TrueFileFilter.INSTANCE));
+        } else if (sources.isFile()) {
+            files.add(sources);
+        }
+        files.sort(File::compareTo);
+        return files;
+    }
+
+    /**
+     * @param key the key of the expected model, see {@link #computeKey(String[], String)}
+     * @return a launcher with the cached model, or null if there is no cached model for the given key
+     */
+    public Launcher load(String key) {
+        final File modelFile = new File(this.cacheDirectory, NAME_OF_MODEL_FILE);
+        if (!modelFile.exists()) {
+            return null;
+        }
+        try (InputStream input = new BufferedInputStream(new FileInputStream(modelFile))) {
+            if (!key.equals(new DataInputStream(input).readUTF())) {
+                LOGGER.info("The sources have changed since the Spoon model has been cached, it will be built again.");
+                return null;
+            }
+            final Factory factory = new SerializationModelStreamer().load(input);
+            LOGGER.info("The Spoon model has been loaded from {}", modelFile.getPath());
+            return new Launcher(factory);
+        } catch (Exception e) {
+            LOGGER.warn("Could not load the Spoon model from {}, it will be built again: {}", modelFile.getPath(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param key      the key of the model, see {@link #computeKey(String[], String)}
+     * @param launcher the launcher with the built model
+     */
+    public void save(String key, Launcher launcher) {
+        final File modelFile = new File(this.cacheDirectory, NAME_OF_MODEL_FILE);
+        File temporaryFile = null;
+        try {
+            FileUtils.forceMkdir(this.cacheDirectory);
+            temporaryFile = File.createTempFile(NAME_OF_MODEL_FILE, ".tmp", this.cacheDirectory);
+            try (OutputStream output = new BufferedOutputStream(new FileOutputStream(temporaryFile))) {
+                final DataOutputStream dataOutput = new DataOutputStream(output);
+                dataOutput.writeUTF(key);
+                dataOutput.flush();
+                new SerializationModelStreamer().save(launcher.getFactory(), output);
+            }
+            Files.move(temporaryFile.toPath(), modelFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("The Spoon model has been cached in {}", modelFile.getPath());
+        } catch (Exception e) {
+            LOGGER.warn("Could not cache the Spoon model in {}: {}", modelFile.getPath(), e.getMessage());
+            if (temporaryFile != null) {
+                FileUtils.deleteQuietly(temporaryFile);
+            }
+        }
+    }
+}
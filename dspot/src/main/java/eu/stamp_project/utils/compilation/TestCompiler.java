@@ -1,27 +1,27 @@
 package eu.stamp_project.utils.compilation;
 
+import eu.stamp_project.automaticbuilder.AutomaticBuilderLock;
 import eu.stamp_project.dspot.AmplificationException;
 import eu.stamp_project.program.InputConfiguration;
 import eu.stamp_project.testrunner.EntryPoint;
 import eu.stamp_project.testrunner.runner.test.TestListener;
 import eu.stamp_project.utils.AmplificationHelper;
 import eu.stamp_project.utils.DSpotUtils;
+import org.apache.commons.io.FileUtils;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import spoon.Launcher;
-import spoon.reflect.declaration.CtClass;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.declaration.ModifierKind;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import static org.codehaus.plexus.util.FileUtils.forceDelete;
@@ -86,16 +86,46 @@ public class TestCompiler {
                                              DSpotCompiler compiler,
                                              List<CtMethod<?>> testsToRun,
                                              InputConfiguration configuration) throws AmplificationException {
+        return compileAndRun(testClass, compiler, testsToRun, configuration, 1);
+    }
+
+    /**
+     * Same as {@link #compileAndRun(CtType, DSpotCompiler, List, InputConfiguration)},
+     * for test methods that are run several times each, e.g. by {@link eu.stamp_project.compare.RepeatRule}.
+     * The timeout is extended accordingly.
+     *
+     * @param numberOfRunsPerTest the number of times each test method is run
+     */
+    public static TestListener compileAndRun(CtType<?> testClass,
+                                             DSpotCompiler compiler,
+                                             List<CtMethod<?>> testsToRun,
+                                             InputConfiguration configuration,
+                                             int numberOfRunsPerTest) throws AmplificationException {
+        return compileAndRun(testClass, compiler, testsToRun, configuration, numberOfRunsPerTest, false);
+    }
+
+    /**
+     * Same as {@link #compileAndRun(CtType, DSpotCompiler, List, InputConfiguration, int)},
+     * with the possibility to run the tests inside the JVM of DSpot, see {@link InProcessTestRunner}.
+     *
+     * @param inProcess if true, the tests are run inside the JVM of DSpot rather than in another JVM
+     */
+    public static TestListener compileAndRun(CtType<?> testClass,
+                                             DSpotCompiler compiler,
+                                             List<CtMethod<?>> testsToRun,
+                                             InputConfiguration configuration,
+                                             int numberOfRunsPerTest,
+                                             boolean inProcess) throws AmplificationException {
         final String dependencies = configuration.getClasspathClassesProject()
                 + AmplificationHelper.PATH_SEPARATOR + "target/dspot/dependencies/";
         DSpotUtils.copyPackageFromResources();
         testsToRun = TestCompiler.compileAndDiscardUncompilableMethods(compiler, testClass, dependencies, testsToRun, configuration.withComment());
         final String classPath = AmplificationHelper.getClassPath(compiler, configuration);
-        EntryPoint.timeoutInMs = 1000 + (configuration.getTimeOutInMs() * testsToRun.size());
+        EntryPoint.timeoutInMs = 1000 + (configuration.getTimeOutInMs() * testsToRun.size() * numberOfRunsPerTest);
         if (testClass.getModifiers().contains(ModifierKind.ABSTRACT)) { // if the test class is abstract, we use one of its implementation
-            return TestRunner.runSubClassesForAbstractTestClass(testClass, testsToRun, classPath);
+            return TestRunner.runSubClassesForAbstractTestClass(testClass, testsToRun, classPath, inProcess);
         } else {
-            return TestRunner.runGivenTestMethods(testClass, testsToRun, classPath);
+            return TestRunner.runGivenTestMethods(testClass, testsToRun, classPath, inProcess);
         }
     }
 
@@ -104,6 +134,7 @@ public class TestCompiler {
      * This method compiles the given Java class using the given compiler and dependencies.
      * This method chain compilation until it succeed.
      * If a compilation fails, this method removes uncompilable methods from the given class and retry to compile.
+     * The compilation holds the lock of the binary output directory, see {@link DSpotCompiler#lockBinaryOutputDirectory()}.
      *
      * @param compiler
      * @param testClassToBeCompiled
@@ -117,7 +148,13 @@ public class TestCompiler {
                                                                          String dependencies,
                                                                          List<CtMethod<?>> testsToRun,
                                                                          boolean withComment) throws AmplificationException {
-        final List<CtMethod<?>> uncompilableMethod = compileAndDiscardUncompilableMethods(compiler, testClassToBeCompiled, dependencies, 0, withComment);
+        final List<CtMethod<?>> uncompilableMethod;
+        final AutomaticBuilderLock lock = compiler.lockBinaryOutputDirectory();
+        try {
+            uncompilableMethod = compileAndDiscardUncompilableMethods(compiler, testClassToBeCompiled, dependencies, 0, withComment);
+        } finally {
+            lock.close();
+        }
         testsToRun.removeAll(uncompilableMethod);
         uncompilableMethod.forEach(testClassToBeCompiled::removeMethod);
         if (testsToRun.isEmpty()) {
@@ -132,30 +169,34 @@ public class TestCompiler {
                                                                           int numberOfTry,
                                                                           boolean withComment) throws AmplificationException {
 
-        printJavaFileAndDeleteClassFile(compiler, testClassToBeCompiled, withComment);
-        final List<CategorizedProblem> problems = compiler.compileAndReturnProblems(dependencies)
+        final PrintedType printedTestClass = PrintedType.print(testClassToBeCompiled, withComment);
+        final List<CategorizedProblem> allProblems;
+        if (compiler.isInMemory()) {
+            allProblems = compiler.compileInMemoryAndReturnProblems(testClassToBeCompiled.getQualifiedName(),
+                    printedTestClass.getSourceCode(), dependencies);
+        } else {
+            printJavaFileAndDeleteClassFile(compiler, testClassToBeCompiled, printedTestClass);
+            allProblems = compiler.compileAndReturnProblems(dependencies);
+        }
+        final List<CategorizedProblem> problems = allProblems
                 .stream()
                 .filter(IProblem::isError)
                 .collect(Collectors.toList());
         // no problem, the compilation is successful
         if (problems.isEmpty()) {
+            writeClassFilesInMemory(compiler);
             return Collections.emptyList();
         } else if (numberOfTry > 3) {
             LOGGER.warn("Trying three time to compile with no success. Give up.");
+            writeClassFilesInMemory(compiler);
             return Collections.emptyList();
         } else {
             int maxNumber = problems.size() > 20 ? 20 : problems.size();
             LOGGER.error("Error(s) during compilation:");
             problems.subList(0, maxNumber).forEach(categorizedProblem -> LOGGER.error("{}", categorizedProblem));
-            // Here, we compute the spoon model of the compiled test class,
-            // since it does not match with the model given in parameter.
-            // TODO report this to Spoon ?
-            final CtClass<?> newModelCtClass = getNewModelCtClass(compiler.getSourceOutputDirectory().getAbsolutePath(), testClassToBeCompiled.getQualifiedName());
-            final HashSet<CtMethod<?>> methodsToRemove = getMethodToRemove(problems, newModelCtClass);
-            final List<CtMethod<?>> methodsToRemoveInOriginalModel = methodsToRemove.stream()
-                    .map(CtMethod::getSimpleName)
-                    .map(methodName -> (CtMethod<?>) testClassToBeCompiled.getMethodsByName(methodName).get(0))
-                    .collect(Collectors.toList());
+            // The offsets of the problems are mapped to the methods using the positions recorded while printing,
+            // since the model given in parameter has no position in the printed source code.
+            final List<CtMethod<?>> methodsToRemoveInOriginalModel = getMethodToRemove(problems, printedTestClass);
 
             // TODO can't remember why I did that
             /*final List<CtMethod<?>> methodToKeep = newModelCtClass.getMethods().stream()
@@ -177,36 +218,30 @@ public class TestCompiler {
         }
     }
 
-    // compute the CtMethod in the new model to remove according to the given compilation problems
-    private static HashSet<CtMethod<?>> getMethodToRemove(List<CategorizedProblem> problems, CtClass<?> newModelCtClass) {
+    // compute the CtMethod to remove according to the given compilation problems
+    private static List<CtMethod<?>> getMethodToRemove(List<CategorizedProblem> problems, PrintedType printedTestClass) {
         return problems.stream()
-                .collect(HashSet<CtMethod<?>>::new,
-                        (ctMethods, categorizedProblem) -> {
-                            final Optional<CtMethod<?>> methodToRemove = newModelCtClass.getMethods().stream()
-                                    .filter(ctMethod ->
-                                            ctMethod.getPosition().getSourceStart() <= categorizedProblem.getSourceStart() &&
-                                                    ctMethod.getPosition().getSourceEnd() >= categorizedProblem.getSourceEnd())
-                                    .findFirst();
-                            methodToRemove.ifPresent(ctMethods::add);
-                        },
-                        HashSet<CtMethod<?>>::addAll);
+                .map(categorizedProblem ->
+                        printedTestClass.getMethodContaining(categorizedProblem.getSourceStart(), categorizedProblem.getSourceEnd())
+                ).filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
     }
 
-    // compute a new spoon model for the given CtClass
-    private static CtClass<?> getNewModelCtClass(String pathToSrcFolder, String fullQualifiedName) {
-        Launcher launcher = new Launcher();
-        launcher.getEnvironment().setNoClasspath(true);
-        launcher.getEnvironment().setCommentEnabled(true);
-        launcher.addInputResource(pathToSrcFolder);
-        launcher.buildModel();
-        return launcher.getFactory().Class().get(fullQualifiedName);
+    // in memory mode, the test runner still needs the .class on the disk since it runs in another JVM
+    private static void writeClassFilesInMemory(DSpotCompiler compiler) {
+        if (compiler.isInMemory()) {
+            compiler.writeClassFilesInMemory();
+        }
     }
 
     // output the .java of the test class to be compiled
     // this method delete also the old .class, i.e. the old compiled file of the same test class, if exists
-    private static void printJavaFileAndDeleteClassFile(DSpotCompiler compiler, CtType classTest, boolean withComment) {
+    private static void printJavaFileAndDeleteClassFile(DSpotCompiler compiler, CtType classTest, PrintedType printedTestClass) {
+        final File javaFile = new File(compiler.getSourceOutputDirectory(),
+                classTest.getQualifiedName().replaceAll("\\.", "/") + ".java");
         try {
-            DSpotUtils.printCtTypeToGivenDirectory(classTest, compiler.getSourceOutputDirectory(), withComment);
+            FileUtils.writeStringToFile(javaFile, printedTestClass.getSourceCode(), classTest.getFactory().getEnvironment().getEncoding());
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -1,6 +1,7 @@
 package eu.stamp_project.utils.compilation;
 
 import eu.stamp_project.dspot.AmplificationException;
+import eu.stamp_project.program.InputConfiguration;
 import eu.stamp_project.testrunner.EntryPoint;
 import eu.stamp_project.testrunner.runner.test.TestListener;
 import eu.stamp_project.utils.AmplificationHelper;
@@ -24,6 +25,13 @@ public class TestRunner {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestRunner.class);
 
     public static TestListener runSubClassesForAbstractTestClass(CtType<?> testClass, List<CtMethod<?>> testsToRun, String classPath) throws AmplificationException {
+        return runSubClassesForAbstractTestClass(testClass, testsToRun, classPath, false);
+    }
+
+    /**
+     * @param inProcess if true, the tests are run inside the JVM of DSpot, see {@link InProcessTestRunner}
+     */
+    public static TestListener runSubClassesForAbstractTestClass(CtType<?> testClass, List<CtMethod<?>> testsToRun, String classPath, boolean inProcess) throws AmplificationException {
         try {
             return testClass.getFactory().Type()
                     .getAll()
@@ -32,12 +40,13 @@ public class TestRunner {
                     .map(CtType::getQualifiedName)
                     .map(testClassName -> {
                         try {
-                            return EntryPoint.runTests(
-                                    classPath + AmplificationHelper.PATH_SEPARATOR + new File("target/dspot/dependencies/").getAbsolutePath(),
+                            return runTests(
+                                    classPath,
                                     testClassName,
                                     testsToRun.stream()
                                             .map(CtMethod::getSimpleName)
-                                            .toArray(String[]::new));
+                                            .toArray(String[]::new),
+                                    inProcess);
                         } catch (TimeoutException e) {
                             throw new RuntimeException(e);
                         }
@@ -55,13 +64,21 @@ public class TestRunner {
     }
 
     public static TestListener runGivenTestMethods(CtType<?> testClass, List<CtMethod<?>> testsToRun, String classPath) throws AmplificationException {
+        return runGivenTestMethods(testClass, testsToRun, classPath, false);
+    }
+
+    /**
+     * @param inProcess if true, the tests are run inside the JVM of DSpot, see {@link InProcessTestRunner}
+     */
+    public static TestListener runGivenTestMethods(CtType<?> testClass, List<CtMethod<?>> testsToRun, String classPath, boolean inProcess) throws AmplificationException {
         try {
-            return EntryPoint.runTests(
-                    classPath + AmplificationHelper.PATH_SEPARATOR + new File("target/dspot/dependencies/").getAbsolutePath(),
+            return runTests(
+                    classPath,
                     testClass.getQualifiedName(),
                     testsToRun.stream()
                             .map(CtMethod::getSimpleName)
-                            .toArray(String[]::new)
+                            .toArray(String[]::new),
+                    inProcess
             );
         } catch (TimeoutException e) {
             LOGGER.warn("Timeout during execution of {}: {}",
@@ -74,5 +91,23 @@ public class TestRunner {
         }
     }
 
+    // run the tests in the JVM of DSpot, in a new JVM, or in a worker of the pool if the configuration has one
+    private static TestListener runTests(String classPath, String testClassName, String[] methodNames, boolean inProcess) throws TimeoutException {
+        final String finalClassPath = classPath + AmplificationHelper.PATH_SEPARATOR + new File("target/dspot/dependencies/").getAbsolutePath();
+        final InputConfiguration configuration = InputConfiguration.get();
+        if (inProcess) {
+            final long timeoutInMs = configuration != null && configuration.getInProcessTimeOutInMs() > 0 ?
+                    configuration.getInProcessTimeOutInMs() : EntryPoint.timeoutInMs;
+            return InProcessTestRunner.runTests(finalClassPath, testClassName, methodNames, timeoutInMs);
+        } else if (configuration != null && configuration.getTestRunnerPoolSize() > 0) {
+            return TestRunnerWorkerPool.getPool(
+                    configuration.getTestRunnerPoolSize(),
+                    finalClassPath,
+                    configuration.getAbsolutePathToTestClasses()
+            ).runTests(new String[]{testClassName}, methodNames);
+        } else {
+            return EntryPoint.runTests(finalClassPath, testClassName, methodNames);
+        }
+    }
 
 }
@@ -0,0 +1,113 @@
+package eu.stamp_project.utils.compilation;
+
+import eu.stamp_project.testrunner.runner.test.TestListener;
+import eu.stamp_project.testrunner.runner.test.TestRunner;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Main class of the long-lived JVMs of {@link TestRunnerWorkerPool}.
+ * The worker connects to the pool, then runs the batches of tests that it receives, until the pool closes the connection.
+ * The classes of the project and its dependencies are loaded once, by the system class loader.
+ * The test classes, that are compiled again between two batches, are loaded by a new class loader for each batch.
+ *
+ * The worker answers each batch with the {@link TestListener} of the run,
+ * or with the stack trace of the exception that prevented the run, e.g. a test class that cannot be loaded.
+ *
+ * This class runs inside the JVM of the worker, on the classpath of the project under amplification:
+ * it must depend only on the JDK and on the test-runner, and its dependencies.
+ * It reports on the standard error, that the pool shows in verbose mode, see {@link TestRunnerWorkerPool}.
+ */
+public class TestRunnerWorker {
+
+    /**
+     * @param args the port of the pool, on the loopback address, and the path to the test classes
+     */
+    public static void main(String[] args) throws Exception {
+        final int port = Integer.parseInt(args[0]);
+        final URL testClasses = new File(args[1]).toURI().toURL();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            final ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+            out.flush();
+            final ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+            while (true) {
+                final String[] testClassNames;
+                final String[] methodNames;
+                final String[] blackList;
+                try {
+                    testClassNames = (String[]) in.readObject();
+                    methodNames = (String[]) in.readObject();
+                    blackList = (String[]) in.readObject();
+                } catch (EOFException closed) {
+                    break;
+                }
+                out.writeObject(run(testClasses, testClassNames, methodNames, blackList));
+                out.reset();
+                out.flush();
+            }
+        }
+        // tests may have started non-daemon threads
+        System.exit(0);
+    }
+
+    /*
+        Runs the given test methods, but the ones of the black list. If no test method is given, runs all the test methods
+        of the test classes, but the ones of the black list.
+        Returns the listener of the run, or the stack trace of the exception thrown during the run:
+        a partial listener would be taken as the result of the run.
+     */
+    private static Object run(URL testClasses, String[] testClassNames, String[] methodNames, String[] blackList) {
+        final List<String> methodNamesToRun = Arrays.stream(methodNames)
+                .filter(methodName -> !Arrays.asList(blackList).contains(methodName))
+                .collect(Collectors.toList());
+        final TestListener listener = new TestListener();
+        if (methodNames.length > 0 && methodNamesToRun.isEmpty()) {
+            return listener;
+        }
+        final Thread currentThread = Thread.currentThread();
+        final ClassLoader contextClassLoader = currentThread.getContextClassLoader();
+        try (URLClassLoader testClassLoader = new URLClassLoader(new URL[]{testClasses}, TestRunnerWorker.class.getClassLoader())) {
+            resetObservations();
+            currentThread.setContextClassLoader(testClassLoader);
+            if (methodNamesToRun.isEmpty()) {
+                TestRunner.run(Arrays.asList(testClassNames), Arrays.asList(blackList), listener, testClassLoader);
+            } else {
+                for (String testClassName : testClassNames) {
+                    TestRunner.run(testClassName, methodNamesToRun, listener, testClassLoader);
+                }
+            }
+            return listener;
+        } catch (Exception | LinkageError e) {
+            final StringWriter stackTrace = new StringWriter();
+            e.printStackTrace(new PrintWriter(stackTrace));
+            System.err.println("Could not run the test classes " + Arrays.toString(testClassNames));
+            System.err.print(stackTrace);
+            return stackTrace.toString();
+        } finally {
+            currentThread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    // the observations are kept by a singleton, that survives from a batch to another
+    private static void resetObservations() {
+        try {
+            Class.forName("eu.stamp_project.compare.ObjectLog").getMethod("reset").invoke(null);
+        } catch (ClassNotFoundException ignored) {
+            // the compare package is not on the classpath: there is nothing to reset
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
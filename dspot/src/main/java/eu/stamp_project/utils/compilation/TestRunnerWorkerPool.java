@@ -0,0 +1,304 @@
+package eu.stamp_project.utils.compilation;
+
+import eu.stamp_project.testrunner.EntryPoint;
+import eu.stamp_project.testrunner.runner.test.TestListener;
+import eu.stamp_project.utils.AmplificationHelper;
+import eu.stamp_project.utils.DSpotUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A pool of long-lived JVMs that run the tests, see {@link TestRunnerWorker}.
+ * Compared to {@link EntryPoint#runTests(String, String, String...)}, that forks a new JVM for each run,
+ * the JVMs of the pool keep the classpath of the project loaded, and they are warmed up by the previous runs.
+ *
+ * A worker that exceeds {@link EntryPoint#timeoutInMs}, or that crashes, is destroyed: a new worker will be started on demand.
+ */
+public class TestRunnerWorkerPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestRunnerWorkerPool.class);
+
+    private static final int TIME_OUT_TO_START_A_WORKER_IN_MS = 30000;
+
+    private static TestRunnerWorkerPool _instance;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(TestRunnerWorkerPool::shutdown));
+    }
+
+    /**
+     * @param size             the maximal number of workers
+     * @param classpath        the classpath used to run the tests
+     * @param testClassesPath  the path to the test classes, that are loaded by the workers for each run
+     * @return the pool of workers for the given classpath. If the classpath changed since the last call,
+     * the workers of the previous pool are stopped and a new pool is returned.
+     */
+    public static synchronized TestRunnerWorkerPool getPool(int size, String classpath, String testClassesPath) {
+        if (_instance == null || !_instance.classpath.equals(classpath) || _instance.size != size) {
+            shutdown();
+            _instance = new TestRunnerWorkerPool(size, classpath, testClassesPath);
+        }
+        return _instance;
+    }
+
+    /**
+     * Stops all the workers of the current pool, if any.
+     */
+    public static synchronized void shutdown() {
+        if (_instance != null) {
+            _instance.stopAllWorkers();
+            _instance = null;
+        }
+    }
+
+    private final int size;
+
+    private final String classpath;
+
+    private final String testClassesPath;
+
+    private final String classpathOfWorkers;
+
+    private final BlockingQueue<Worker> idleWorkers;
+
+    private final List<Worker> workers;
+
+    private TestRunnerWorkerPool(int size, String classpath, String testClassesPath) {
+        this.size = size;
+        this.classpath = classpath;
+        this.testClassesPath = new File(testClassesPath).getAbsolutePath();
+        this.classpathOfWorkers = buildClasspathOfWorkers(classpath, this.testClassesPath);
+        this.idleWorkers = new LinkedBlockingQueue<>();
+        this.workers = new ArrayList<>();
+    }
+
+    /*
+        The classpath of the workers is the classpath of the project, without the test classes that are loaded for each run.
+        It is followed by the test-runner, and by DSpot for the main class of the workers.
+        They are put at the end of the classpath to not shadow the dependencies of the project, e.g. JUnit.
+     */
+    private static String buildClasspathOfWorkers(String classpath, String testClassesPath) {
+        final File testClasses = new File(testClassesPath);
+        return Stream.concat(
+                Arrays.stream(classpath.split(AmplificationHelper.PATH_SEPARATOR))
+                        .filter(path -> !path.isEmpty())
+                        .filter(path -> !new File(path).getAbsoluteFile().equals(testClasses)),
+                Stream.of(new File(DSpotUtils.pathToDSpotDependencies).getAbsolutePath(),
+                        getLocationOf(TestListener.class),
+                        getLocationOf(TestRunnerWorker.class)
+                )
+        ).distinct().collect(Collectors.joining(AmplificationHelper.PATH_SEPARATOR));
+    }
+
+    private static String getLocationOf(Class<?> clazz) {
+        try {
+            return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Runs the given test methods of the given test classes inside one of the workers of the pool.
+     * As {@link EntryPoint#runTests(String, String, String...)}, the test methods of {@link EntryPoint#blackList} are not run.
+     * This method blocks until a worker is available.
+     *
+     * @param testClassNames the full qualified names of the test classes
+     * @param methodNames    the names of the test methods to be run
+     * @return the result of the run
+     * @throws TimeoutException if the run exceeds {@link EntryPoint#timeoutInMs}
+     */
+    public TestListener runTests(String[] testClassNames, String[] methodNames) throws TimeoutException {
+        final Worker worker = this.acquire();
+        // the worker is given back to the pool only if it answered: otherwise, its state is unknown, and it is destroyed
+        boolean hasAnswered = false;
+        try {
+            worker.in.startTimeout(EntryPoint.timeoutInMs);
+            worker.out.writeObject(testClassNames);
+            worker.out.writeObject(methodNames);
+            worker.out.writeObject(EntryPoint.blackList == null ? new String[0] : EntryPoint.blackList.toArray(new String[0]));
+            worker.out.reset();
+            worker.out.flush();
+            final Object result = worker.objectIn.readObject();
+            hasAnswered = true;
+            if (result instanceof TestListener) {
+                return (TestListener) result;
+            }
+            throw new RuntimeException("The worker could not run " + Arrays.toString(testClassNames) + ":"
+                    + AmplificationHelper.LINE_SEPARATOR + result);
+        } catch (SocketTimeoutException e) {
+            throw new TimeoutException("The worker did not answer after " + EntryPoint.timeoutInMs + " ms");
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException("The worker crashed during the execution of " + Arrays.toString(testClassNames), e);
+        } finally {
+            if (hasAnswered) {
+                this.idleWorkers.add(worker);
+            } else {
+                this.destroy(worker);
+            }
+        }
+    }
+
+    private Worker acquire() {
+        synchronized (this) {
+            final Worker idleWorker = this.idleWorkers.poll();
+            if (idleWorker != null) {
+                return idleWorker;
+            }
+            if (this.workers.size() < this.size) {
+                final Worker worker = this.startWorker();
+                this.workers.add(worker);
+                return worker;
+            }
+        }
+        try {
+            return this.idleWorkers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private synchronized void destroy(Worker worker) {
+        this.workers.remove(worker);
+        worker.stop();
+    }
+
+    private synchronized void stopAllWorkers() {
+        this.workers.forEach(Worker::stop);
+        this.workers.clear();
+        this.idleWorkers.clear();
+    }
+
+    private Worker startWorker() {
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            serverSocket.setSoTimeout(TIME_OUT_TO_START_A_WORKER_IN_MS);
+            final List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + "/bin/java");
+            if (EntryPoint.JVMArgs != null && !EntryPoint.JVMArgs.isEmpty()) {
+                command.addAll(Arrays.asList(EntryPoint.JVMArgs.split(" ")));
+            }
+            command.add("-cp");
+            command.add(this.classpathOfWorkers);
+            command.add(TestRunnerWorker.class.getName());
+            command.add(String.valueOf(serverSocket.getLocalPort()));
+            command.add(this.testClassesPath);
+            final ProcessBuilder processBuilder = new ProcessBuilder(command).redirectErrorStream(true);
+            if (EntryPoint.workingDirectory != null) {
+                processBuilder.directory(EntryPoint.workingDirectory);
+            }
+            if (EntryPoint.verbose) {
+                processBuilder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+            } else {
+                processBuilder.redirectOutput(ProcessBuilder.Redirect.appendTo(new File(DEV_NULL)));
+            }
+            LOGGER.info("Starting a new test runner worker");
+            final Process process = processBuilder.start();
+            try {
+                final Socket socket = serverSocket.accept();
+                return new Worker(process, socket);
+            } catch (IOException e) {
+                process.destroyForcibly();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not start a test runner worker", e);
+        }
+    }
+
+    private static final String DEV_NULL = System.getProperty("os.name").toLowerCase().contains("windows") ? "NUL" : "/dev/null";
+
+    private static class Worker {
+
+        private final Process process;
+
+        private final Socket socket;
+
+        private final ObjectOutputStream out;
+
+        private final DeadlineInputStream in;
+
+        private final ObjectInputStream objectIn;
+
+        private Worker(Process process, Socket socket) throws IOException {
+            this.process = process;
+            this.socket = socket;
+            this.out = new ObjectOutputStream(socket.getOutputStream());
+            this.out.flush();
+            this.in = new DeadlineInputStream(socket);
+            this.in.startTimeout(TIME_OUT_TO_START_A_WORKER_IN_MS);
+            this.objectIn = new ObjectInputStream(this.in);
+        }
+
+        private void stop() {
+            try {
+                this.socket.close();
+            } catch (IOException ignored) {
+                // the worker will be killed anyway
+            }
+            this.process.destroyForcibly();
+        }
+    }
+
+    /*
+        Reading an answer of a worker takes several reads of the socket, and the timeout of the socket applies to each read.
+        This stream sets the timeout of each read to the time left before a deadline,
+        so that the timeout applies to the whole answer.
+     */
+    private static class DeadlineInputStream extends FilterInputStream {
+
+        private final Socket socket;
+
+        private long deadlineInNanos;
+
+        private DeadlineInputStream(Socket socket) throws IOException {
+            super(socket.getInputStream());
+            this.socket = socket;
+        }
+
+        private void startTimeout(int timeoutInMs) {
+            this.deadlineInNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMs);
+        }
+
+        private void setTimeoutOfNextRead() throws IOException {
+            final long timeLeftInMs = TimeUnit.NANOSECONDS.toMillis(this.deadlineInNanos - System.nanoTime());
+            if (timeLeftInMs <= 0) {
+                throw new SocketTimeoutException("The deadline has been exceeded");
+            }
+            // a timeout of 0 would be infinite
+            this.socket.setSoTimeout((int) Math.min(timeLeftInMs, Integer.MAX_VALUE));
+        }
+
+        @Override
+        public int read() throws IOException {
+            this.setTimeoutOfNextRead();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            this.setTimeoutOfNextRead();
+            return super.read(buffer, offset, length);
+        }
+    }
+}
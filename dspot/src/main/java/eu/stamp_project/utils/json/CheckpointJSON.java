@@ -0,0 +1,58 @@
+package eu.stamp_project.utils.json;
+
+import com.google.gson.JsonElement;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The state of the amplification of a test class, saved after each iteration, see {@link eu.stamp_project.dspot.Checkpoint}.
+ * The test methods are referred by their names: the amplified ones are printed in a java file next to this json.
+ */
+public class CheckpointJSON {
+
+    public final String fullQualifiedName;
+    public final List<String> testMethods;
+    public final int indexOfTest;
+    public final int iteration;
+    public final List<String> currentTests;
+    public final List<String> amplifiedTests;
+    public final List<String> selectedTests;
+    public final JsonElement stateOfSelection;
+    public final Map<String, String> parents;
+    public final Map<String, Integer> numberOfAssertionAdded;
+    public final Map<String, Integer> numberOfInputAdded;
+    public final int cloneNumber;
+    public final String random;
+    public final int globalNumberOfSelectedAmplification;
+
+    public CheckpointJSON(String fullQualifiedName,
+                          List<String> testMethods,
+                          int indexOfTest,
+                          int iteration,
+                          List<String> currentTests,
+                          List<String> amplifiedTests,
+                          List<String> selectedTests,
+                          JsonElement stateOfSelection,
+                          Map<String, String> parents,
+                          Map<String, Integer> numberOfAssertionAdded,
+                          Map<String, Integer> numberOfInputAdded,
+                          int cloneNumber,
+                          String random,
+                          int globalNumberOfSelectedAmplification) {
+        this.fullQualifiedName = fullQualifiedName;
+        this.testMethods = testMethods;
+        this.indexOfTest = indexOfTest;
+        this.iteration = iteration;
+        this.currentTests = currentTests;
+        this.amplifiedTests = amplifiedTests;
+        this.selectedTests = selectedTests;
+        this.stateOfSelection = stateOfSelection;
+        this.parents = parents;
+        this.numberOfAssertionAdded = numberOfAssertionAdded;
+        this.numberOfInputAdded = numberOfInputAdded;
+        this.cloneNumber = cloneNumber;
+        this.random = random;
+        this.globalNumberOfSelectedAmplification = globalNumberOfSelectedAmplification;
+    }
+}
@@ -24,4 +24,9 @@ public class ProjectTimeJSON {
         this.classTimes.add(classTimeJSON);
     }
 
+    public boolean contains(String fullQualifiedName) {
+        return this.classTimes.stream()
+                .anyMatch(classTimeJSON -> classTimeJSON.fullQualifiedName.equals(fullQualifiedName));
+    }
+
 }
@@ -74,6 +74,7 @@ public class Utils {
 			builder = inputConfiguration.getBuilder();
 			compiler = DSpotCompiler.createDSpotCompiler(inputConfiguration, inputConfiguration.getDependencies());
 			inputConfiguration.setFactory(compiler.getLauncher().getFactory());
+			inputConfiguration.setCompiler(compiler);
 			currentInputConfigurationLoaded = pathToConfFile;
 		} catch (Exception e) {
 			throw new RuntimeException(e);
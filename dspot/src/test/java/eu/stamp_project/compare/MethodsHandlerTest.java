@@ -0,0 +1,64 @@
+package eu.stamp_project.compare;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+public class MethodsHandlerTest {
+
+    public static class ClassWithGetters {
+
+        public int getInt() {
+            return 1;
+        }
+
+        public String getString() {
+            return "";
+        }
+
+        public List<Integer> getList() {
+            return Collections.emptyList();
+        }
+
+        public Map<String, Integer> getMap() {
+            return Collections.emptyMap();
+        }
+
+        public ClassWithGetters getItself() {
+            return this;
+        }
+
+        public int compute() {
+            return 0;
+        }
+    }
+
+    @Test
+    public void testGetAllGetters() throws Exception {
+
+        /*
+            The getters of a class are found once for the whole JVM, with their method handles and the category of their return type
+         */
+
+        final List<MethodsHandler.Getter> getters = new MethodsHandler().getAllGetters(ClassWithGetters.class);
+        final Map<String, MethodsHandler.ReturnTypeCategory> categoryByName = getters.stream()
+                .collect(Collectors.toMap(getter -> getter.method.getName(), getter -> getter.returnTypeCategory));
+        assertEquals(5, categoryByName.size());
+        assertEquals(MethodsHandler.ReturnTypeCategory.PRIMITIVE, categoryByName.get("getInt"));
+        assertEquals(MethodsHandler.ReturnTypeCategory.PRIMITIVE, categoryByName.get("getString"));
+        assertEquals(MethodsHandler.ReturnTypeCategory.COLLECTION, categoryByName.get("getList"));
+        assertEquals(MethodsHandler.ReturnTypeCategory.MAP, categoryByName.get("getMap"));
+        assertEquals(MethodsHandler.ReturnTypeCategory.COMPLEX, categoryByName.get("getItself"));
+        for (MethodsHandler.Getter getter : getters) {
+            assertNotNull(getter.methodHandle);
+        }
+        assertSame(getters, new MethodsHandler().getAllGetters(ClassWithGetters.class));
+    }
+}
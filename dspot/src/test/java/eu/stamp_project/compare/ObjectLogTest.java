@@ -7,9 +7,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Created by Benjamin DANGLOT
@@ -86,4 +90,211 @@ public class ObjectLogTest {
         assertEquals(20, observationValues.get("(myInternalClass ).getB()"));
 //        assertTrue(add__0.getNotDeterministValues().contains("(myInternalClass ).random()"));
     }
+
+    @Test
+    public void testIsSerializable() throws Exception {
+        assertTrue(ObjectLog.isSerializable(null));
+        assertTrue(ObjectLog.isSerializable(23));
+        assertTrue(ObjectLog.isSerializable("value"));
+        assertTrue(ObjectLog.isSerializable(new int[]{1, 2}));
+        assertTrue(ObjectLog.isSerializable(TimeUnit.SECONDS));
+        assertFalse(ObjectLog.isSerializable(new MyInternalClass(1, 2)));
+        final ArrayList<Object> list = new ArrayList<>();
+        list.add(1);
+        assertTrue(ObjectLog.isSerializable(list));
+        // the serializability of a collection depends on its elements, and a failure does not prevent further checks
+        list.add(new MyInternalClass(1, 2));
+        assertFalse(ObjectLog.isSerializable(list));
+        list.remove(1);
+        assertTrue(ObjectLog.isSerializable(list));
+    }
+
+    public static class ClassWithBlockingGetter {
+
+        private static volatile boolean isBlocking = true;
+
+        public int getBlocking() {
+            // ignores the interruptions
+            while (isBlocking) {
+                Thread.yield();
+            }
+            return 0;
+        }
+
+        public int getValue() {
+            return 23;
+        }
+    }
+
+    @Test
+    public void testObserveWithBlockingGetter() throws Exception {
+
+        /*
+            A getter that does not return in time is not observed, and it does not prevent the observation of the other getters,
+            neither in this object, nor in the next ones.
+         */
+
+        try {
+            ObjectLog.log(new ClassWithBlockingGetter(), "blocking", "test__0");
+            ObjectLog.log(new ClassWithBlockingGetter(), "blocking", "test__1");
+        } finally {
+            ClassWithBlockingGetter.isBlocking = false;
+        }
+        final Map<String, Observation> observations = ObjectLog.getObservations();
+        assertEquals(2, observations.size());
+        for (Observation observation : observations.values()) {
+            assertEquals(1, observation.getObservationValues().size());
+            assertEquals(23, observation.getObservationValues().values().iterator().next());
+        }
+    }
+
+    public static class Node {
+
+        private final int value;
+
+        private final Node next;
+
+        public Node(int value, Node next) {
+            this.value = value;
+            this.next = next;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public String getName() {
+            return "node" + value;
+        }
+
+        public Node getNext() {
+            return next;
+        }
+    }
+
+    @Test
+    public void testObserveWithBudget() throws Exception {
+
+        /*
+            The walk through the observed objects stops at the budget, and the truncated observations are counted
+         */
+
+        final Node node = new Node(0, new Node(1, new Node(2, null)));
+
+        ObjectLog.startRun(new ObservationBudget(1, -1, -1, "", ""));
+        ObjectLog.log(node, "node", "test__0");
+        Observation observation = ObjectLog.getObservations().get("test__0");
+        assertEquals(2, observation.getObservationValues().size());
+        assertEquals(0, observation.getObservationValues().get("((eu.stamp_project.compare.ObjectLogTest.Node)node).getValue()"));
+        // the getters of the next node are not invoked
+        assertEquals(3, observation.getNumberOfTruncatedObservations());
+
+        ObjectLog.reset();
+        ObjectLog.startRun(new ObservationBudget(3, -1, 4, "", ""));
+        ObjectLog.log(node, "node", "test__0");
+        ObjectLog.log(node, "node", "test__1");
+        assertEquals(4, ObjectLog.getObservations().get("test__0").getObservationValues().size());
+        assertTrue(ObjectLog.getObservations().get("test__0").getNumberOfTruncatedObservations() > 0);
+        // the budget is shared by all the observation points of a test method
+        assertTrue(ObjectLog.getObservations().get("test__1").getObservationValues().isEmpty());
+        assertEquals(1, ObjectLog.getObservations().get("test__1").getNumberOfTruncatedObservations());
+        // a new run starts with a new budget, and the same run does not count twice the truncated observations
+        ObjectLog.startRun(new ObservationBudget(3, -1, 4, "", ""));
+        ObjectLog.log(node, "node", "test__0");
+        ObjectLog.log(node, "node", "test__1");
+        assertEquals(4, ObjectLog.getObservations().get("test__0").getObservationValues().size());
+        assertEquals(1, ObjectLog.getObservations().get("test__1").getNumberOfTruncatedObservations());
+
+        ObjectLog.reset();
+        ObjectLog.startRun(new ObservationBudget(3, 1, -1, "", ""));
+        ObjectLog.log(new MyInternalClass(1, 2), "myInternalClass", "test__0");
+        observation = ObjectLog.getObservations().get("test__0");
+        assertEquals(1, observation.getObservationValues().size());
+        assertEquals(2, observation.getNumberOfTruncatedObservations());
+
+        // the values beyond the default depth are never observed: they are not truncated by the default budget
+        ObjectLog.reset();
+        ObjectLog.startRun(ObservationBudget.DEFAULT);
+        ObjectLog.log(new Node(0, new Node(1, new Node(2, new Node(3, new Node(4, null))))), "node", "test__0");
+        observation = ObjectLog.getObservations().get("test__0");
+        assertFalse(observation.getObservationValues().isEmpty());
+        assertEquals(0, observation.getNumberOfTruncatedObservations());
+
+        ObjectLog.reset();
+        ObjectLog.startRun(new ObservationBudget(3, -1, -1, "", ".*\\$Node"));
+        ObjectLog.log(node, "node", "test__0");
+        ObjectLog.log(new MyInternalClass(1, 2), "myInternalClass", "test__1");
+        assertEquals(1, ObjectLog.getObservations().size());
+        assertEquals(3, ObjectLog.getObservations().get("test__1").getObservationValues().size());
+    }
+
+    @Test
+    public void testGetObservationsByTest() throws Exception {
+
+        /*
+            The observations are grouped by test method, and the expressions of the observed values are the same
+            for each observation of the same path
+         */
+
+        final Node node = new Node(0, new Node(1, null));
+        ObjectLog.log(node, "node", "test__0");
+        ObjectLog.log(node, "node", "test__0___end");
+        ObjectLog.log(node, "node", "otherTest__3");
+        final Map<String, Map<String, Observation>> observationsByTest = ObjectLog.getObservationsByTest();
+        assertEquals(2, observationsByTest.size());
+        assertEquals(2, observationsByTest.get("test").size());
+        assertEquals(1, observationsByTest.get("otherTest").size());
+        final Map<String, Object> values = observationsByTest.get("otherTest").get("otherTest__3").getObservationValues();
+        assertEquals(observationsByTest.get("test").get("test__0").getObservationValues(), values);
+        assertEquals(1, values.get("((eu.stamp_project.compare.ObjectLogTest.Node)((eu.stamp_project.compare.ObjectLogTest.Node)node).getNext()).getValue()"));
+        assertTrue(values.containsKey("((eu.stamp_project.compare.ObjectLogTest.Node)((eu.stamp_project.compare.ObjectLogTest.Node)node).getNext()).getNext()"));
+    }
+
+    @Test
+    public void testAbandonedInProcessRun() throws Exception {
+
+        /*
+            The threads of an in-process run record their observations in the ObjectLog of their run.
+            Once the run is abandoned, e.g. after a time out, the observations of its threads are discarded,
+            and are not mixed with the observations of the next run.
+         */
+
+        ObjectLog.resetInMemory();
+        final ObjectLog.InProcessRun abandonedRun = ObjectLog.startInProcessRun();
+        logInRun(abandonedRun, "abandoned__0");
+        assertEquals(1, ObjectLog.getObservations().size());
+        abandonedRun.abandon();
+
+        ObjectLog.resetInMemory();
+        final ObjectLog.InProcessRun run = ObjectLog.startInProcessRun();
+        logInRun(abandonedRun, "abandoned__1");
+        logInRun(run, "test__0");
+        assertEquals(1, ObjectLog.getObservations().size());
+        assertTrue(ObjectLog.getObservations().containsKey("test__0"));
+    }
+
+    private void logInRun(ObjectLog.InProcessRun run, String id) throws InterruptedException {
+        final Thread thread = new Thread(() -> {
+            run.join();
+            ObjectLog.log(1, "value", id);
+        });
+        thread.start();
+        thread.join();
+    }
+
+    @Test
+    public void testFailureOfObservation() throws Exception {
+
+        /*
+            An observation that fails, e.g. on a null value, throws an ObservationException,
+            so that the failure of the instrumentation is told apart from a failure of the test method.
+         */
+
+        try {
+            ObjectLog.log(null, "nullValue", "test__1");
+            fail("The observation of a null value should have failed");
+        } catch (ObservationException e) {
+            assertTrue(e.getCause() instanceof NullPointerException);
+        }
+    }
 }
@@ -0,0 +1,108 @@
+package eu.stamp_project.compare;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ObservationChannelTest {
+
+    private final File file = new File("target/dspot/test-observations.bin");
+
+    @After
+    public void tearDown() throws Exception {
+        this.file.delete();
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+
+        /*
+            The observations are read back as they were written, segment after segment,
+            and they are replayed on Observation, that detects the non-deterministic values
+         */
+
+        final Map<String, Integer> map = new HashMap<>();
+        map.put("key", 23);
+        try (ObservationChannel channel = new ObservationChannel(this.file, false)) {
+            channel.write("test__1", root(channel, "a"), 1);
+            channel.write("test__1", root(channel, "b"), "value");
+            channel.write("test__1", root(channel, "c"), null);
+            channel.write("test__1", root(channel, "d"), new int[]{1, 2});
+            channel.write("test__1", root(channel, "e"), Arrays.asList(1L, null, 3L));
+            channel.write("test__1", root(channel, "f"), map);
+            channel.write("test__1", root(channel, "g"), new Character[]{'a', null});
+            channel.write("test__1", root(channel, "h"), Collections.singleton(true));
+            final int i = root(channel, "i");
+            channel.write("test__1", i, 2.5D);
+            channel.write("test__1", 0, 1);
+            channel.write("test__1", i, 3.5D);
+        }
+        try (ObservationChannel channel = new ObservationChannel(this.file, true)) {
+            channel.write("test__2", root(channel, "a"), 'c');
+            channel.write("test__1", root(channel, "b"), "value");
+        }
+
+        final Map<String, Observation> observations = ObservationChannel.read(this.file);
+        assertEquals(2, observations.size());
+        final Observation test1 = observations.get("test__1");
+        final Map<String, Object> values = test1.getObservationValues();
+        assertEquals(1, values.get("a"));
+        assertEquals("value", values.get("b"));
+        assertTrue(values.containsKey("c"));
+        assertNull(values.get("c"));
+        assertArrayEquals(new int[]{1, 2}, (int[]) values.get("d"));
+        assertEquals(Arrays.asList(1L, null, 3L), values.get("e"));
+        assertEquals(map, values.get("f"));
+        assertArrayEquals(new Character[]{'a', null}, (Character[]) values.get("g"));
+        assertEquals(new HashSet<>(Collections.singletonList(true)), values.get("h"));
+        assertEquals(Collections.singleton("i"), test1.getNotDeterministValues());
+        assertEquals('c', observations.get("test__2").getObservationValues().get("a"));
+
+        /*
+            A truncated channel is read until its last complete record
+         */
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(this.file, "rw")) {
+            randomAccessFile.setLength(randomAccessFile.length() - 2);
+        }
+        final Map<String, Observation> truncatedObservations = ObservationChannel.read(this.file);
+        assertEquals(2, truncatedObservations.size());
+        assertEquals(Collections.singleton("a"), truncatedObservations.get("test__2").getObservationValues().keySet());
+        assertEquals(values.keySet(), truncatedObservations.get("test__1").getObservationValues().keySet());
+    }
+
+    private static int root(ObservationChannel channel, String expression) throws Exception {
+        return channel.definePath(ObservationPaths.ROOT, -1, "", expression);
+    }
+
+    @Test
+    public void testWritePaths() throws Exception {
+
+        /*
+            The expressions of the paths are built when the channel is read, from the paths of their parents
+         */
+
+        try (ObservationChannel channel = new ObservationChannel(this.file, false)) {
+            final int object = root(channel, "object");
+            final int list = channel.definePath(ObservationPaths.GETTER, object, "(my.pkg.MyClass)", "getList");
+            channel.write("test__1", channel.definePath(ObservationPaths.IS_EMPTY, list, "", "isEmpty"), true);
+            channel.write("test__1", channel.definePath(ObservationPaths.GETTER, object, "(my.pkg.MyClass)", "getValue"), 23);
+        }
+        final Map<String, Object> values = ObservationChannel.read(this.file).get("test__1").getObservationValues();
+        assertEquals(2, values.size());
+        assertEquals(true, values.get("((my.pkg.MyClass)object).getList().isEmpty()"));
+        assertEquals(23, values.get("((my.pkg.MyClass)object).getValue()"));
+    }
+}
@@ -2,16 +2,29 @@ package eu.stamp_project.dspot;
 
 import eu.stamp_project.AbstractTest;
 import eu.stamp_project.Utils;
+import eu.stamp_project.dspot.amplifier.Amplifier;
+import eu.stamp_project.dspot.amplifier.TestMethodCallAdder;
+import eu.stamp_project.dspot.selector.TakeAllSelector;
+import eu.stamp_project.program.InputConfiguration;
+import eu.stamp_project.utils.AmplificationHelper;
 import org.junit.Ignore;
 import org.junit.Test;
 import spoon.reflect.declaration.CtClass;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.factory.Factory;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static eu.stamp_project.utils.AmplificationHelper.prepareTestMethod;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by Benjamin DANGLOT
@@ -46,6 +59,61 @@ public class AmplificationTest extends AbstractTest {
 //        assertEquals(4, testListener.getPassingTests().size());
     }
 
+    @Test
+    public void testPipelinedAmplification() throws Exception {
+
+        /*
+            With a pipeline, the iterations of different test methods are amplified at the same time.
+            The amplified test methods are the same as without pipeline.
+            The input amplification works on clones, but the amplified test methods are attached to the original test methods.
+         */
+
+        final InputConfiguration configuration = Utils.getInputConfiguration();
+        final List<CtMethod<?>> testMethodsToBeAmplified = Collections.synchronizedList(new ArrayList<>());
+        final List<CtMethod<?>> inputAmplifiedTestMethods = Collections.synchronizedList(new ArrayList<>());
+        final List<Amplifier> amplifiers = Collections.singletonList(new TestMethodCallAdder() {
+            @Override
+            public Stream<CtMethod<?>> amplify(CtMethod<?> method, int iteration) {
+                testMethodsToBeAmplified.add(method);
+                final List<CtMethod<?>> amplifiedTestMethods = super.amplify(method, iteration).collect(Collectors.toList());
+                inputAmplifiedTestMethods.addAll(amplifiedTestMethods);
+                return amplifiedTestMethods.stream();
+            }
+        });
+        configuration.setAmplifiers(amplifiers);
+        final CtClass<?> testClass = Utils.findClass("fr.inria.sample.TestClassWithoutAssert");
+        try {
+            final Set<String> withoutPipeline = amplifyAndGetNamesOfKeptTestMethods(testClass, amplifiers);
+            configuration.setPipelineCapacity(2);
+            testMethodsToBeAmplified.clear();
+            inputAmplifiedTestMethods.clear();
+            final Set<String> withPipeline = amplifyAndGetNamesOfKeptTestMethods(testClass, amplifiers);
+            assertFalse(withoutPipeline.isEmpty());
+            assertEquals(withoutPipeline, withPipeline);
+
+            assertFalse(testMethodsToBeAmplified.isEmpty());
+            assertTrue(testMethodsToBeAmplified.stream().noneMatch(testMethod -> testMethod.getDeclaringType() == testClass));
+            assertTrue(inputAmplifiedTestMethods.stream()
+                    .map(AmplificationHelper::getAmpTestParent)
+                    .filter(Objects::nonNull)
+                    .allMatch(parent -> testClass.getMethods().stream().anyMatch(testMethod -> testMethod == parent))
+            );
+        } finally {
+            configuration.setPipelineCapacity(1);
+        }
+    }
+
+    private Set<String> amplifyAndGetNamesOfKeptTestMethods(CtClass<?> testClass, List<Amplifier> amplifiers) throws Exception {
+        AmplificationHelper.reset();
+        final TakeAllSelector testSelector = new TakeAllSelector();
+        testSelector.init(Utils.getInputConfiguration());
+        final Amplification amplification = new Amplification(Utils.getInputConfiguration(), amplifiers, testSelector, Utils.getCompiler());
+        amplification.amplification(testClass, 1);
+        return testSelector.getAmplifiedTestCases().stream()
+                .map(CtMethod::getSimpleName)
+                .collect(Collectors.toSet());
+    }
+
     /**
      * Tests that original test annotations are kept and modified correctly.
      */
@@ -0,0 +1,104 @@
+package eu.stamp_project.dspot;
+
+import eu.stamp_project.AbstractTest;
+import eu.stamp_project.Utils;
+import eu.stamp_project.dspot.selector.TakeAllSelector;
+import eu.stamp_project.utils.AmplificationHelper;
+import eu.stamp_project.utils.Counter;
+import org.junit.After;
+import org.junit.Test;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CheckpointTest extends AbstractTest {
+
+    private CtClass<?> testClass;
+
+    private Checkpoint checkpoint;
+
+    @After
+    public void tearDown() throws Exception {
+        this.checkpoint.delete(this.testClass);
+        Counter.reset();
+        AmplificationHelper.reset();
+    }
+
+    @Test
+    public void testSaveAndRestore() throws Exception {
+
+        /*
+            The checkpoint restores the state of the amplification, as it was saved:
+                - the amplified test methods, built in the model of the test class, that is left unchanged
+                - their parents
+                - the Counter, the number of the next amplified test method and the random generator
+                - the selection
+         */
+
+        this.testClass = Utils.findClass("fr.inria.sample.TestClassWithoutAssert");
+        this.checkpoint = new Checkpoint(Utils.getInputConfiguration());
+        final List<CtMethod<?>> testMethods = AmplificationHelper.getAllTest(this.testClass);
+        final CtMethod<?> test1 = this.testClass.getMethodsByName("test1").get(0);
+        final CtMethod<?> amplifiedTest = AmplificationHelper.cloneTestMethodForAmp(test1, "_amp");
+        final CtMethod<?> amplifiedTwiceTest = AmplificationHelper.cloneTestMethodForAmp(amplifiedTest, "_amp");
+        Counter.updateInputOf(amplifiedTest, 2);
+        Counter.updateInputOf(amplifiedTwiceTest, 1);
+        final TakeAllSelector selector = new TakeAllSelector();
+        selector.init(Utils.getInputConfiguration());
+        selector.selectToAmplify(testMethods);
+        selector.selectToKeep(Collections.singletonList(amplifiedTwiceTest));
+        final int cloneNumber = AmplificationHelper.getCloneNumber();
+        AmplificationHelper.setSeedRandom(72L);
+        final int nextRandomInt = AmplificationHelper.getRandom().nextInt();
+        AmplificationHelper.setSeedRandom(72L);
+
+        this.checkpoint.save(this.testClass, testMethods,
+                new Checkpoint.State(0, 2, new ArrayList<>(Collections.singletonList(amplifiedTwiceTest)),
+                        new ArrayList<>(Collections.singletonList(amplifiedTwiceTest)), 3),
+                selector
+        );
+
+        Counter.reset();
+        AmplificationHelper.reset();
+        AmplificationHelper.setSeedRandom(23L);
+        final TakeAllSelector newSelector = new TakeAllSelector();
+        newSelector.init(Utils.getInputConfiguration());
+        newSelector.selectToAmplify(testMethods);
+        final Checkpoint.State state = this.checkpoint.restore(this.testClass, testMethods, newSelector);
+
+        assertEquals(0, state.indexOfTest);
+        assertEquals(2, state.iteration);
+        assertEquals(3, state.globalNumberOfSelectedAmplification);
+        assertEquals(1, state.currentTests.size());
+        final CtMethod<?> restoredTest = state.currentTests.get(0);
+        assertNotSame(amplifiedTwiceTest, restoredTest);
+        assertEquals(amplifiedTwiceTest.getSimpleName(), restoredTest.getSimpleName());
+        assertEquals(amplifiedTwiceTest.getBody().getStatements().size(), restoredTest.getBody().getStatements().size());
+        assertSame(restoredTest, state.amplifiedTests.get(0));
+        assertSame(restoredTest, newSelector.getAmplifiedTestCases().get(0));
+        assertEquals(amplifiedTest.getSimpleName(), AmplificationHelper.getAmpTestParent(restoredTest).getSimpleName());
+        assertSame(test1, AmplificationHelper.getTopParent(restoredTest));
+        assertEquals(3, Counter.getInputOfSinceOrigin(restoredTest).intValue());
+        assertEquals(cloneNumber, AmplificationHelper.getCloneNumber());
+        assertEquals(nextRandomInt, AmplificationHelper.getRandom().nextInt());
+        assertSame(this.testClass, Utils.findClass("fr.inria.sample.TestClassWithoutAssert"));
+        assertEquals(testMethods.size(), AmplificationHelper.getAllTest(this.testClass).size());
+
+        /*
+            The checkpoint is ignored if the test methods to be amplified are not the same,
+            and there is no checkpoint once deleted.
+         */
+
+        assertNull(this.checkpoint.restore(this.testClass, testMethods.subList(0, 1), newSelector));
+        this.checkpoint.delete(this.testClass);
+        assertNull(this.checkpoint.restore(this.testClass, testMethods, newSelector));
+    }
+}
@@ -0,0 +1,69 @@
+package eu.stamp_project.dspot;
+
+import com.martiansoftware.jsap.JSAPResult;
+import eu.stamp_project.options.JSAPOptions;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelDSpotTest {
+
+    @Test
+    public void testDistribute() throws Exception {
+
+        /*
+            The test classes are distributed one after the other to the workers.
+            There are no more workers than test classes.
+         */
+
+        final List<String> testClasses = Arrays.asList("ATest", "BTest", "CTest", "DTest", "ETest");
+        final List<List<String>> testClassesPerWorker = ParallelDSpot.distribute(testClasses, 2);
+        assertEquals(2, testClassesPerWorker.size());
+        assertEquals(Arrays.asList("ATest", "CTest", "ETest"), testClassesPerWorker.get(0));
+        assertEquals(Arrays.asList("BTest", "DTest"), testClassesPerWorker.get(1));
+
+        assertEquals(5, ParallelDSpot.distribute(testClasses, 8).size());
+        assertTrue(ParallelDSpot.distribute(Collections.emptyList(), 8).isEmpty());
+    }
+
+    @Test
+    public void testBuildArgumentsOfWorker() throws Exception {
+
+        /*
+            The arguments of a worker are the arguments given to DSpot, except the overridden ones.
+         */
+
+        final JSAPResult jsapResult = JSAPOptions.options.parse(new String[]{
+                "--path-to-properties", "src/test/resources/sample/sample.properties",
+                "--test", "fr.inria.sample.TestClassWithAssert:fr.inria.sample.TestClassWithoutAssert",
+                "--iteration", "1",
+                "--amplifiers", "MethodAdd:TestDataMutator",
+                "--verbose",
+                "--parallel-classes", "2"
+        });
+        final Map<String, String> overridden = new HashMap<>();
+        overridden.put("path", "/tmp/worker-0/dspot.properties");
+        overridden.put("test", "fr.inria.sample.TestClassWithoutAssert");
+        overridden.put("parallelClasses", "0");
+
+        final JSAPResult resultOfWorker = JSAPOptions.options.parse(ParallelDSpot.buildArgumentsOfWorker(jsapResult, overridden));
+        assertTrue(resultOfWorker.success());
+        assertEquals("/tmp/worker-0/dspot.properties", resultOfWorker.getString("path"));
+        assertArrayEquals(new String[]{"fr.inria.sample.TestClassWithoutAssert"}, resultOfWorker.getStringArray("test"));
+        assertEquals(0, resultOfWorker.getInt("parallelClasses"));
+        assertEquals(1, resultOfWorker.getInt("iteration"));
+        assertArrayEquals(new String[]{"MethodAdd", "TestDataMutator"}, resultOfWorker.getStringArray("amplifiers"));
+        assertTrue(resultOfWorker.getBoolean("verbose"));
+        assertFalse(resultOfWorker.getBoolean("clean"));
+        assertFalse(resultOfWorker.contains("mutant"));
+    }
+}
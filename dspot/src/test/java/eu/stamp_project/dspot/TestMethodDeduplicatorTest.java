@@ -0,0 +1,140 @@
+package eu.stamp_project.dspot;
+
+import eu.stamp_project.AbstractTest;
+import eu.stamp_project.Utils;
+import org.junit.Test;
+import spoon.refactoring.Refactoring;
+import spoon.reflect.code.CtLiteral;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class TestMethodDeduplicatorTest extends AbstractTest {
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRemoveDuplicates() throws Exception {
+
+        /*
+            The test methods that differ only by their name, the names of their local variables or their comments are duplicates.
+            The duplicates are discarded within the given test methods, and against the test methods seen before.
+         */
+
+        final CtMethod<?> test1 = Utils.findMethod("fr.inria.sample.TestClassWithoutAssert", "test1");
+
+        final CtMethod<?> renamed = test1.clone();
+        renamed.setSimpleName("test1_amplified");
+        Refactoring.changeLocalVariableName(renamed.getElements(new TypeFilter<>(CtLocalVariable.class)).get(0), "renamedVariable");
+        renamed.getBody().insertBegin(renamed.getFactory().createInlineComment("a comment"));
+        assertEquals(TestMethodDeduplicator.structuralHash(test1), TestMethodDeduplicator.structuralHash(renamed));
+
+        final CtMethod<?> withAnotherLiteral = test1.clone();
+        withAnotherLiteral.setSimpleName("test1_literal");
+        ((CtLiteral<String>) withAnotherLiteral.getElements(new TypeFilter<>(CtLiteral.class)).get(0)).setValue("another");
+        assertNotEquals(TestMethodDeduplicator.structuralHash(test1), TestMethodDeduplicator.structuralHash(withAnotherLiteral));
+
+        final TestMethodDeduplicator deduplicator = new TestMethodDeduplicator();
+        deduplicator.reset(Collections.singletonList(Utils.findMethod("fr.inria.sample.TestClassWithoutAssert", "test2")));
+        final CtMethod<?> renamedAgain = renamed.clone();
+        renamedAgain.setSimpleName("test1_amplified_again");
+        List<CtMethod<?>> uniqueTestMethods = deduplicator.removeDuplicates(Arrays.asList(renamed, withAnotherLiteral, renamedAgain));
+        assertEquals(2, uniqueTestMethods.size());
+        assertSame(renamed, uniqueTestMethods.get(0));
+        assertSame(withAnotherLiteral, uniqueTestMethods.get(1));
+        assertEquals(1, deduplicator.getNumberOfDiscardedTestMethods());
+
+        // the test methods seen at a previous iteration, and the original ones, are duplicates as well
+        uniqueTestMethods = deduplicator.removeDuplicates(Arrays.asList(test1,
+                Utils.findMethod("fr.inria.sample.TestClassWithoutAssert", "test2").clone()));
+        assertEquals(0, uniqueTestMethods.size());
+        assertEquals(3, deduplicator.getNumberOfDiscardedTestMethods());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRemoveDuplicatesWithTheSameHash() throws Exception {
+
+        /*
+            Two different test methods may have the same structural hash: here, "Aa" and "BB" have the same hash code.
+            Such test methods are not duplicates, and are both kept.
+         */
+
+        final CtMethod<?> test1 = Utils.findMethod("fr.inria.sample.TestClassWithoutAssert", "test1");
+        final CtMethod<?> withAa = test1.clone();
+        withAa.setSimpleName("test1_Aa");
+        ((CtLiteral<String>) withAa.getElements(new TypeFilter<>(CtLiteral.class)).get(0)).setValue("Aa");
+        final CtMethod<?> withBB = test1.clone();
+        withBB.setSimpleName("test1_BB");
+        ((CtLiteral<String>) withBB.getElements(new TypeFilter<>(CtLiteral.class)).get(0)).setValue("BB");
+        assertEquals(TestMethodDeduplicator.structuralHash(withAa), TestMethodDeduplicator.structuralHash(withBB));
+        assertFalse(TestMethodDeduplicator.structurallyEquals(withAa, withBB));
+
+        final TestMethodDeduplicator deduplicator = new TestMethodDeduplicator();
+        deduplicator.reset(Collections.emptyList());
+        final List<CtMethod<?>> uniqueTestMethods = deduplicator.removeDuplicates(Arrays.asList(withAa, withBB, withBB.clone()));
+        assertEquals(2, uniqueTestMethods.size());
+        assertSame(withAa, uniqueTestMethods.get(0));
+        assertSame(withBB, uniqueTestMethods.get(1));
+        assertEquals(1, deduplicator.getNumberOfDiscardedTestMethods());
+    }
+
+    @Test
+    public void testRemoveDuplicatesWithCodeSnippets() throws Exception {
+
+        /*
+            The text of the code snippets, e.g. the assertions on arrays, is part of the structure:
+            two test methods that differ only by a code snippet are not duplicates.
+         */
+
+        final CtMethod<?> test1 = Utils.findMethod("fr.inria.sample.TestClassWithoutAssert", "test1");
+        final CtMethod<?> withFirstSnippet = test1.clone();
+        withFirstSnippet.setSimpleName("test1_first");
+        withFirstSnippet.getBody().insertEnd(
+                withFirstSnippet.getFactory().createCodeSnippetStatement("org.junit.Assert.assertArrayEquals(new int[]{1}, array_1)"));
+        final CtMethod<?> withSecondSnippet = test1.clone();
+        withSecondSnippet.setSimpleName("test1_second");
+        withSecondSnippet.getBody().insertEnd(
+                withSecondSnippet.getFactory().createCodeSnippetStatement("org.junit.Assert.assertArrayEquals(new int[]{2}, array_2)"));
+        assertNotEquals(TestMethodDeduplicator.structuralHash(withFirstSnippet), TestMethodDeduplicator.structuralHash(withSecondSnippet));
+        assertFalse(TestMethodDeduplicator.structurallyEquals(withFirstSnippet, withSecondSnippet));
+
+        final TestMethodDeduplicator deduplicator = new TestMethodDeduplicator();
+        deduplicator.reset(Collections.emptyList());
+        final List<CtMethod<?>> uniqueTestMethods = deduplicator.removeDuplicates(Arrays.asList(withFirstSnippet, withSecondSnippet));
+        assertEquals(2, uniqueTestMethods.size());
+        assertEquals(0, deduplicator.getNumberOfDiscardedTestMethods());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testMarkAsSeen() throws Exception {
+
+        /*
+            On resume, the test methods restored by the checkpoint are marked as seen, without being counted as discarded:
+            the amplified test methods identical to them are then discarded, as in an uninterrupted run.
+         */
+
+        final CtMethod<?> test1 = Utils.findMethod("fr.inria.sample.TestClassWithoutAssert", "test1");
+        final CtMethod<?> restored = test1.clone();
+        restored.setSimpleName("test1_restored");
+        ((CtLiteral<String>) restored.getElements(new TypeFilter<>(CtLiteral.class)).get(0)).setValue("restored");
+
+        final TestMethodDeduplicator deduplicator = new TestMethodDeduplicator();
+        deduplicator.reset(Collections.singletonList(test1));
+        deduplicator.markAsSeen(Arrays.asList(restored, restored.clone()));
+        assertEquals(0, deduplicator.getNumberOfDiscardedTestMethods());
+        final CtMethod<?> amplifiedAgain = restored.clone();
+        amplifiedAgain.setSimpleName("test1_amplified_again");
+        assertEquals(0, deduplicator.removeDuplicates(Collections.singletonList(amplifiedAgain)).size());
+        assertEquals(1, deduplicator.getNumberOfDiscardedTestMethods());
+    }
+}
@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -26,6 +27,28 @@ import static org.junit.Assert.assertTrue;
  */
 public class MethodGeneratorAmplifierTest extends AbstractTest {
 
+    @Test
+    public void testFindMethodsWithTargetTypeIsCached() throws Exception {
+
+        /*
+            The methods that can be called on a type are computed once: the next look-ups of the same type hit the cache.
+         */
+
+        final Factory factory = Utils.getFactory();
+        AmplifierHelper.resetMethodsWithTargetTypeCache();
+        final List<CtMethod<?>> methods = AmplifierHelper.findMethodsWithTargetType(
+                factory.Class().get("fr.inria.statementadd.ClassTarget").getReference()
+        );
+        assertEquals(0, AmplifierHelper.getNumberOfCacheHits());
+        assertEquals(1, AmplifierHelper.getNumberOfCacheMisses());
+        assertSame(methods, AmplifierHelper.findMethodsWithTargetType(
+                factory.Type().createReference("fr.inria.statementadd.ClassTarget")
+        ));
+        assertEquals(1, AmplifierHelper.getNumberOfCacheHits());
+        assertEquals(1, AmplifierHelper.getNumberOfCacheMisses());
+        AmplifierHelper.resetMethodsWithTargetTypeCache();
+    }
+
     @Test
     public void testInLoop() throws Exception {
 
@@ -15,6 +15,7 @@ import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -205,6 +206,39 @@ public class TestDataMutatorTest extends AbstractTest {
         }
     }
 
+    @Test
+    public void testDescribe() throws Exception {
+
+        /*
+            The mutants are described without cloning the test method: only the materialized ones are cloned.
+            The test method is left unchanged by the materialization: the literal is replaced in the clone,
+            by a copy of the amplified element, so that a descriptor can be materialized again.
+         */
+
+        final String nameMethod = "methodInteger";
+        CtClass<Object> literalMutationClass = Utils.getFactory().Class().get("fr.inria.amp.LiteralMutation");
+        AmplificationHelper.reset();
+        AmplificationHelper.setSeedRandom(42L);
+        TestDataMutator amplifier = getTestDataMutator(literalMutationClass);
+        CtMethod method = literalMutationClass.getMethod(nameMethod);
+        final String originalMethod = method.toString();
+
+        List<AmplificationDescriptor> descriptors = amplifier.describe(method, 0).collect(Collectors.toList());
+        assertEquals(6, descriptors.size());
+        assertTrue(AmplificationHelper.ampTestToParent.isEmpty());
+
+        CtMethod<?> mutantMethod = descriptors.get(2).materialize();
+        assertEquals(1, AmplificationHelper.ampTestToParent.size());
+        assertEquals(nameMethod + SUFFIX_MUTATION + "Number" + 1, mutantMethod.getSimpleName());
+        assertEquals(((CtLiteral<?>) descriptors.get(2).getAmplifiedElement()).getValue(),
+                mutantMethod.getBody().getElements(new TypeFilter<>(CtLiteral.class)).get(0).getValue());
+        assertNotSame(descriptors.get(2).getAmplifiedElement(),
+                mutantMethod.getBody().getElements(new TypeFilter<>(CtLiteral.class)).get(0));
+        assertEquals(originalMethod, method.toString());
+        assertEquals(mutantMethod.getBody(), descriptors.get(2).materialize().getBody());
+        assertEquals(originalMethod, method.toString());
+    }
+
     private TestDataMutator getTestDataMutator(CtClass<Object> literalMutationClass) {
         TestDataMutator amplifier = new TestDataMutator();
         amplifier.reset(literalMutationClass);
@@ -0,0 +1,65 @@
+package eu.stamp_project.dspot.amplifier.value;
+
+import eu.stamp_project.AbstractTest;
+import eu.stamp_project.Utils;
+import org.junit.Test;
+import spoon.Launcher;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.reference.CtTypeReference;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ModelIndexTest extends AbstractTest {
+
+    @Test
+    public void testIndex() throws Exception {
+
+        /*
+            The index is built once for the model, and gives the factory methods of a type,
+            and its constructors, without traversing the model again.
+         */
+
+        final Factory factory = Utils.getFactory();
+        final ModelIndex modelIndex = ModelIndex.get(factory);
+        assertSame(modelIndex, ModelIndex.get(factory));
+
+        final CtClass<?> aClass = factory.Class().get("fr.inria.factory.FactoryTest").getNestedType("aClass");
+        final List<CtMethod<?>> factoryMethods = modelIndex.getFactoryMethods(aClass.getReference());
+        assertEquals(2, factoryMethods.size());
+        assertEquals("createAClass", factoryMethods.get(0).getSimpleName());
+        assertEquals("build", factoryMethods.get(1).getSimpleName());
+
+        assertEquals(2, modelIndex.getConstructors(aClass).size());
+        assertSame(modelIndex.getConstructors(aClass), modelIndex.getConstructors(aClass));
+
+        // the result is the same for an equal reference
+        final CtTypeReference<?> reference = factory.Type().createReference("fr.inria.factory.FactoryTest$aClass");
+        assertTrue(ValueCreatorHelper.canGenerateAValueForType(aClass.getReference()));
+        assertTrue(ValueCreatorHelper.canGenerateAValueForType(reference));
+    }
+
+    @Test
+    public void testCanGenerateAValueForTypesInACycle() throws Exception {
+
+        /*
+            Cycle needs Cycle.Inner, which needs Cycle: the result of Cycle.Inner computed while Cycle is in progress,
+            i.e. false, is not kept. Cycle can then be built with its constructor without parameters, and so can Cycle.Inner.
+         */
+
+        final CtClass<?> cycle = Launcher.parseClass("public class Cycle {" +
+                "    public Cycle(Cycle.Inner inner) { }" +
+                "    public Cycle() { }" +
+                "    public static class Inner {" +
+                "        public Inner(Cycle cycle) { }" +
+                "    }" +
+                "}");
+        assertTrue(ValueCreatorHelper.canGenerateAValueForType(cycle.getReference()));
+        assertTrue(ValueCreatorHelper.canGenerateAValueForType(cycle.getNestedType("Inner").getReference()));
+    }
+}
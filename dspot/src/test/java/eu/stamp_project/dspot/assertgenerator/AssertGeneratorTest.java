@@ -2,6 +2,8 @@ package eu.stamp_project.dspot.assertgenerator;
 
 import eu.stamp_project.AbstractTest;
 import eu.stamp_project.Utils;
+import eu.stamp_project.compare.ObservationException;
+import eu.stamp_project.testrunner.runner.test.Failure;
 import eu.stamp_project.utils.AmplificationChecker;
 import eu.stamp_project.utils.AmplificationHelper;
 import org.junit.After;
@@ -15,10 +17,13 @@ import spoon.reflect.reference.CtReference;
 import spoon.reflect.visitor.filter.NamedElementFilter;
 import spoon.reflect.visitor.filter.TypeFilter;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -41,6 +46,8 @@ public class AssertGeneratorTest extends AbstractTest {
     public void tearDown() throws Exception {
         Utils.getInputConfiguration().setWithComment(false);
         Utils.getInputConfiguration().setTimeOutInMs(10000);
+        Utils.getInputConfiguration().setCombineObservationRuns(false);
+        Utils.getInputConfiguration().setInProcessAssertionRun(false);
     }
 
     @Test
@@ -154,6 +161,63 @@ public class AssertGeneratorTest extends AbstractTest {
         assertEquals(2, amplifiedTestMethod.getElements(new AssertionFilterName("getNull", ASSERT_NULL)).size());
     }
 
+    @Test
+    public void testBuildNewAssertWithOneRun() throws Exception {
+        /*
+            With a single run of the instrumented tests, DSpot generates the same assertions,
+            and still generates try/catch/fail blocks on failing tests
+         */
+        CtClass<?> testClass = Utils.findClass("fr.inria.sample.TestClassWithoutAssert");
+        CtMethod<?> test1 = Utils.findMethod("fr.inria.sample.TestClassWithoutAssert", "test1");
+        // the order of the observed getters may change from a JVM to another, so the lines are compared as sets
+        final List<String> expectedLines = Arrays.asList(
+                assertGenerator.assertionAmplification(testClass, Collections.singletonList(test1))
+                        .get(0)
+                        .getBody()
+                        .toString()
+                        .split(AmplificationHelper.LINE_SEPARATOR)
+        );
+
+        Utils.getInputConfiguration().setCombineObservationRuns(true);
+        assertGenerator = new AssertGenerator(Utils.getInputConfiguration(), Utils.getCompiler());
+        List<CtMethod<?>> amplifiedTestMethods = assertGenerator.assertionAmplification(testClass, Collections.singletonList(test1));
+        assertEquals(1, amplifiedTestMethods.size());
+        final List<String> actualLines = Arrays.asList(amplifiedTestMethods.get(0).getBody().toString().split(AmplificationHelper.LINE_SEPARATOR));
+        assertEquals(expectedLines.size(), actualLines.size());
+        assertEquals(new HashSet<>(expectedLines), new HashSet<>(actualLines));
+
+        testClass = Utils.findClass("fr.inria.filter.failing.FailingTest");
+        final CtMethod<?> testFailing = Utils.findMethod("fr.inria.filter.failing.FailingTest", "testFailingWithException");
+        amplifiedTestMethods = assertGenerator.assertionAmplification(testClass, Collections.singletonList(testFailing));
+        assertEquals(1, amplifiedTestMethods.size());
+        assertTrue(amplifiedTestMethods.get(0).getBody().toString().contains("org.junit.Assert.fail("));
+    }
+
+    @Test
+    public void testBuildNewAssertInProcess() throws Exception {
+        /*
+            When the instrumented tests are run inside the JVM of DSpot, DSpot generates the same assertions
+         */
+        CtClass<?> testClass = Utils.findClass("fr.inria.sample.TestClassWithoutAssert");
+        CtMethod<?> test1 = Utils.findMethod("fr.inria.sample.TestClassWithoutAssert", "test1");
+        // the order of the observed getters may change from a JVM to another, so the lines are compared as sets
+        final List<String> expectedLines = Arrays.asList(
+                assertGenerator.assertionAmplification(testClass, Collections.singletonList(test1))
+                        .get(0)
+                        .getBody()
+                        .toString()
+                        .split(AmplificationHelper.LINE_SEPARATOR)
+        );
+
+        Utils.getInputConfiguration().setInProcessAssertionRun(true);
+        assertGenerator = new AssertGenerator(Utils.getInputConfiguration(), Utils.getCompiler());
+        final List<CtMethod<?>> amplifiedTestMethods = assertGenerator.assertionAmplification(testClass, Collections.singletonList(test1));
+        assertEquals(1, amplifiedTestMethods.size());
+        final List<String> actualLines = Arrays.asList(amplifiedTestMethods.get(0).getBody().toString().split(AmplificationHelper.LINE_SEPARATOR));
+        assertEquals(expectedLines.size(), actualLines.size());
+        assertEquals(new HashSet<>(expectedLines), new HashSet<>(actualLines));
+    }
+
     @Test
     public void testAssertsOnMaps() throws Exception {
         CtClass testClass = Utils.findClass("fr.inria.sample.TestClassWithoutAssert");
@@ -196,4 +260,18 @@ public class AssertGeneratorTest extends AbstractTest {
         final List<CtMethod<?>> generatedAssertion = assertGenerator.assertionAmplification(testClass, Collections.singletonList(testAssertionError));
         assertTrue(generatedAssertion.isEmpty());
     }
+
+    @Test
+    public void testIsThrownByObservation() throws Exception {
+
+        /*
+            A failure of the instrumentation is recognized by the type of the exception thrown by ObjectLog,
+            and not by the classes in its stack trace: an exception thrown by the program under test is not one.
+         */
+
+        assertTrue(AssertGenerator.isThrownByObservation(new Failure("test", "fr.inria.sample.TestClass",
+                new ObservationException("test__1", new NullPointerException()))));
+        assertFalse(AssertGenerator.isThrownByObservation(new Failure("test", "fr.inria.sample.TestClass",
+                new NullPointerException())));
+    }
 }
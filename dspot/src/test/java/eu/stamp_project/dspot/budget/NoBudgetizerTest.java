@@ -0,0 +1,61 @@
+package eu.stamp_project.dspot.budget;
+
+import eu.stamp_project.AbstractTest;
+import eu.stamp_project.Utils;
+import eu.stamp_project.dspot.amplifier.NumberLiteralAmplifier;
+import eu.stamp_project.dspot.amplifier.StringLiteralAmplifier;
+import eu.stamp_project.program.InputConfiguration;
+import eu.stamp_project.utils.AmplificationHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtMethod;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class NoBudgetizerTest extends AbstractTest {
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        AmplificationHelper.reset();
+        InputConfiguration.get().setAmplifiers(Arrays.asList(new NumberLiteralAmplifier(), new StringLiteralAmplifier()));
+        InputConfiguration.get().setMaxTestAmplified(3);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        InputConfiguration.get().setMaxTestAmplified(200);
+        InputConfiguration.get().setAmplifiers(Collections.emptyList());
+        AmplificationHelper.reset();
+    }
+
+    @Test
+    public void testInputAmplify() throws Exception {
+
+        /*
+            The amplified tests are pulled one by one from the amplifiers, and reduced on the fly:
+            only the budget of amplified tests is kept, and the discarded ones are forgotten by the amplification helper.
+         */
+
+        final CtClass<?> testClass = Utils.findClass("fr.inria.amp.LiteralMutation");
+        final List<CtMethod<?>> testMethods = Arrays.asList(
+                testClass.getMethodsByName("methodString").get(0),
+                testClass.getMethodsByName("methodInteger").get(0)
+        );
+        final List<CtMethod<?>> amplifiedTestMethods = new NoBudgetizer().inputAmplify(testMethods, 0);
+        assertEquals(3, amplifiedTestMethods.size());
+        final Set<CtMethod<?>> distinctTestMethods = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinctTestMethods.addAll(amplifiedTestMethods);
+        assertEquals(3, distinctTestMethods.size());
+        assertEquals(3, AmplificationHelper.ampTestToParent.size());
+    }
+}
@@ -4,8 +4,14 @@ import eu.stamp_project.Utils;
 import eu.stamp_project.utils.AmplificationHelper;
 import eu.stamp_project.minimization.PitMutantMinimizer;
 import org.junit.Before;
+import org.junit.Test;
 import spoon.reflect.declaration.CtMethod;
 
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 /**
  * Created by Benjamin DANGLOT
  * benjamin.danglot@inria.fr
@@ -26,6 +32,35 @@ public class PitScoreMutantSelectorTest extends AbstractSelectorTest {
         super.setUp();
     }
 
+    @Test
+    public void testSelectorInProcess() throws Exception {
+
+        /*
+            The same selection, with PIT run through its API inside the JVM of DSpot.
+            The amplified test class is only run against the classes that have live mutants.
+         */
+
+        Utils.getInputConfiguration().setInProcessPit(true);
+        try {
+            this.testSelectorUnderTest.init(Utils.getInputConfiguration());
+            this.testSelectorUnderTest.selectToKeep(
+                    this.testSelectorUnderTest.selectToAmplify(
+                            Collections.singletonList(getTest())
+                    )
+            );
+            assertTrue(this.testSelectorUnderTest.getAmplifiedTestCases().isEmpty());
+
+            this.testSelectorUnderTest.selectToKeep(
+                    this.testSelectorUnderTest.selectToAmplify(
+                            Collections.singletonList(getAmplifiedTest())
+                    )
+            );
+            assertFalse(this.testSelectorUnderTest.getAmplifiedTestCases().isEmpty());
+        } finally {
+            Utils.getInputConfiguration().setInProcessPit(false);
+        }
+    }
+
     @Override
     protected TestSelector getTestSelector() {
         return new PitMutantScoreSelector();
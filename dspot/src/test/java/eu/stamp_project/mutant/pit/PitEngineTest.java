@@ -0,0 +1,72 @@
+package eu.stamp_project.mutant.pit;
+
+import eu.stamp_project.AbstractTest;
+import eu.stamp_project.Utils;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class PitEngineTest extends AbstractTest {
+
+    @Override
+    public String getPathToPropertiesFile() {
+        return "src/test/resources/test-projects/test-projects.properties";
+    }
+
+    @Test
+    public void testRunPit() throws Exception {
+
+        /*
+            PIT is run through its API, without any Maven build.
+            The report is written at the same place as the one of the Maven plugin, and parsed the same way.
+            A run can be restricted to some test classes and some mutated classes.
+         */
+
+        final PitEngine pitEngine = new PitEngine(Utils.getInputConfiguration());
+        final String pathToReports = Utils.getInputConfiguration().getAbsolutePathToProjectRoot() + pitEngine.getOutputDirectoryPit();
+
+        pitEngine.runPit();
+        final List<PitResult> results = PitResultParser.parseAndDelete(pathToReports);
+        assertNotNull(results);
+        assertFalse(results.isEmpty());
+        assertTrue(results.stream().anyMatch(result -> result.getStateOfMutant() == PitResult.State.KILLED));
+
+        pitEngine.runPit(Collections.singletonList("example.TestSuiteExample2"), Collections.singletonList("example.Example"));
+        final List<PitResult> resultsOfTheTestClass = PitResultParser.parseAndDelete(pathToReports);
+        assertNotNull(resultsOfTheTestClass);
+        assertEquals(results.size(), resultsOfTheTestClass.size());
+        assertTrue(resultsOfTheTestClass.stream()
+                .filter(result -> result.getStateOfMutant() == PitResult.State.KILLED)
+                .allMatch(result -> "example.TestSuiteExample2".equals(result.getFullQualifiedNameOfKiller()))
+        );
+    }
+
+    @Test
+    public void testRunPitWithDescartes() throws Exception {
+
+        /*
+            The minions of PIT do not get the classpath of DSpot: the jars of PIT and Descartes are given explicitly,
+            and the extreme mutators of Descartes are found in the minions.
+         */
+
+        final boolean descartesMode = Utils.getInputConfiguration().isDescartesMode();
+        Utils.getInputConfiguration().setDescartesMode(true);
+        try {
+            final PitEngine pitEngine = new PitEngine(Utils.getInputConfiguration());
+            pitEngine.runPit();
+            final List<PitResult> results = PitResultParser.parseAndDelete(
+                    Utils.getInputConfiguration().getAbsolutePathToProjectRoot() + pitEngine.getOutputDirectoryPit());
+            assertNotNull(results);
+            assertFalse(results.isEmpty());
+            assertTrue(results.stream().anyMatch(result -> result.getStateOfMutant() == PitResult.State.KILLED));
+        } finally {
+            Utils.getInputConfiguration().setDescartesMode(descartesMode);
+        }
+    }
+}
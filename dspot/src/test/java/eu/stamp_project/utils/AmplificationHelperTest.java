@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -156,8 +157,8 @@ public class AmplificationHelperTest extends AbstractTest {
     public void testReduction() throws Exception {
 
         /*
-            test that the reduction, using hashcode is correct.
-            The method should return a list with different test
+            test that the reduction, using features of the tests, is correct.
+            The method should return a list with different test: the first one, and the furthest from it
          */
 
         Utils.getInputConfiguration().setMaxTestAmplified(2);
@@ -185,6 +186,8 @@ public class AmplificationHelperTest extends AbstractTest {
 
         final List<CtMethod<?>> reduce = new NoBudgetizer().reduce(methods);
         assertEquals(2, reduce.size());
+        assertSame(methodString, reduce.get(0));
+        assertSame(methodInteger, reduce.get(1));
 
         Utils.getInputConfiguration().setMaxTestAmplified(200);
     }
@@ -3,6 +3,7 @@ package eu.stamp_project.utils.compilation;
 import eu.stamp_project.dspot.amplifier.Amplifier;
 import eu.stamp_project.program.InputConfiguration;
 import org.apache.commons.io.FileUtils;
+import org.eclipse.jdt.internal.compiler.env.INameEnvironment;
 import org.junit.Before;
 import org.junit.Test;
 import spoon.reflect.code.CtCodeSnippetStatement;
@@ -19,6 +20,11 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by Benjamin DANGLOT
@@ -65,6 +71,97 @@ public class DSpotCompilerTest {
         assertEquals(2, aClass.getMethods().size());
     }
 
+    @Test
+    public void testDSpotCompilerInMemory() throws Exception {
+
+        /*
+            The in memory compilation does not print the .java in the tmp folder,
+            and keep the bytes of the class files.
+            Uncompilable methods are discarded as with the compilation on the disk.
+         */
+
+        final InputConfiguration configuration = InputConfiguration.initialize("src/test/resources/test-projects/test-projects.properties")
+                .setCompileInMemory(true);
+        final DSpotCompiler compiler = DSpotCompiler.createDSpotCompiler(configuration, "");
+        assertTrue(compiler.isInMemory());
+        final CtClass<?> aClass = getClass(compiler.getLauncher().getFactory());
+        final List<CtMethod<?>> method = aClass.getMethodsByName("method");
+        final List<CtMethod<?>> tests = new UncompilableAmplifier().amplify(method.get(0), 0).collect(Collectors.toList());
+        tests.forEach(aClass::addMethod);
+        assertEquals(3, aClass.getMethods().size());
+
+        final List<CtMethod<?>> results = TestCompiler.compileAndDiscardUncompilableMethods(compiler, aClass, "",
+                new ArrayList(aClass.getMethods()), configuration.withComment());
+        assertEquals(2, results.size());
+        assertEquals(2, aClass.getMethods().size());
+        assertTrue(aClass.getMethodsByName("uncompilableTest").isEmpty());
+
+        assertFalse(new File(DSpotCompiler.PATH_TO_AMPLIFIED_TEST_SRC + "/MyTestClass.java").exists());
+        assertTrue(compiler.getClassFilesInMemory().containsKey("MyTestClass"));
+        assertTrue(new File(compiler.getBinaryOutputDirectory(), "MyTestClass.class").exists());
+    }
+
+    @Test
+    public void testReuseOfTheNameEnvironment() throws Exception {
+
+        /*
+            The name environment of JDT is built once, and reused by the next compilations,
+            as long as the classpath does not change.
+         */
+
+        final InputConfiguration configuration = InputConfiguration.initialize("src/test/resources/test-projects/test-projects.properties");
+        final DSpotCompiler compiler = DSpotCompiler.createDSpotCompiler(configuration, "");
+        final CtClass<?> aClass = getClass(compiler.getLauncher().getFactory());
+        assertEquals(1, TestCompiler.compileAndDiscardUncompilableMethods(compiler, aClass, "",
+                new ArrayList(aClass.getMethods()), configuration.withComment()).size());
+        final INameEnvironment nameEnvironment = compiler.getNameEnvironment();
+        assertNotNull(nameEnvironment);
+
+        new UncompilableAmplifier().amplify(aClass.getMethodsByName("method").get(0), 0).forEach(aClass::addMethod);
+        assertEquals(2, TestCompiler.compileAndDiscardUncompilableMethods(compiler, aClass, "",
+                new ArrayList(aClass.getMethods()), configuration.withComment()).size());
+        assertSame(nameEnvironment, compiler.getNameEnvironment());
+
+        // the classpath changes, the name environment is built again
+        compiler.compile("target/dspot/dependencies/");
+        assertNotSame(nameEnvironment, compiler.getNameEnvironment());
+    }
+
+    @Test
+    public void testCompileAFolderWithTheSharedCompiler() throws Exception {
+
+        /*
+            The selectors compile the amplified test class with the compiler of the amplification,
+            with their own classpath and output directory.
+            Each classpath keeps its own name environment, that is reused from a compilation to another.
+         */
+
+        final InputConfiguration configuration = InputConfiguration.initialize("src/test/resources/test-projects/test-projects.properties");
+        final DSpotCompiler compiler = DSpotCompiler.createDSpotCompiler(configuration, "");
+        configuration.setCompiler(compiler);
+        final CtClass<?> aClass = getClass(compiler.getLauncher().getFactory());
+        assertEquals(1, TestCompiler.compileAndDiscardUncompilableMethods(compiler, aClass, "",
+                new ArrayList(aClass.getMethods()), configuration.withComment()).size());
+        final INameEnvironment nameEnvironmentOfAmplification = compiler.getNameEnvironment();
+
+        final File outputDirectory = new File("target/dspot/tmp_selector_classes/");
+        FileUtils.deleteDirectory(outputDirectory);
+        FileUtils.forceMkdir(outputDirectory);
+        assertTrue(DSpotCompiler.compile(configuration, DSpotCompiler.PATH_TO_AMPLIFIED_TEST_SRC,
+                compiler.getBinaryOutputDirectory().getAbsolutePath(), outputDirectory));
+        assertTrue(new File(outputDirectory, "MyTestClass.class").exists());
+        final INameEnvironment nameEnvironmentOfSelector = compiler.getNameEnvironment();
+        assertNotSame(nameEnvironmentOfAmplification, nameEnvironmentOfSelector);
+
+        // both name environments are reused
+        assertEquals(1, TestCompiler.compileAndDiscardUncompilableMethods(compiler, aClass, "",
+                new ArrayList(aClass.getMethods()), configuration.withComment()).size());
+        assertSame(nameEnvironmentOfAmplification, compiler.getNameEnvironment());
+        assertTrue(DSpotCompiler.compile(configuration, DSpotCompiler.PATH_TO_AMPLIFIED_TEST_SRC,
+                compiler.getBinaryOutputDirectory().getAbsolutePath(), outputDirectory));
+        assertSame(nameEnvironmentOfSelector, compiler.getNameEnvironment());
+    }
+
     // quick implementation used to produce a uncompilable test case
     private class UncompilableAmplifier implements Amplifier {
 
@@ -0,0 +1,42 @@
+package eu.stamp_project.utils.compilation;
+
+import eu.stamp_project.AbstractTest;
+import eu.stamp_project.Utils;
+import eu.stamp_project.testrunner.runner.test.TestListener;
+import eu.stamp_project.utils.AmplificationHelper;
+import eu.stamp_project.utils.DSpotUtils;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InProcessTestRunnerTest extends AbstractTest {
+
+    @Test
+    public void testRunTestsInProcess() throws Exception {
+
+        /*
+            The tests are run inside the JVM of DSpot, and give the same results as a fresh JVM.
+         */
+
+        DSpotUtils.copyPackageFromResources();
+        final String classpath = AmplificationHelper.getClassPath(Utils.getCompiler(), Utils.getInputConfiguration())
+                + AmplificationHelper.PATH_SEPARATOR + new File("target/dspot/dependencies/").getAbsolutePath();
+        final TestListener result = InProcessTestRunner.runTests(classpath,
+                "fr.inria.sample.TestClassWithoutAssert",
+                new String[]{"test1", "test2", "test3"},
+                10000
+        );
+        assertEquals(3, result.getPassingTests().size());
+        assertTrue(result.getFailingTests().isEmpty());
+
+        final TestListener failingResult = InProcessTestRunner.runTests(classpath,
+                "fr.inria.filter.failing.FailingTest",
+                new String[]{"testFailingWithException"},
+                10000
+        );
+        assertEquals(1, failingResult.getFailingTests().size());
+    }
+}
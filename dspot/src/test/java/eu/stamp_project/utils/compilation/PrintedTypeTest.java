@@ -0,0 +1,56 @@
+package eu.stamp_project.utils.compilation;
+
+import org.junit.Test;
+import spoon.Launcher;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.ModifierKind;
+import spoon.reflect.factory.Factory;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PrintedTypeTest {
+
+    @Test
+    public void testPrintAndGetMethodContaining() throws Exception {
+
+        /*
+            The offsets recorded while printing must match the printed source code,
+            and map any fragment of a method body to the method itself.
+         */
+
+        final Factory factory = new Launcher().getFactory();
+        final CtClass<?> aClass = factory.Class().create("eu.stamp_project.MyPrintedClass");
+        final CtMethod<?> first = addMethod(factory, aClass, "first", "int firstVariable = 0");
+        final CtMethod<?> second = addMethod(factory, aClass, "second", "java.lang.String secondVariable = \"second\"");
+
+        final PrintedType printedType = PrintedType.print(aClass, false);
+        final String sourceCode = printedType.getSourceCode();
+        assertTrue(sourceCode.startsWith("package eu.stamp_project;"));
+
+        final int firstVariable = sourceCode.indexOf("firstVariable");
+        assertSame(first, printedType.getMethodContaining(firstVariable, firstVariable + "firstVariable".length() - 1));
+        final int secondVariable = sourceCode.indexOf("secondVariable");
+        assertSame(second, printedType.getMethodContaining(secondVariable, secondVariable + "secondVariable".length() - 1));
+        final int secondName = sourceCode.indexOf("second()");
+        assertSame(second, printedType.getMethodContaining(secondName, secondName));
+
+        // the declaration of the class is not inside any method
+        final int classDeclaration = sourceCode.indexOf("class MyPrintedClass");
+        assertNull(printedType.getMethodContaining(classDeclaration, classDeclaration));
+        // a fragment that overlaps two methods is not inside any method
+        assertNull(printedType.getMethodContaining(firstVariable, secondVariable));
+    }
+
+    private CtMethod<?> addMethod(Factory factory, CtClass<?> aClass, String name, String statement) {
+        final CtMethod<Void> method = factory.createMethod();
+        method.setSimpleName(name);
+        method.setType(factory.Type().VOID_PRIMITIVE);
+        method.setBody(factory.createCodeSnippetStatement(statement));
+        method.addModifier(ModifierKind.PUBLIC);
+        aClass.addMethod(method);
+        return method;
+    }
+}
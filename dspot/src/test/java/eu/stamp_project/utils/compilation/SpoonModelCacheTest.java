@@ -0,0 +1,94 @@
+package eu.stamp_project.utils.compilation;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import spoon.Launcher;
+import spoon.reflect.declaration.CtClass;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class SpoonModelCacheTest {
+
+    private static final String PATH_TO_SOURCES = "target/dspot/spoon-model-cache-test/sources/";
+
+    private static final String PATH_TO_CACHE = "target/dspot/spoon-model-cache-test/cache/";
+
+    @Before
+    public void setUp() throws Exception {
+        FileUtils.deleteDirectory(new File("target/dspot/spoon-model-cache-test/"));
+        FileUtils.write(new File(PATH_TO_SOURCES + "fr/inria/cache/Cached.java"),
+                "package fr.inria.cache;" + System.getProperty("line.separator") +
+                        "public class Cached {" + System.getProperty("line.separator") +
+                        "    // a comment" + System.getProperty("line.separator") +
+                        "    public int method() { return 42; }" + System.getProperty("line.separator") +
+                        "}", StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(new File("target/dspot/spoon-model-cache-test/"));
+    }
+
+    @Test
+    public void testCacheOfTheSpoonModel() throws Exception {
+
+        /*
+            The model is built at the first call, and cached.
+            It is loaded from the cache at the next calls, as long as the content of the sources does not change,
+            whatever their dates of modification.
+         */
+
+        final Launcher built = DSpotCompiler.getSpoonModelOf(PATH_TO_SOURCES, "", PATH_TO_CACHE);
+        assertNotNull(built.getFactory().Class().get("fr.inria.cache.Cached"));
+        assertEquals(1, new File(PATH_TO_CACHE).listFiles().length);
+
+        final SpoonModelCache cache = new SpoonModelCache(PATH_TO_CACHE);
+        final String[] sources = {PATH_TO_SOURCES, "target/dspot/dependencies/"};
+        final String key = cache.computeKey(sources, "");
+        final File sourceFile = new File(PATH_TO_SOURCES + "fr/inria/cache/Cached.java");
+        sourceFile.setLastModified(sourceFile.lastModified() + 10000L);
+        assertEquals(key, cache.computeKey(sources, ""));
+
+        final Launcher loaded = cache.load(key);
+        assertNotNull(loaded);
+        final CtClass<?> cached = loaded.getFactory().Class().get("fr.inria.cache.Cached");
+        assertEquals(built.getFactory().Class().get("fr.inria.cache.Cached").toString(), cached.toString());
+        assertEquals(1, cached.getMethodsByName("method").get(0).getComments().size());
+
+        // the content of the sources changed: the model must be built again
+        FileUtils.write(sourceFile, FileUtils.readFileToString(sourceFile, StandardCharsets.UTF_8).replace("42", "43"), StandardCharsets.UTF_8);
+        final String newKey = cache.computeKey(sources, "");
+        assertNotEquals(key, newKey);
+        assertNull(cache.load(newKey));
+        final Launcher rebuilt = DSpotCompiler.getSpoonModelOf(PATH_TO_SOURCES, "", PATH_TO_CACHE);
+        assertEquals(rebuilt.getFactory().Class().get("fr.inria.cache.Cached").toString(),
+                cache.load(newKey).getFactory().Class().get("fr.inria.cache.Cached").toString());
+    }
+
+    @Test
+    public void testKeyDependsOnTheEntriesOfTheClasspath() throws Exception {
+
+        /*
+            A dependency updated in place, with the same path, changes the key:
+            the cached model, built against the previous version of the dependency, is not loaded.
+         */
+
+        final File dependency = new File("target/dspot/spoon-model-cache-test/dependency.jar");
+        FileUtils.write(dependency, "a first version of the dependency", StandardCharsets.UTF_8);
+        final SpoonModelCache cache = new SpoonModelCache(PATH_TO_CACHE);
+        final String[] sources = {PATH_TO_SOURCES};
+        final String key = cache.computeKey(sources, dependency.getPath());
+        assertEquals(key, cache.computeKey(sources, dependency.getPath()));
+
+        FileUtils.write(dependency, "a second version of the dependency", StandardCharsets.UTF_8);
+        assertNotEquals(key, cache.computeKey(sources, dependency.getPath()));
+    }
+}
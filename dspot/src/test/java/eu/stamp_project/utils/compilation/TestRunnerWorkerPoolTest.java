@@ -0,0 +1,120 @@
+package eu.stamp_project.utils.compilation;
+
+import eu.stamp_project.AbstractTest;
+import eu.stamp_project.Utils;
+import eu.stamp_project.testrunner.EntryPoint;
+import eu.stamp_project.testrunner.runner.test.TestListener;
+import eu.stamp_project.utils.AmplificationHelper;
+import eu.stamp_project.utils.DSpotUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtMethod;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestRunnerWorkerPoolTest extends AbstractTest {
+
+    private int timeoutInMs;
+
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        this.timeoutInMs = EntryPoint.timeoutInMs;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Utils.getInputConfiguration().setTestRunnerPoolSize(0);
+        TestRunnerWorkerPool.shutdown();
+        EntryPoint.timeoutInMs = this.timeoutInMs;
+        EntryPoint.blackList.clear();
+    }
+
+    @Test
+    public void testRunTestsInWorkers() throws Exception {
+
+        /*
+            The pool runs the tests in long-lived JVMs, and gives the same results as a fresh JVM.
+            The same pool is reused as long as the classpath does not change.
+         */
+
+        DSpotUtils.copyPackageFromResources();
+        final String classpath = AmplificationHelper.getClassPath(Utils.getCompiler(), Utils.getInputConfiguration())
+                + AmplificationHelper.PATH_SEPARATOR + new File("target/dspot/dependencies/").getAbsolutePath();
+        EntryPoint.timeoutInMs = 10000;
+        final TestRunnerWorkerPool pool = TestRunnerWorkerPool.getPool(1, classpath,
+                Utils.getInputConfiguration().getAbsolutePathToTestClasses());
+        final String[] testClassNames = {"fr.inria.sample.TestClassWithoutAssert"};
+        final String[] methodNames = {"test1", "test2", "test3"};
+        final TestListener firstRun = pool.runTests(testClassNames, methodNames);
+        assertEquals(3, firstRun.getPassingTests().size());
+        assertTrue(firstRun.getFailingTests().isEmpty());
+
+        final TestListener secondRun = TestRunnerWorkerPool.getPool(1, classpath,
+                Utils.getInputConfiguration().getAbsolutePathToTestClasses())
+                .runTests(testClassNames, new String[]{"test1"});
+        assertEquals(1, secondRun.getPassingTests().size());
+        assertSame(pool, TestRunnerWorkerPool.getPool(1, classpath, Utils.getInputConfiguration().getAbsolutePathToTestClasses()));
+        assertNotSame(pool, TestRunnerWorkerPool.getPool(2, classpath, Utils.getInputConfiguration().getAbsolutePathToTestClasses()));
+    }
+
+    @Test
+    public void testBlackListAndFailureOfARun() throws Exception {
+
+        /*
+            The test methods of the black list are not run.
+            A run that fails inside the worker, e.g. because the test class does not exist, is reported to the caller,
+            and the worker is still used for the next runs.
+         */
+
+        DSpotUtils.copyPackageFromResources();
+        final String classpath = AmplificationHelper.getClassPath(Utils.getCompiler(), Utils.getInputConfiguration())
+                + AmplificationHelper.PATH_SEPARATOR + new File("target/dspot/dependencies/").getAbsolutePath();
+        EntryPoint.timeoutInMs = 10000;
+        final TestRunnerWorkerPool pool = TestRunnerWorkerPool.getPool(1, classpath,
+                Utils.getInputConfiguration().getAbsolutePathToTestClasses());
+        final String[] testClassNames = {"fr.inria.sample.TestClassWithoutAssert"};
+        EntryPoint.blackList.add("test2");
+        final TestListener result = pool.runTests(testClassNames, new String[]{"test1", "test2", "test3"});
+        assertEquals(2, result.getPassingTests().size());
+        assertFalse(result.getPassingTests().contains("test2"));
+        EntryPoint.blackList.clear();
+
+        try {
+            pool.runTests(new String[]{"fr.inria.sample.DoesNotExist"}, new String[]{"test1"});
+            fail("The run of a test class that does not exist should have failed");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("ClassNotFoundException"));
+        }
+        assertEquals(1, pool.runTests(testClassNames, new String[]{"test1"}).getPassingTests().size());
+    }
+
+    @Test
+    public void testRunGivenTestMethodsWithPool() throws Exception {
+
+        /*
+            The TestRunner uses the pool when the configuration specifies a size.
+         */
+
+        Utils.getInputConfiguration().setTestRunnerPoolSize(1);
+        final CtClass<?> testClass = Utils.findClass("fr.inria.sample.TestClassWithAssert");
+        final List<CtMethod<?>> testsToRun = new ArrayList<>(testClass.getMethodsByName("test1"));
+        EntryPoint.timeoutInMs = 10000;
+        DSpotUtils.copyPackageFromResources();
+        final TestListener result = TestRunner.runGivenTestMethods(testClass, testsToRun,
+                AmplificationHelper.getClassPath(Utils.getCompiler(), Utils.getInputConfiguration()));
+        assertEquals(1, result.getPassingTests().size());
+        assertEquals("test1", result.getPassingTests().get(0));
+    }
+}